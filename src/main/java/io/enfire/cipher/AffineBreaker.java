@@ -0,0 +1,171 @@
+package io.enfire.cipher;
+
+import io.enfire.util.TopK;
+
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class implements Affine Cipher decryption algorithm.
+ */
+public class AffineBreaker extends Breaker {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * This field will contain the key used in encryption when the secret is successfully decrypted:
+     * the multiplier and the shift. -1 means the decryption failed or hasn't started yet.
+     */
+    public int[] key = new int[]{-1, -1};
+
+    /**
+     * Factor of the log-likelihoods of the keys, which are ranked as {@code long} scores.
+     */
+    private static final double SCALE = 1000;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code AffineBreaker} instance.
+     *
+     * @param file Dictionary file path.
+     * @throws IOException if the file path does not exist.
+     */
+    public AffineBreaker(String file) throws IOException {
+        super(file);
+    }
+
+    /**
+     * Creates a new {@code AffineBreaker} instance which shares an already loaded dictionary.
+     *
+     * @param dictionary The dictionary to consult.
+     */
+    public AffineBreaker(Dictionary dictionary) {
+        super(dictionary);
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Checks if the encrypted message can be decrypted.
+     *
+     * @return {@code boolean} decryption result.
+     */
+    @Override
+    public boolean canDecrypt() {
+        return key[0] > -1 && key[1] > -1 && !decrypted.isBlank();
+    }
+
+    /**
+     * Decrypts the secret by ranking all the keys, then confirming them with the dictionary.
+     *
+     * <p>Algorithm: Count the letters of the secret once. Each of the 312 decryption keys is a permutation
+     * of the letters, so its log-likelihood against the English letter frequencies ({@link Breaker#freqs})
+     * comes from the counts alone, without decrypting anything. The keys are scored in parallel and
+     * decrypted from the most likely one until the dictionary accepts a candidate. A long secret is
+     * accepted on the first key, a short one may take a few more.</p>
+     *
+     * @param secret The secret to decrypt.
+     */
+    @Override
+    public void decrypt(String secret) {
+        if (secret.isBlank())
+            return;
+
+        // Reset the instance. Make it ready for another round.
+        key[0] = -1;
+        key[1] = -1;
+        decrypted = "";
+
+        long start = System.nanoTime();
+        DecryptionResult r = record(secret, solve(secret, NEVER), start);
+        key = r.getKey();
+        decrypted = r.getDecrypted();
+    }
+
+    // ==============================
+    // Protected Methods
+    // ==============================
+
+    /**
+     * Decrypts the secret by ranking all the keys, then confirming them with the dictionary.
+     *
+     * @param secret  A secret file path or a secret text.
+     * @param stopped Checked before each candidate. The decryption fails as soon as it's {@code true}.
+     * @return The decryption result with two keys: the multiplier and the shift used in encryption.
+     */
+    @Override
+    protected DecryptionResult solve(String secret, BooleanSupplier stopped) {
+        if (secret.isBlank())
+            return DecryptionResult.failure(2);
+
+        secret = read(secret);
+        int[] counter = count(secret);
+        TopK top = evaluate(AffineCipher.KEYS, AffineCipher.KEYS, () -> (index, floor) -> score(counter, index));
+        int[] ranked = top.ids();
+
+        // The scratch is borrowed only once the parallel ranking is over.
+        int length = secret.length();
+        Scratch scratch = Scratch.get().fit(length);
+        char[] text = scratch.text;
+        secret.getChars(0, length, text, 0);
+
+        int words = tokenize(text, length, scratch);
+        int threshold = calcThreshold(text, length);
+        boolean unspaced = isUnspaced(scratch.words, words);
+        for (int i = 0; i < ranked.length && !stopped.getAsBoolean(); i++) {
+            AffineCipher cipher = AffineCipher.of(ranked[i]);
+            cipher.encrypt(text, scratch.decrypted, 0, length);
+            if (accepts(scratch.decrypted, length, words, threshold, unspaced, scratch, stopped))
+                return result(cipher, secret, false);
+
+            reject(stopped, scratch, ranked[i], -1);
+        }
+
+        if (!(stopped instanceof Budget) || !((Budget) stopped).hasPartial())
+            return DecryptionResult.failure(2);
+
+        return result(AffineCipher.of(((Budget) stopped).getBestKey1()), secret, true);
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Scores a decryption key by the log-likelihood of the letters it decrypts to.
+     *
+     * @param counter The letter counts of the secret.
+     * @param index   The index of the decryption key.
+     * @return The log-likelihood, scaled by {@value #SCALE}. The higher the more likely.
+     */
+    private long score(int[] counter, int index) {
+        AffineCipher cipher = AffineCipher.of(index);
+        double score = 0;
+        for (int c = 0; c < counter.length; c++) {
+            if (counter[c] > 0) {
+                score += counter[c] * logFreqs[cipher.apply(c)];
+            }
+        }
+        return Math.round(score * SCALE);
+    }
+
+    /**
+     * Turns a decryption key into a result, whose message is a view of the secret.
+     *
+     * @param cipher  The decryption key.
+     * @param secret  The secret text.
+     * @param partial Whether the decryption ran out of budget before accepting a candidate.
+     * @return The result, with the key used in encryption.
+     */
+    private static DecryptionResult result(AffineCipher cipher, String secret, boolean partial) {
+        AffineCipher encryption = cipher.inverse();
+        return new DecryptionResult(new int[]{encryption.getA(), encryption.getB()},
+                Plaintext.of(secret, cipher), partial);
+    }
+}
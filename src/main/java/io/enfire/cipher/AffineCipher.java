@@ -0,0 +1,265 @@
+package io.enfire.cipher;
+
+/**
+ * This class implements the Affine Cipher encryption algorithm: each letter {@code x} becomes
+ * {@code a * x + b mod 26}, keeping its case.
+ *
+ * <p>The multiplier {@code a} must be coprime with 26, so that the letters don't collide: there are
+ * 12 of them, hence 312 keys. A Caesar Cipher is an Affine Cipher with {@code a = 1}.</p>
+ *
+ * <p>Instances are immutable. {@link AffineCipher#of(int, int)} returns shared instances, built once
+ * with the class, and each one substitutes letters through precomputed tables, the way
+ * {@link CaesarCipher} does.</p>
+ */
+public class AffineCipher {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * 26 lower case English alphabet.
+     */
+    private static final String alphabet = "abcdefghijklmnopqrstuvwxyz";
+    /**
+     * The multipliers coprime with 26.
+     */
+    private static final int[] MULTIPLIERS = {1, 3, 5, 7, 9, 11, 15, 17, 19, 21, 23, 25};
+    /**
+     * Number of keys: 12 multipliers by 26 shifts.
+     */
+    static final int KEYS = MULTIPLIERS.length * 26;
+    /**
+     * Shared instances, indexed by {@link AffineCipher#index()}.
+     */
+    private static final AffineCipher[] ALL = new AffineCipher[KEYS];
+
+    /**
+     * The multiplier of the key.
+     */
+    private final int a;
+    /**
+     * The shift of the key.
+     */
+    private final int b;
+    /**
+     * 26 lower case English alphabet, each letter encrypted.
+     */
+    private final String mappedAlpha;
+    /**
+     * Byte substitution table: each ASCII letter maps to its encrypted counterpart, every other byte to itself.
+     */
+    private final byte[] table;
+    /**
+     * Index of the encrypted letter of each letter index: the permutation of the key.
+     */
+    private final int[] permutation = new int[26];
+
+    static {
+        for (int m = 0; m < MULTIPLIERS.length; m++) {
+            for (int b = 0; b < 26; b++) {
+                ALL[m * 26 + b] = new AffineCipher(MULTIPLIERS[m], b);
+            }
+        }
+    }
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code AffineCipher} instance.
+     *
+     * @param a The multiplier of the key, coprime with 26.
+     * @param b The shift of the key (0 - 25).
+     * @throws KeyOutOfBoundsException if the multiplier isn't coprime with 26 or the shift is out of bounds.
+     */
+    public AffineCipher(int a, int b) {
+        throwCheck(a, b);
+        this.a = a;
+        this.b = b;
+
+        char[] mapped = new char[alphabet.length()];
+        for (int x = 0; x < mapped.length; x++) {
+            permutation[x] = (a * x + b) % 26;
+            mapped[x] = alphabet.charAt(permutation[x]);
+        }
+        mappedAlpha = new String(mapped);
+        table = CaesarCipher.table(mappedAlpha);
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Gets the shared cipher of the key.
+     *
+     * @param a The multiplier of the key, coprime with 26.
+     * @param b The shift of the key (0 - 25).
+     * @return The cipher.
+     * @throws KeyOutOfBoundsException if the multiplier isn't coprime with 26 or the shift is out of bounds.
+     */
+    public static AffineCipher of(int a, int b) {
+        throwCheck(a, b);
+        return ALL[index(a, b)];
+    }
+
+    /**
+     * Gets the multiplier of the key.
+     *
+     * @return The multiplier.
+     */
+    public int getA() {
+        return a;
+    }
+
+    /**
+     * Gets the shift of the key.
+     *
+     * @return The shift.
+     */
+    public int getB() {
+        return b;
+    }
+
+    /**
+     * Gets the cipher which undoes this one: {@code a' * (y - b) mod 26}, {@code a'} being the inverse
+     * of the multiplier modulo 26.
+     *
+     * @return The shared inverse cipher.
+     */
+    public AffineCipher inverse() {
+        int inverse = 1;
+        while (a * inverse % 26 != 1) {
+            inverse += 2;
+        }
+        return of(inverse, Math.floorMod(-inverse * b, 26));
+    }
+
+    /**
+     * Encrypts the message.
+     *
+     * @param msg The message to encrypt.
+     * @return The secret.
+     */
+    public String encrypt(String msg) {
+        if (msg.isBlank())
+            return "";
+
+        char[] encrypted = msg.toCharArray();
+        encrypt(encrypted, encrypted, 0, encrypted.length);
+        return new String(encrypted);
+    }
+
+    /**
+     * Decrypts the secret.
+     *
+     * @param secret The secret to decrypt.
+     * @return The message.
+     * @see AffineCipher#inverse()
+     */
+    public String decrypt(String secret) {
+        return inverse().encrypt(secret);
+    }
+
+    /**
+     * Encrypts the characters of the text from {@code from} to {@code to}, so that a text can be held
+     * by a larger, reused array. The other characters of {@code dst} are left untouched.
+     *
+     * @param src  The text to encrypt.
+     * @param dst  The array to write the encrypted characters to. It may be {@code src} itself.
+     * @param from Index of the first character.
+     * @param to   End of the text (exclusive).
+     */
+    public void encrypt(char[] src, char[] dst, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = src[i];
+            dst[i] = (c < 0x80) ? (char) table[c] : CaesarCipher.shift(c, mappedAlpha);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "(" + a + ", " + b + ")";
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Encrypts one character, for {@link Plaintext}.
+     *
+     * @param c The character to encrypt.
+     * @return The encrypted character.
+     */
+    char encrypt(char c) {
+        return (c < 0x80) ? (char) table[c] : CaesarCipher.shift(c, mappedAlpha);
+    }
+
+    /**
+     * Gets the shared cipher of a key index.
+     *
+     * @param index The index of the key (0 - 311).
+     * @return The cipher.
+     */
+    static AffineCipher of(int index) {
+        return ALL[index];
+    }
+
+    /**
+     * Gets the index of the key, from 0 to 311.
+     *
+     * @return The index.
+     */
+    int index() {
+        return index(a, b);
+    }
+
+    /**
+     * Gets the encrypted letter of a letter, as indices in the alphabet, without touching any text.
+     *
+     * @param x The letter index (0 - 25).
+     * @return The encrypted letter index.
+     */
+    int apply(int x) {
+        return permutation[x];
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Throws {@link KeyOutOfBoundsException} error if the multiplier isn't coprime with 26
+     * or if {@code b < 0 || b > 25}.
+     *
+     * @param a The multiplier to check.
+     * @param b The shift to check.
+     */
+    private static void throwCheck(int a, int b) {
+        if (a < 1 || a > 25 || a % 2 == 0 || a == 13) {
+            String err = String.format("Multiplier must be an odd number between 1 and 25 but 13: %d", a);
+            throw new KeyOutOfBoundsException(err);
+        }
+        if (b < 0 || b > 25) {
+            String err = String.format("Shift must be between %d and %d (both inclusive): %d", 0, 25, b);
+            throw new KeyOutOfBoundsException(err);
+        }
+    }
+
+    /**
+     * Gets the index of a valid key.
+     *
+     * @param a The multiplier of the key.
+     * @param b The shift of the key.
+     * @return The index.
+     */
+    private static int index(int a, int b) {
+        int m = 0;
+        while (MULTIPLIERS[m] != a) {
+            m++;
+        }
+        return m * 26 + b;
+    }
+}
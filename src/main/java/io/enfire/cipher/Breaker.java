@@ -1,11 +1,30 @@
 package io.enfire.cipher;
 
-import io.enfire.util.DescStringLengthComparator;
+import io.enfire.util.Threads;
+import io.enfire.util.TopK;
 
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static java.lang.System.Logger.Level.DEBUG;
+import static java.lang.System.Logger.Level.WARNING;
 
 /**
  * This class includes basic decryption functionality for {@code Caesar} and {@code Vigenère} ciphers.
@@ -24,6 +43,16 @@ public abstract class Breaker {
      * <a href='http://pi.math.cornell.edu/~mec/2003-2004/cryptography/subs/frequencies.html'>cornell.edu</a>
      */
     protected final String freqLetters = "etaoinsrhdlucmfywgpbvkxqjz";
+    /**
+     * Frequencies of the 26 English letters in alphabetical order, in percent. Cited from the same source
+     * as {@link Breaker#freqLetters}.
+     */
+    protected final double[] freqs = LanguageProfile.ENGLISH.clone();
+    /**
+     * Natural logarithms of {@link Breaker#freqs}, to score keys by the log-likelihood of the letters
+     * they decrypt to.
+     */
+    protected final double[] logFreqs = Arrays.stream(freqs).map(Math::log).toArray();
     /**
      * This field will contain a message when the secret is successfully decrypted.
      */
@@ -32,6 +61,74 @@ public abstract class Breaker {
      * {@code Breaker} object will consult this dictionary to decrypt the secret.
      */
     protected Dictionary dictionary;
+    /**
+     * Breaks the texts which come without spaces into dictionary words.
+     */
+    protected Segmenter segmenter;
+    /**
+     * {@code Breaker} object will accept candidates in this language: English, with the words of
+     * {@link Breaker#dictionary}.
+     */
+    protected LanguageProfile profile;
+    /**
+     * The executor which runs {@link Breaker#decryptAsync(String)}.
+     * By default, a virtual thread per decryption when the runtime supports it.
+     */
+    public Executor executor = Threads.taskExecutor();
+    /**
+     * Whether a secret naming an existing file is read from that file. Servers turn it off
+     * so that clients can't make them read local files.
+     */
+    public boolean readFiles = true;
+    /**
+     * Largest share of the letter pairs of a candidate which may be rare in English, such as "qz",
+     * before the candidate is rejected without consulting the dictionary. A single rare pair is always
+     * allowed. 1 turns the check off.
+     *
+     * @see Breaker#hasRareBigrams(char[], int)
+     */
+    public double bigramTolerance = 0.02;
+    /**
+     * Journal which records the outcome of every decryption, {@code null} not to record them.
+     */
+    public ResultJournal journal;
+
+    /**
+     * Strategy recorded for a key found with cribs.
+     */
+    static final String CRIB = "CRIB";
+    /**
+     * Strategy recorded for the best candidate of a decryption which ran out of budget.
+     */
+    static final String PARTIAL = "PARTIAL";
+
+    /**
+     * Writes the failures of {@link Breaker#journal}.
+     */
+    private static final System.Logger LOGGER = System.getLogger(Breaker.class.getName());
+    /**
+     * Number of outcomes {@link Breaker#journal} failed to record.
+     */
+    private final AtomicLong journalFailures = new AtomicLong();
+
+    /**
+     * Stop condition of the decryptions which run until the end.
+     */
+    protected static final BooleanSupplier NEVER = () -> false;
+    /**
+     * Number of words between two checks of the stop condition within a candidate, minus one.
+     */
+    static final int CHECK_MASK = 511;
+    /**
+     * Fewest words for which racing the candidates pays off.
+     *
+     * @see Breaker#race(char[], int, int[], Decryptor, Scratch, BooleanSupplier)
+     */
+    static final int RACE_WORDS = 8;
+    /**
+     * Number of words of the first round of a race. It doubles every round.
+     */
+    private static final int RACE_START = 4;
 
     // ==============================
     // Constructors
@@ -45,6 +142,19 @@ public abstract class Breaker {
      */
     public Breaker(String file) throws IOException {
         this.dictionary = new Dictionary(file);
+        this.segmenter = new Segmenter(dictionary);
+        this.profile = LanguageProfile.english(dictionary);
+    }
+
+    /**
+     * Creates a new {@code Breaker} instance which shares an already loaded dictionary.
+     *
+     * @param dictionary The dictionary to consult.
+     */
+    public Breaker(Dictionary dictionary) {
+        this.dictionary = dictionary;
+        this.segmenter = new Segmenter(dictionary);
+        this.profile = LanguageProfile.english(dictionary);
     }
 
     // ==============================
@@ -65,21 +175,146 @@ public abstract class Breaker {
      */
     public abstract void decrypt(String secret);
 
+    /**
+     * Decrypts the secret on {@link Breaker#executor}.
+     *
+     * <p>Unlike {@link Breaker#decrypt(String)}, it leaves the fields of the breaker untouched,
+     * so any number of decryptions can run at the same time. Cancelling the returned future
+     * stops the decryption at the next candidate.</p>
+     *
+     * @param secret The secret to decrypt.
+     * @return A future of the decryption result.
+     */
+    public CompletableFuture<DecryptionResult> decryptAsync(String secret) {
+        CompletableFuture<DecryptionResult> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                long start = System.nanoTime();
+                future.complete(record(secret, solve(secret, future::isDone), start));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Decrypts the secret on {@link Breaker#executor} within a time limit.
+     *
+     * @param secret  The secret to decrypt.
+     * @param timeout How long to wait before giving up, in units of {@code unit}.
+     * @param unit    The unit of {@code timeout}.
+     * @return A future of the decryption result, completed with {@link java.util.concurrent.TimeoutException}
+     * and stopped if the time limit is reached.
+     */
+    public CompletableFuture<DecryptionResult> decryptAsync(String secret, long timeout, TimeUnit unit) {
+        return decryptAsync(secret).orTimeout(timeout, unit);
+    }
+
+    /**
+     * Decrypts the secret within a budget of time or candidates, without touching the fields of the breaker.
+     *
+     * <p>The budget is checked before each candidate and within the English check of a candidate.
+     * If it runs out first, the result holds the best scoring candidate checked so far and
+     * {@link DecryptionResult#isPartial()} tells so. Breakers which don't score their candidates
+     * return a failure instead.</p>
+     *
+     * <pre>{@code
+     * DecryptionResult r = breaker.decryptWithin(secret, new Budget(50, TimeUnit.MILLISECONDS));
+     * }</pre>
+     *
+     * @param secret The secret to decrypt.
+     * @param budget The budget of the decryption, not shared with another one.
+     * @return The decryption result.
+     */
+    public DecryptionResult decryptWithin(String secret, Budget budget) {
+        long start = System.nanoTime();
+        return record(secret, solve(secret, budget), start);
+    }
+
+    /**
+     * Gets the number of outcomes {@link Breaker#journal} failed to record, closed or out of storage.
+     *
+     * @return The number of failures.
+     */
+    public long getJournalFailures() {
+        return journalFailures.get();
+    }
+
     // ==============================
     // Protected Methods
     // ==============================
 
     /**
-     * Reads the secret text from the file if the given file exists,
-     * otherwise returns the text as it is.
+     * Decrypts the secret without touching the fields of the breaker.
+     *
+     * @param secret  A secret file path or a secret text.
+     * @param stopped Checked before each candidate. The decryption fails as soon as it's {@code true}.
+     * @return The decryption result.
+     */
+    protected abstract DecryptionResult solve(String secret, BooleanSupplier stopped);
+
+    /**
+     * Records the outcome of a decryption in {@link Breaker#journal}, if any.
+     *
+     * <p>The strategy recorded is the one of the result, such as the plan which found the key,
+     * or else the simple name of the breaker. A journal which fails, because it's closed or can't
+     * create its next segment, doesn't fail the decryption: the failure is counted
+     * ({@link Breaker#getJournalFailures()}) and logged.</p>
+     *
+     * @param secret The secret, as given to the breaker.
+     * @param result The decryption result.
+     * @param start  {@link System#nanoTime()} when the decryption started.
+     * @return The decryption result.
+     */
+    protected DecryptionResult record(String secret, DecryptionResult result, long start) {
+        if (journal == null)
+            return result;
+
+        int flags = (result.canDecrypt() ? ResultJournal.SUCCESS : 0)
+                | (result.isPartial() ? ResultJournal.PARTIAL : 0);
+        record(ResultJournal.hash(secret), result.getKey(), flags, result.getStrategy(), start);
+        return result;
+    }
+
+    /**
+     * Records the outcome of a decryption in {@link Breaker#journal}, if any.
+     *
+     * @param hash     Hash of the secret.
+     * @param key      The keys used in encryption.
+     * @param flags    {@link ResultJournal#SUCCESS} and {@link ResultJournal#PARTIAL}.
+     * @param strategy How the key was found, {@code null} for the simple name of the breaker.
+     * @param start    {@link System#nanoTime()} when the decryption started.
+     * @see Breaker#record(String, DecryptionResult, long)
+     */
+    void record(long hash, int[] key, int flags, String strategy, long start) {
+        ResultJournal journal = this.journal;
+        if (journal == null)
+            return;
+
+        try {
+            journal.append(hash, key, flags, (strategy != null) ? strategy : getClass().getSimpleName(),
+                    System.currentTimeMillis(), System.nanoTime() - start);
+        } catch (IllegalStateException | UncheckedIOException e) {
+            // Only the first failure is worth a warning: the next ones are likely the same.
+            LOGGER.log(journalFailures.getAndIncrement() == 0 ? WARNING : DEBUG, "Journal failed to record", e);
+        }
+    }
+
+    /**
+     * Reads the secret text from the file, in UTF-8, if the given file exists and {@link Breaker#readFiles}
+     * is on, otherwise returns the text as it is.
      *
      * @param secret A secret file path or a secret text.
      * @return The secret text.
      */
     protected String read(String secret) {
+        if (!readFiles)
+            return secret;
+
         StringBuilder s = new StringBuilder();
         try {
-            Reader reader = new FileReader(secret);
+            Reader reader = new InputStreamReader(new FileInputStream(secret), StandardCharsets.UTF_8);
             int ch;
             while ((ch = reader.read()) != -1) {
                 s.append((char) ch);
@@ -99,9 +334,37 @@ public abstract class Breaker {
      * @return A frequency counter array.
      */
     protected int[] count(String text) {
-        int[] counter = new int[26];
-        for (char c : text.toCharArray()) {
-            int index = alphabet.indexOf(Character.toLowerCase(c));
+        return count(text.toCharArray(), 0, 1);
+    }
+
+    /**
+     * Counts the frequencies of letters of a strided view of the text: the characters at
+     * {@code from}, {@code from + step}, {@code from + 2 * step} and so on.
+     *
+     * @param text English text.
+     * @param from Index of the first character of the view.
+     * @param step Distance between two characters of the view.
+     * @return A frequency counter array.
+     */
+    protected int[] count(char[] text, int from, int step) {
+        return count(text, text.length, from, step, new int[26]);
+    }
+
+    /**
+     * Counts the frequencies of letters of a strided view of the first {@code length} characters
+     * of the text into the given counter.
+     *
+     * @param text    English text.
+     * @param length  Length of the text.
+     * @param from    Index of the first character of the view.
+     * @param step    Distance between two characters of the view.
+     * @param counter The frequency counter array to fill. Its previous counts are cleared.
+     * @return The counter.
+     */
+    protected int[] count(char[] text, int length, int from, int step, int[] counter) {
+        Arrays.fill(counter, 0);
+        for (int i = from; i < length; i += step) {
+            int index = alphabet.indexOf(Character.toLowerCase(text[i]));
             if (index != -1) {
                 counter[index]++;
             }
@@ -147,6 +410,9 @@ public abstract class Breaker {
      * because the small ones (articles, preposition, etc.) are not distinguishable from gibberish.
      * Then, check word by word until it reaches a certain point where we can accept the validity of the text.</p>
      *
+     * <p>A text whose spaces were stripped, into one block or into letter groups, is broken into
+     * dictionary words by {@link Breaker#segmenter} instead.</p>
+     *
      * @param text      A decrypted text.
      * @param threshold Acceptance level of the text. Say, threshold is 2.
      *                  If any 2 or more words of the text is not English,
@@ -154,20 +420,464 @@ public abstract class Breaker {
      * @return {@code boolean} validation result.
      */
     protected boolean isEnglish(String text, int threshold) {
-        String[] words = text.split("\\s+");
-        Arrays.sort(words, new DescStringLengthComparator());
+        char[] chars = text.toCharArray();
+        if (hasRareBigrams(chars, chars.length))
+            return false;
+
+        int[] words = tokenize(chars);
+        if (isUnspaced(words, words.length))
+            return segmenter.isEnglish(chars, chars.length);
+
+        return isEnglish(chars, words, threshold);
+    }
 
-        boolean isEmpty = true;
+    /**
+     * Checks if the given decrypted text is valid English, the same way as {@link Breaker#isEnglish(String, int)}
+     * does, but with the words already found by {@link Breaker#tokenize(char[])}.
+     *
+     * <p>Shifting letters never moves word boundaries, so all the candidate decryptions of a secret
+     * share the words of the secret itself. They are found and sorted only once.</p>
+     *
+     * @param text      A decrypted text.
+     * @param words     The words of the text.
+     * @param threshold Acceptance level of the text.
+     * @return {@code boolean} validation result.
+     */
+    protected boolean isEnglish(char[] text, int[] words, int threshold) {
+        return isEnglish(text, words, words.length, threshold);
+    }
+
+    /**
+     * Checks if the given decrypted text is valid English, with the words held by the first
+     * {@code length} entries of {@code words}.
+     *
+     * @param text      A decrypted text.
+     * @param words     The words of the text.
+     * @param length    Number of entries of {@code words} in use, twice the number of words.
+     * @param threshold Acceptance level of the text.
+     * @return {@code boolean} validation result.
+     * @see Breaker#isEnglish(char[], int[], int)
+     */
+    protected boolean isEnglish(char[] text, int[] words, int length, int threshold) {
+        return check(text, words, length, threshold, NEVER) > 0;
+    }
+
+    /**
+     * Checks if the text has too many letter pairs which are rare in English to be English.
+     *
+     * <p>A single scan over the text against a 26x26 bit table, with no tokenization and no lookup,
+     * rejects nearly all the wrong decryptions before {@link Breaker#isEnglish(char[], int[], int, int)}
+     * looks their words up. Only pairs of adjacent letters count, so the pairs never span two words
+     * of a spaced text.</p>
+     *
+     * <p>The rare pairs are English ones, so a breaker whose {@link Breaker#profile} is another language
+     * doesn't check them.</p>
+     *
+     * @param text   A decrypted text.
+     * @param length Length of the text.
+     * @return {@code true} if more than {@link Breaker#bigramTolerance} of the pairs, and more than one,
+     * are rare.
+     * @see Dictionary#rareBigrams()
+     */
+    protected boolean hasRareBigrams(char[] text, int length) {
+        if (!profile.isEnglish())
+            return false;
+
+        int[] rare = dictionary.rareBigrams();
+        int pairs = 0;
+        int found = 0;
+        int previous = -1;
+        for (int i = 0; i < length; i++) {
+            char c = text[i];
+            int letter = (c >= 'A' && c <= 'z') ? (c | 0x20) - 'a' : -1;
+            if (letter < 0 || letter >= 26) {
+                previous = -1;
+                continue;
+            }
+            if (previous != -1) {
+                pairs++;
+                found += (rare[previous] >>> letter) & 1;
+            }
+            previous = letter;
+        }
+        return found > Math.max(1, bigramTolerance * pairs);
+    }
+
+    /**
+     * Finds the decryption keys under which all the cribs appear in the text.
+     *
+     * @param text   The secret.
+     * @param length Length of the secret.
+     * @param cribs  Known pieces of the message.
+     * @param period Number of keys the cipher alternates: 1 or 2.
+     * @return The keys, numbered as {@link Crib#keys(char[], int)} does. Empty if a crib appears nowhere.
+     * @throws IllegalArgumentException if a crib has no English letter.
+     */
+    protected BitSet matchCribs(char[] text, int length, String[] cribs, int period) {
+        BitSet keys = null;
+        for (String crib : cribs) {
+            BitSet found = new Crib(crib, period).keys(text, length);
+            if (keys == null) {
+                keys = found;
+            } else {
+                keys.and(found);
+            }
+            if (keys.isEmpty())
+                break;
+        }
+        return keys;
+    }
+
+    /**
+     * Checks if the words of a text don't look like natural words: either one block of letters
+     * longer than nearly all English words, or groups of letters all of the same length
+     * (but the last one), like five-letter groups.
+     *
+     * @param words  The words of the text, as found by {@link Breaker#tokenize(char[])}.
+     * @param length Number of entries of {@code words} in use, twice the number of words.
+     * @return {@code boolean} result of the check.
+     */
+    protected boolean isUnspaced(int[] words, int length) {
+        if (length == 0)
+            return false;
+
+        int longest = words[1] - words[0];
+        if (longest > 20)
+            return true;
+
+        // The words are sorted by length in descending order.
+        int count = length / 2;
+        if (count < 4 || longest < 4)
+            return false;
+        for (int w = 1; w < count - 1; w++) {
+            if (words[2 * w + 1] - words[2 * w] != longest)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the candidate decryption is valid English, with the segmenter if the secret
+     * is unspaced or with its words otherwise.
+     *
+     * @param text      A decrypted text.
+     * @param length    Length of the text.
+     * @param words     Number of entries of {@link Scratch#words} in use.
+     * @param threshold Acceptance level of the text.
+     * @param unspaced  Whether the secret is unspaced.
+     * @param scratch   Work buffers, holding the words of the secret. On return, {@link Scratch#score}
+     *                  holds the score of the candidate.
+     * @param stopped   Checked every few hundred words. The candidate is rejected as soon as it's {@code true}.
+     * @return {@code boolean} validation result.
+     * @see Breaker#isUnspaced(int[], int)
+     */
+    boolean accepts(char[] text, int length, int words, int threshold, boolean unspaced, Scratch scratch,
+                    BooleanSupplier stopped) {
+        if (hasRareBigrams(text, length)) {
+            scratch.score = 0;
+            return false;
+        }
+        if (unspaced)
+            return segmenter.isEnglish(text, length, scratch, stopped);
+
+        long hits = check(text, scratch.words, words, threshold, stopped);
+        scratch.score = Math.abs(hits);
+        return hits > 0;
+    }
+
+    /**
+     * Orders the candidates so that the most promising one is checked first, by racing them against
+     * the same growing prefix of the longest words (successive halving).
+     *
+     * <p>Algorithm: Every round, each candidate still in the race decrypts and looks up the next words of
+     * the prefix, then the half with the fewest dictionary words so far drops out. The prefix starts at
+     * {@value #RACE_START} words and doubles every round, so the lookups of a round stay about the same
+     * as the field halves. The race ends when one candidate is left or the words run out. Hence, racing
+     * {@code n} candidates costs a few lookups times {@code n log n}, instead of up to the miss threshold
+     * of the text per wrong candidate, and only the winner reads the whole text.</p>
+     *
+     * <p>The race only orders the candidates: the caller still checks them with
+     * {@link Breaker#accepts(char[], int, int, int, boolean, Scratch, BooleanSupplier)}, the winner first
+     * and the others in their original order, so a lost race costs the race and nothing else.</p>
+     *
+     * @param text       The secret.
+     * @param words      Number of entries of {@link Scratch#words} in use, longest words first.
+     * @param candidates The candidates, in the order the caller would check them.
+     * @param decryptor  Decrypts a span of the secret with a candidate.
+     * @param scratch    Work buffers, holding the words of the secret. {@link Scratch#decrypted} is overwritten.
+     * @param stopped    Checked every round. The candidates keep their order if it's {@code true}.
+     * @return The candidates, the winner first. The same array if the secret has fewer than
+     * {@value #RACE_WORDS} words.
+     */
+    int[] race(char[] text, int words, int[] candidates, Decryptor decryptor, Scratch scratch,
+               BooleanSupplier stopped) {
+        int count = words / 2;
+        if (count < RACE_WORDS || candidates.length < 2)
+            return candidates;
+
+        int[] spans = scratch.words;
+        char[] decrypted = scratch.decrypted;
+        int[] live = candidates.clone();
+        int[] hits = new int[live.length];
+        long[] order = new long[live.length];
+        int alive = live.length;
+        int checked = 0;
+        for (int prefix = RACE_START; alive > 1 && checked < count; prefix *= 2) {
+            if (stopped.getAsBoolean())
+                return candidates;
+
+            int end = Math.min(prefix, count);
+            for (int c = 0; c < alive; c++) {
+                for (int w = checked; w < end; w++) {
+                    int from = spans[2 * w];
+                    int to = spans[2 * w + 1];
+                    decryptor.decrypt(live[c], text, decrypted, from, to);
+                    if (dictionary.lookup(decrypted, from, to)) {
+                        hits[c]++;
+                    }
+                }
+            }
+            checked = end;
+
+            // The most hits first, ties to the candidate the caller would check first.
+            for (int c = 0; c < alive; c++) {
+                order[c] = ((long) (count - hits[c]) << 32) | c;
+            }
+            Arrays.sort(order, 0, alive);
+            alive = (alive + 1) / 2;
+            int[] survivors = new int[alive];
+            int[] survivorHits = new int[alive];
+            for (int c = 0; c < alive; c++) {
+                survivors[c] = live[(int) order[c]];
+                survivorHits[c] = hits[(int) order[c]];
+            }
+            System.arraycopy(survivors, 0, live, 0, alive);
+            System.arraycopy(survivorHits, 0, hits, 0, alive);
+        }
+
+        int[] ordered = new int[candidates.length];
+        ordered[0] = live[0];
+        boolean moved = false;
+        for (int c = 0, i = 1; c < candidates.length; c++) {
+            if (!moved && candidates[c] == live[0]) {
+                moved = true;
+            } else {
+                ordered[i++] = candidates[c];
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Records a rejected candidate with the budget of the decryption, if it runs on one.
+     *
+     * @param stopped The stop condition of the decryption.
+     * @param scratch Work buffers, holding the score of the candidate.
+     * @param key1    The first key of the candidate.
+     * @param key2    The second key of the candidate, -1 if the breaker has one key.
+     * @see Budget
+     */
+    void reject(BooleanSupplier stopped, Scratch scratch, int key1, int key2) {
+        if (stopped instanceof Budget) {
+            ((Budget) stopped).offer(scratch.score, key1, key2);
+        }
+    }
+
+    /**
+     * Checks the words of a decrypted text with the dictionary, the way
+     * {@link Breaker#isEnglish(char[], int[], int, int)} does.
+     *
+     * @param text      A decrypted text.
+     * @param words     The words of the text.
+     * @param length    Number of entries of {@code words} in use, twice the number of words.
+     * @param threshold Acceptance level of the text.
+     * @param stopped   Checked every few hundred words. The text is rejected as soon as it's {@code true}.
+     * @return The number of words found in the dictionary if the text is English, its negation otherwise.
+     */
+    long check(char[] text, int[] words, int length, int threshold, BooleanSupplier stopped) {
+        long hits = 0;
         int counter = 0;
 
-        for (String word : words) {
-            if (dictionary.lookup(sanitize(word))) {
-                isEmpty = false;
+        for (int i = 0; i < length; i += 2) {
+            if (((i >>> 1) & CHECK_MASK) == CHECK_MASK && stopped.getAsBoolean())
+                return -hits;
+            if (dictionary.lookup(text, words[i], words[i + 1])) {
+                hits++;
             } else if (++counter >= threshold) {
-                return false;
+                return -hits;
             }
         }
-        return !isEmpty;
+        return hits;
+    }
+
+    /**
+     * Scores a decrypted text with the dictionary.
+     *
+     * <p>Unlike {@link Breaker#isEnglish(char[], int[], int)}, it looks every word up, so that
+     * candidates can be compared with each other. It gives up as soon as the score can't reach
+     * {@code floor} anymore.</p>
+     *
+     * @param text  A decrypted text.
+     * @param words The words of the text.
+     * @param floor The lowest score of interest.
+     * @return The number of words found in the dictionary, or -1 if it's lower than {@code floor}.
+     */
+    protected long score(char[] text, int[] words, long floor) {
+        long hits = 0;
+        long left = words.length / 2;
+        for (int i = 0; i < words.length; i += 2) {
+            if (hits + left < floor)
+                return -1;
+            if (dictionary.lookup(text, words[i], words[i + 1])) {
+                hits++;
+            }
+            left--;
+        }
+        return hits;
+    }
+
+    /**
+     * Checks if a scored text is valid English, with the same outcome as {@link Breaker#isEnglish(String, int)}.
+     *
+     * @param hits      The score of the text.
+     * @param words     Number of words of the text.
+     * @param threshold Acceptance level of the text.
+     * @return {@code boolean} validation result.
+     * @see Breaker#score(char[], int[], long)
+     */
+    protected boolean isEnglish(long hits, int words, int threshold) {
+        return profile.accepts(hits, words, threshold);
+    }
+
+    /**
+     * Scores the candidates {@code 0} to {@code candidates - 1} in parallel and keeps the best ones.
+     *
+     * <p>The candidates are split into ranges, one task each, on {@link Breaker#executor} if it's
+     * a {@link ForkJoinPool} or the common pool otherwise. Each task asks {@code scorer} for its own
+     * scoring function, so that the function can keep work arrays and state between the candidates of
+     * its range, which are scored in increasing order.</p>
+     *
+     * <p>Each range holds more than {@code k} candidates, unless there are too few. Once a task has
+     * kept {@code k}, no candidate scoring below the lowest kept score can be among the best ones,
+     * whichever task scores it. The tasks share the highest such floor found so far and pass it to
+     * the scoring function, so that hopeless candidates are dropped early. The candidates scored
+     * before any task has {@code k} are scored in full.</p>
+     *
+     * @param candidates Number of candidates.
+     * @param k          Number of candidates to keep.
+     * @param scorer     Gives a scoring function to each task.
+     * @return The best candidates.
+     */
+    protected TopK evaluate(int candidates, int k, Supplier<Scorer> scorer) {
+        ForkJoinPool pool = (executor instanceof ForkJoinPool) ? (ForkJoinPool) executor : ForkJoinPool.commonPool();
+        // A leaf holds more than half the grain: 2k + 1 leaves it more than k candidates.
+        int grain = Math.max(2 * k + 1, candidates / (4 * pool.getParallelism()));
+        return pool.invoke(new Evaluation(0, candidates, grain, k, scorer, new AtomicLong(Long.MIN_VALUE)));
+    }
+
+    /**
+     * Turns the best candidates found by {@link Breaker#evaluate(int, int, Supplier)} into results.
+     *
+     * @param top       The best candidates, one more than {@code k} to measure the margin of the last one.
+     * @param k         Number of candidates to return.
+     * @param words     Number of words of the secret.
+     * @param threshold Acceptance level of the secret.
+     * @param decrypt   Decrypts the secret with a candidate.
+     * @return The candidates, best first.
+     */
+    protected List<Candidate> candidates(TopK top, int k, int words, int threshold,
+                                         IntFunction<DecryptionResult> decrypt) {
+        int[] ids = top.ids();
+        long[] scores = top.scores();
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < Math.min(k, ids.length); i++) {
+            DecryptionResult r = decrypt.apply(ids[i]);
+            long margin = (i + 1 < scores.length) ? scores[i] - scores[i + 1] : scores[i];
+            candidates.add(new Candidate(r.getKey(), r.getPlaintext(), scores[i], margin,
+                    isEnglish(scores[i], words, threshold)));
+        }
+        return candidates;
+    }
+
+    /**
+     * Splits the text into words at whitespace, the way {@code split("\\s+")} does,
+     * trims leading and trailing non-English-alphabet characters of each word and
+     * sorts the words by length in descending order.
+     *
+     * @param text The text to split.
+     * @return The words as {@code [start, end)} index pairs into the text.
+     */
+    protected int[] tokenize(char[] text) {
+        Scratch scratch = Scratch.get().fit(text.length);
+        int length = tokenize(text, text.length, scratch);
+        return Arrays.copyOf(scratch.words, length);
+    }
+
+    /**
+     * Splits the first {@code length} characters of the text into words the way
+     * {@link Breaker#tokenize(char[])} does, into {@link Scratch#words}.
+     *
+     * @param text    The text to split.
+     * @param length  Length of the text.
+     * @param scratch Work buffers, fit for the text.
+     * @return Number of entries of {@link Scratch#words} in use, twice the number of words.
+     */
+    int tokenize(char[] text, int length, Scratch scratch) {
+        int[] spans = scratch.words;
+        int len = 0;
+
+        // Like split, a leading whitespace yields an empty word and so does an empty text.
+        if (length == 0 || isWhitespace(text[0])) {
+            spans[len++] = 0;
+            spans[len++] = 0;
+        }
+        int i = 0;
+        while (i < length) {
+            while (i < length && isWhitespace(text[i])) {
+                i++;
+            }
+            int start = i;
+            while (i < length && !isWhitespace(text[i])) {
+                i++;
+            }
+            if (start < i) {
+                spans[len++] = start;
+                spans[len++] = i;
+            }
+        }
+        if (len == 2 && length > 0 && spans[1] == 0) {
+            // Only whitespace: split yields no word at all.
+            len = 0;
+        }
+
+        // Trim and sort, keeping the original order of equal lengths.
+        long[] order = scratch.order;
+        int count = len / 2;
+        for (int w = 0; w < len; w += 2) {
+            int start = spans[w];
+            int end = spans[w + 1];
+            while (start < end && !isLetter(text[start])) {
+                start++;
+            }
+            while (end > start && !isLetter(text[end - 1])) {
+                end--;
+            }
+            order[w / 2] = ((long) (Integer.MAX_VALUE - (end - start)) << 32) | (w / 2);
+            spans[w] = start;
+            spans[w + 1] = end;
+        }
+        Arrays.sort(order, 0, count);
+
+        // Reorder the spans through the sort keys, which aren't needed anymore.
+        for (int w = 0; w < count; w++) {
+            int idx = (int) order[w];
+            order[w] = ((long) spans[2 * idx] << 32) | spans[2 * idx + 1];
+        }
+        for (int w = 0; w < count; w++) {
+            spans[2 * w] = (int) (order[w] >>> 32);
+            spans[2 * w + 1] = (int) order[w];
+        }
+        return len;
     }
 
     /**
@@ -178,58 +888,163 @@ public abstract class Breaker {
      * @return Calculated threshold.
      */
     protected int calcThreshold(String text) {
-        String[] words = text.split("\\s+");
-        double percent;
-        int len = countSafeWords(words);
-
-        if (len <= 5) {
-            percent = .9;
-        } else if (len <= 30) {
-            percent = .5;
-        } else if (len <= 80) {
-            percent = .4;
-        } else if (len <= 130) {
-            percent = .3;
-        } else {
-            percent = .2;
-        }
-        return (int) ((double) len * percent);
+        return calcThreshold(text.toCharArray(), text.length());
     }
 
-    // ==============================
-    // Private Methods
-    // ==============================
+    /**
+     * Calculates the threshold of the first {@code length} characters of the text,
+     * the way {@link Breaker#calcThreshold(String)} does.
+     *
+     * @param text   The text to calculate the threshold of.
+     * @param length Length of the text.
+     * @return Calculated threshold.
+     */
+    protected int calcThreshold(char[] text, int length) {
+        return calcThreshold(text, length, profile);
+    }
 
     /**
-     * Trims leading and trailing non-English-alphabet characters.
+     * Calculates the threshold of the first {@code length} characters of the text in a language.
      *
-     * @param s The word to trim.
-     * @return The trimmed and clean word.
+     * @param text     The text to calculate the threshold of.
+     * @param length   Length of the text.
+     * @param language The language of the text.
+     * @return Calculated threshold.
+     * @see LanguageProfile#threshold(int)
      */
-    private String sanitize(String s) {
-        s = s.replaceAll("^[^a-zA-Z]+", "");
-        s = s.replaceAll("[^a-zA-Z]+$", "");
-        return s;
+    protected int calcThreshold(char[] text, int length, LanguageProfile language) {
+        return language.threshold(countSafeWords(text, length));
     }
 
     /**
-     * Counts the total number of distinguishable (safe) English words from the words array.
+     * Counts the total number of distinguishable (safe) English words of the text,
+     * split at whitespace.
      *
      * <p>Given the text: i ispurz g pax bank bat i lokk stange
      * <br>Distinguishable are: strange, bank {@code >= 4}
      * <br>Non-distinguishable are:  i, g, bat {@code < 4}</p>
      *
-     * @param words The words array to count the safe words from.
+     * @param text   The text to count the safe words from.
+     * @param length Length of the text.
      * @return The total number of safe words.
      */
-    private int countSafeWords(String[] words) {
+    int countSafeWords(char[] text, int length) {
         int safeLevel = 4;
         int total = 0;
-        for (String w : words) {
-            if (w.length() >= safeLevel) {
-                total++;
+        int wordLen = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || isWhitespace(text[i])) {
+                if (wordLen >= safeLevel) {
+                    total++;
+                }
+                wordLen = 0;
+            } else {
+                wordLen++;
             }
         }
         return total;
     }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Checks if the character is matched by {@code \s} of regular expressions.
+     *
+     * @param c The character to check.
+     * @return {@code boolean} result of the check.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\013' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Checks if the character is matched by {@code [a-zA-Z]} of regular expressions.
+     *
+     * @param c The character to check.
+     * @return {@code boolean} result of the check.
+     */
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Scoring function of {@link Breaker#evaluate(int, int, Supplier)}.
+     */
+    @FunctionalInterface
+    protected interface Scorer {
+        /**
+         * Scores a candidate.
+         *
+         * @param candidate The candidate.
+         * @param floor     The lowest score of interest. Lower scores don't have to be exact.
+         * @return The score, the higher the better.
+         */
+        long score(int candidate, long floor);
+    }
+
+    /**
+     * Decrypts a span of a secret with one candidate, for {@link Breaker#race(char[], int, int[], Decryptor,
+     * Scratch, BooleanSupplier)}.
+     */
+    @FunctionalInterface
+    protected interface Decryptor {
+        /**
+         * Decrypts the characters {@code [from, to)} of the secret.
+         *
+         * @param candidate The candidate.
+         * @param src       The secret.
+         * @param dst       The array to write the decrypted characters to, at the same indices.
+         * @param from      Start of the span (inclusive).
+         * @param to        End of the span (exclusive).
+         */
+        void decrypt(int candidate, char[] src, char[] dst, int from, int to);
+    }
+
+    /**
+     * Scores a range of candidates, splitting it in halves until it's small enough.
+     */
+    private static class Evaluation extends RecursiveTask<TopK> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final int k;
+        private final Supplier<Scorer> scorer;
+        private final AtomicLong floor;
+
+        private Evaluation(int from, int to, int grain, int k, Supplier<Scorer> scorer, AtomicLong floor) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.k = k;
+            this.scorer = scorer;
+            this.floor = floor;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= grain) {
+                TopK top = new TopK(k);
+                Scorer score = scorer.get();
+                for (int i = from; i < to; i++) {
+                    long lowest = Math.max(top.floor(), floor.get());
+                    long s = score.score(i, lowest);
+                    if (s >= lowest && top.offer(i, s) && top.floor() > lowest) {
+                        floor.accumulateAndGet(top.floor(), Math::max);
+                    }
+                }
+                return top;
+            }
+
+            int mid = (from + to) >>> 1;
+            Evaluation right = new Evaluation(mid, to, grain, k, scorer, floor);
+            right.fork();
+            TopK top = new Evaluation(from, mid, grain, k, scorer, floor).compute();
+            top.addAll(right.join());
+            return top;
+        }
+    }
 }
@@ -0,0 +1,163 @@
+package io.enfire.cipher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class bounds the time or the number of candidates a decryption may spend.
+ *
+ * <p>A budget is checked cooperatively: before each candidate and, while a large candidate is checked
+ * for English, every few hundred words. Once it runs out, {@link Breaker#decryptWithin(String, Budget)}
+ * returns the best candidate checked so far, flagged as partial, instead of running to the end.</p>
+ *
+ * <p>A budget serves one decryption. It isn't thread-safe.</p>
+ */
+public class Budget implements BooleanSupplier {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * {@link System#nanoTime()} when the budget was created.
+     */
+    private final long start;
+    /**
+     * Time allowed, in nanoseconds.
+     */
+    private final long nanos;
+    /**
+     * Number of candidates allowed.
+     */
+    private final long candidates;
+    /**
+     * Number of candidates checked so far.
+     */
+    private long checked;
+    /**
+     * Whether the budget ran out. It never comes back.
+     */
+    private boolean exhausted;
+    /**
+     * Score of the best candidate checked so far, -1 if none.
+     */
+    private long bestScore = -1;
+    /**
+     * First key of the best candidate checked so far, as the breaker numbers it.
+     */
+    private int bestKey1 = -1;
+    /**
+     * Second key of the best candidate checked so far, as the breaker numbers it.
+     */
+    private int bestKey2 = -1;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code Budget} instance which runs out after some time, counted from now.
+     *
+     * @param timeout How long the decryption may run, in units of {@code unit}.
+     * @param unit    The unit of {@code timeout}.
+     */
+    public Budget(long timeout, TimeUnit unit) {
+        this(timeout, unit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new {@code Budget} instance which runs out after some candidates.
+     *
+     * @param candidates How many candidate keys the decryption may check.
+     */
+    public Budget(long candidates) {
+        this(Long.MAX_VALUE, TimeUnit.NANOSECONDS, candidates);
+    }
+
+    /**
+     * Creates a new {@code Budget} instance which runs out after some time or some candidates,
+     * whichever comes first.
+     *
+     * @param timeout    How long the decryption may run, in units of {@code unit}.
+     * @param unit       The unit of {@code timeout}.
+     * @param candidates How many candidate keys the decryption may check.
+     */
+    public Budget(long timeout, TimeUnit unit, long candidates) {
+        this.start = System.nanoTime();
+        this.nanos = unit.toNanos(timeout);
+        this.candidates = candidates;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Checks if the budget ran out.
+     *
+     * @return {@code boolean} result of the check.
+     */
+    public boolean isExhausted() {
+        if (!exhausted && (checked >= candidates || System.nanoTime() - start >= nanos)) {
+            exhausted = true;
+        }
+        return exhausted;
+    }
+
+    /**
+     * Checks if the budget ran out, so that the decryption stops.
+     *
+     * @return {@code boolean} result of the check.
+     * @see Budget#isExhausted()
+     */
+    @Override
+    public boolean getAsBoolean() {
+        return isExhausted();
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Counts a rejected candidate and keeps it if it's the best so far.
+     *
+     * @param score The score of the candidate, the higher the better.
+     * @param key1  The first key of the candidate.
+     * @param key2  The second key of the candidate, -1 if the breaker has one key.
+     */
+    void offer(long score, int key1, int key2) {
+        checked++;
+        if (score > bestScore) {
+            bestScore = score;
+            bestKey1 = key1;
+            bestKey2 = key2;
+        }
+    }
+
+    /**
+     * Checks if the decryption ran out of budget after checking at least one candidate.
+     *
+     * @return {@code boolean} result of the check.
+     */
+    boolean hasPartial() {
+        return exhausted && bestScore >= 0;
+    }
+
+    /**
+     * Gets the first key of the best candidate checked so far.
+     *
+     * @return The key, -1 if none.
+     */
+    int getBestKey1() {
+        return bestKey1;
+    }
+
+    /**
+     * Gets the second key of the best candidate checked so far.
+     *
+     * @return The key, -1 if none or if the breaker has one key.
+     */
+    int getBestKey2() {
+        return bestKey2;
+    }
+}
@@ -1,6 +1,12 @@
 package io.enfire.cipher;
 
+import io.enfire.util.TopK;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BooleanSupplier;
 
 /**
  * This class implements one-key Caesar Cipher decryption algorithm.
@@ -30,6 +36,15 @@ public class CaesarBreakerOneKey extends Breaker {
         super(file);
     }
 
+    /**
+     * Creates a new {@code CaesarBreakerOneKey} instance which shares an already loaded dictionary.
+     *
+     * @param dictionary The dictionary to consult.
+     */
+    public CaesarBreakerOneKey(Dictionary dictionary) {
+        super(dictionary);
+    }
+
     // ==============================
     // Public Methods
     // ==============================
@@ -58,66 +73,271 @@ public class CaesarBreakerOneKey extends Breaker {
         key = -1;
         decrypted = "";
 
-        secret = read(secret);
-        int threshold = calcThreshold(secret);
-        int wordLimit = 50;
-
-        String[] r;
-        if (secret.split("\\s+").length < wordLimit) {
-            r = bruteForce(secret, threshold);
-        } else {
-            r = frequencyAnalysis(secret, threshold);
-        }
+        long start = System.nanoTime();
+        DecryptionResult r = record(secret, solve(secret, NEVER), start);
+        key = r.getKey()[0];
+        decrypted = r.getDecrypted();
+    }
+
+    /**
+     * Decrypts the secret knowing pieces of the message (cribs), such as a header or a signature.
+     *
+     * <p>Only the keys under which every crib appears in the secret are checked for English,
+     * which skips the search over all the keys. The cribs are case sensitive, like the cipher.</p>
+     *
+     * <pre>{@code
+     * decrypt(secret, "Dear Sir", "Regards")
+     * }</pre>
+     *
+     * @param secret The secret to decrypt.
+     * @param cribs  Pieces of the message. Without cribs, the secret is decrypted as usual.
+     * @throws IllegalArgumentException if a crib has no English letter.
+     */
+    public void decrypt(String secret, String... cribs) {
+        if (secret.isBlank())
+            return;
 
-        key = getKey(Integer.parseInt(r[0]));
-        decrypted = r[1];
+        // Reset the instance. Make it ready for another round.
+        key = -1;
+        decrypted = "";
+
+        long start = System.nanoTime();
+        DecryptionResult r = record(secret, solve(secret, cribs, NEVER), start);
+        key = r.getKey()[0];
+        decrypted = r.getDecrypted();
+    }
+
+    /**
+     * Decrypts a batch of secrets, many of which share a key, such as the messages of a feed.
+     *
+     * <p>The secrets are clustered by their most likely keys, and each cluster is solved once, on its
+     * longest secret. The other secrets of a cluster only check its key, and are decrypted on their own,
+     * as {@link CaesarBreakerOneKey#decrypt(String)} does, if it fails. Hence, a batch costs about one
+     * dictionary check per secret, and short secrets decrypt better than on their own.</p>
+     *
+     * <p>Unlike {@link CaesarBreakerOneKey#decrypt(String)}, it leaves the fields of the breaker untouched.</p>
+     *
+     * @param secrets The secrets to decrypt.
+     * @return The decryption results, in the order of the secrets.
+     * @see Clusterer
+     */
+    public List<DecryptionResult> decryptAll(List<String> secrets) {
+        return new Clusterer(this).decryptAll(secrets);
+    }
+
+    /**
+     * Decrypts a secret whose key changes partway through, such as a long capture of a feed
+     * which rotates its keys.
+     *
+     * <p>The secret is split where the letter counts of a sliding window point to another key for a while,
+     * at the closest word boundary nearby. The segments are then solved independently on
+     * {@link Breaker#executor}, and adjacent segments which decrypt with the same key are merged.
+     * A secret too short for a few windows is a single segment.</p>
+     *
+     * @param secret A secret file path or a secret text.
+     * @return The segments, in order, covering the whole secret. A segment which can't be decrypted
+     * has the key -1 and an empty message. Empty if the secret is blank.
+     * @see KeyChangeDetector
+     */
+    public List<KeySegment> decryptSegments(String secret) {
+        return new KeyChangeDetector(this).decryptSegments(secret);
+    }
+
+    /**
+     * Decrypts a secret whose language is one of several, finding the language along with the key.
+     *
+     * <p>Each language ranks the keys by the letter counts of the secret against its own letter
+     * frequencies, and checks its most likely keys with its own dictionary, in parallel on
+     * {@link Breaker#executor}. The key and language which find the most words win, among those the
+     * language accepts ({@link LanguageProfile#accepts(long, int, int)}). Ties go to the language
+     * listed first.</p>
+     *
+     * <p>Unlike {@link CaesarBreakerOneKey#decrypt(String)}, it leaves the fields of the breaker untouched.
+     * The words are told apart by spaces: unspaced secrets aren't supported.</p>
+     *
+     * @param secret    A secret file path or a secret text.
+     * @param languages The candidate languages, the most expected first.
+     * @return The decryption result with one key and the language. A failure if no language accepts
+     * any candidate.
+     * @see LanguageIdentifier
+     */
+    public LanguageResult identify(String secret, List<LanguageProfile> languages) {
+        return new LanguageIdentifier(this).identify(secret, languages);
+    }
+
+    /**
+     * Ranks all the keys instead of stopping at the first English candidate.
+     *
+     * <p>Every key is scored by the number of words it decrypts to dictionary words. The keys are
+     * scored in parallel and only the {@code k} best are decrypted to strings. The margin of a
+     * candidate over the next one tells how ambiguous the secret is.</p>
+     *
+     * @param secret A secret file path or a secret text.
+     * @param k      Number of candidates to return.
+     * @return At most {@code k} candidates, best first. Empty if the secret is blank.
+     */
+    public List<Candidate> rank(String secret, int k) {
+        if (secret.isBlank() || k <= 0)
+            return new ArrayList<>();
+
+        String text = read(secret);
+        char[] chars = text.toCharArray();
+        int[] words = tokenize(chars);
+        int threshold = calcThreshold(text);
+
+        TopK top = evaluate(alphabet.length(), k + 1, () -> {
+            char[] decrypted = new char[chars.length];
+            return (key, floor) -> {
+                CaesarCipher.of(key).encrypt(chars, decrypted, 0, 1);
+                return score(decrypted, words, floor);
+            };
+        });
+        return candidates(top, k, words.length / 2, threshold,
+                key -> new DecryptionResult(new int[]{getKey(key)}, Plaintext.of(text, CaesarCipher.of(key))));
     }
 
     // ==============================
-    // Private Methods
+    // Protected Methods
     // ==============================
 
     /**
-     * Decrypts the secret by learning the letters' frequencies.
+     * Decrypts the secret with appropriate algorithms: Frequency Analysis or Brute Force.
      *
-     * <p>Algorithm: Given the secret, count each letter frequency and get the most
-     * frequent letter (call X). Then, assume that X can be each one of {@link Breaker#freqLetters}.
-     * Find the possible key from that assumption and decrypt the secret until it makes or breaks.</p>
+     * @param secret  A secret file path or a secret text.
+     * @param stopped Checked before each candidate. The decryption fails as soon as it's {@code true}.
+     * @return The decryption result with one key.
+     */
+    @Override
+    protected DecryptionResult solve(String secret, BooleanSupplier stopped) {
+        if (secret.isBlank())
+            return DecryptionResult.failure(1);
+
+        return solveText(read(secret), stopped);
+    }
+
+    /**
+     * Decrypts the secret knowing pieces of the message (cribs).
      *
-     * @param secret    The secret to decrypt.
-     * @param threshold Acceptance level to decide whether the decrypted text is English.
-     * @return An array containing the decryption key and the decrypted message.
+     * @param secret  A secret file path or a secret text.
+     * @param cribs   Pieces of the message.
+     * @param stopped Checked before each candidate. The decryption fails as soon as it's {@code true}.
+     * @return The decryption result with one key.
+     * @throws IllegalArgumentException if a crib has no English letter.
+     * @see Crib
      */
-    private String[] frequencyAnalysis(String secret, int threshold) {
-        int[] counter = count(secret);
-        int target = getMaxCount(counter);
+    protected DecryptionResult solve(String secret, String[] cribs, BooleanSupplier stopped) {
+        if (cribs.length == 0)
+            return solve(secret, stopped);
+        if (secret.isBlank())
+            return DecryptionResult.failure(1);
+
+        secret = read(secret);
+        int length = secret.length();
+        Scratch scratch = Scratch.get().fit(length);
+        char[] text = scratch.text;
+        secret.getChars(0, length, text, 0);
+
+        BitSet keys = matchCribs(text, length, cribs, 1);
+        if (keys.isEmpty())
+            return DecryptionResult.failure(1);
 
-        for (int i = 0; i < freqLetters.length(); i++) {
-            int freqLetterIndex = alphabet.indexOf(freqLetters.charAt(i));
-            int key = calcKey(target, freqLetterIndex);
-            String decrypted = new CaesarCipher(key).encrypt(secret);
-            if (isEnglish(decrypted, threshold)) {
-                return new String[]{Integer.toString(key), decrypted};
+        int words = tokenize(text, length, scratch);
+        int threshold = calcThreshold(text, length);
+        boolean unspaced = isUnspaced(scratch.words, words);
+        for (int key = keys.nextSetBit(0); key >= 0 && !stopped.getAsBoolean(); key = keys.nextSetBit(key + 1)) {
+            CaesarCipher.of(key).encrypt(text, scratch.decrypted, 0, length, 1);
+            if (accepts(scratch.decrypted, length, words, threshold, unspaced, scratch, stopped))
+                return new DecryptionResult(new int[]{getKey(key)}, Plaintext.of(secret, CaesarCipher.of(key)), false,
+                        CRIB);
+            reject(stopped, scratch, key, -1);
+        }
+        return partial(stopped, secret);
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Decrypts the text of a secret with appropriate algorithms: Frequency Analysis or Brute Force,
+     * as the {@link Planner} finds cheaper for the secret.
+     *
+     * @param secret  The secret text, already read.
+     * @param stopped Checked before each candidate. The decryption fails as soon as it's {@code true}.
+     * @return The decryption result with one key.
+     */
+    DecryptionResult solveText(String secret, BooleanSupplier stopped) {
+        int length = secret.length();
+        Scratch scratch = Scratch.get().fit(length);
+        char[] text = scratch.text;
+        secret.getChars(0, length, text, 0);
+
+        int words = tokenize(text, length, scratch);
+        int threshold = calcThreshold(text, length);
+        // Without spaces, the words are estimated from the letters.
+        boolean unspaced = isUnspaced(scratch.words, words);
+        int wordCount = unspaced ? length / 5 : words / 2;
+
+        int[] counter = count(text, length, 0, 1, scratch.counter);
+        List<Planner.Plan> plans = new Planner(1, profile)
+                .plan(new int[][]{counter}, length, wordCount, countSafeWords(text, length));
+        int key = -1;
+        Planner.Plan plan = null;
+        for (int i = 0; i < plans.size() && key == -1 && !stopped.getAsBoolean(); i++) {
+            plan = plans.get(i);
+            if (plan == Planner.Plan.BRUTE_FORCE) {
+                key = bruteForce(text, length, words, threshold, unspaced, scratch, stopped);
+            } else {
+                key = frequencyAnalysis(counter, text, length, words, threshold, unspaced, scratch, stopped);
             }
         }
-        return new String[]{"-1", ""};
+        if (key == -1)
+            return partial(stopped, secret);
+
+        return new DecryptionResult(new int[]{getKey(key)}, Plaintext.of(secret, CaesarCipher.of(key)), false,
+                plan.name());
     }
 
     /**
-     * Decrypts the secret by trying with all possible keys.
+     * Checks a single key on the secret.
      *
-     * @param secret    The secret to decrypt.
-     * @param threshold Acceptance level to decide whether the decrypted text is English.
-     * @return An array containing the decryption key and the decrypted message.
+     * @param secret The secret text.
+     * @param key    The decryption key.
+     * @return The decryption result, or {@code null} if the decrypted secret isn't English.
+     */
+    DecryptionResult confirm(String secret, int key) {
+        if (secret.isBlank())
+            return null;
+
+        int length = secret.length();
+        Scratch scratch = Scratch.get().fit(length);
+        char[] text = scratch.text;
+        secret.getChars(0, length, text, 0);
+
+        int words = tokenize(text, length, scratch);
+        int threshold = calcThreshold(text, length);
+        boolean unspaced = isUnspaced(scratch.words, words);
+        CaesarCipher.of(key).encrypt(text, scratch.decrypted, 0, length, 1);
+        if (!accepts(scratch.decrypted, length, words, threshold, unspaced, scratch, NEVER))
+            return null;
+
+        return new DecryptionResult(new int[]{getKey(key)}, Plaintext.of(secret, CaesarCipher.of(key)));
+    }
+
+    /**
+     * Gets the most likely key.
+     *
+     * @param scores The scores of the keys.
+     * @return The key which scores highest, the lowest on ties.
      */
-    private String[] bruteForce(String secret, int threshold) {
-        for (int i = 0; i < alphabet.length(); i++) {
-            String decrypted = new CaesarCipher(i).encrypt(secret);
-            if (isEnglish(decrypted, threshold)) {
-                return new String[]{Integer.toString(i), decrypted};
+    static int best(double[] scores) {
+        int best = 0;
+        for (int k = 1; k < scores.length; k++) {
+            if (scores[k] > scores[best]) {
+                best = k;
             }
         }
-        return new String[]{"-1", ""};
+        return best;
     }
 
     /**
@@ -136,7 +356,117 @@ public class CaesarBreakerOneKey extends Breaker {
      * @param key The key used in decryption.
      * @return The encryption key.
      */
-    private int getKey(int key) {
+    int getKey(int key) {
         return (key > 0) ? alphabet.length() - key : key;
     }
-}
\ No newline at end of file
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Decrypts the secret by learning the letters' frequencies.
+     *
+     * <p>Algorithm: Given the secret, count each letter frequency and get the most
+     * frequent letter (call X). Then, assume that X can be each one of {@link Breaker#freqLetters}.
+     * Find the possible key from that assumption and decrypt the secret until it makes or breaks.
+     * The keys are raced first, the most likely one is checked first.</p>
+     *
+     * @param counter   The letter counts of the secret.
+     * @param secret    The secret to decrypt.
+     * @param length    Length of the secret.
+     * @param words     Number of entries of {@link Scratch#words} in use.
+     * @param threshold Acceptance level to decide whether the decrypted text is English.
+     * @param unspaced  Whether the secret is unspaced, so that the candidates are segmented.
+     * @param scratch   Work buffers. The decrypted message is left in {@link Scratch#decrypted}.
+     * @param stopped   Checked before each candidate.
+     * @return The decryption key, or -1 if no candidate is English.
+     */
+    private int frequencyAnalysis(int[] counter, char[] secret, int length, int words, int threshold,
+                                  boolean unspaced, Scratch scratch, BooleanSupplier stopped) {
+        int target = getMaxCount(counter);
+
+        int[] keys = new int[freqLetters.length()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = calcKey(target, alphabet.indexOf(freqLetters.charAt(i)));
+        }
+        if (!unspaced) {
+            keys = race(secret, words, keys, CaesarBreakerOneKey::decrypt, scratch, stopped);
+        }
+
+        for (int i = 0; i < keys.length && !stopped.getAsBoolean(); i++) {
+            int key = keys[i];
+            CaesarCipher.of(key).encrypt(secret, scratch.decrypted, 0, length, 1);
+            if (accepts(scratch.decrypted, length, words, threshold, unspaced, scratch, stopped)) {
+                return key;
+            }
+            reject(stopped, scratch, key, -1);
+        }
+        return -1;
+    }
+
+    /**
+     * Decrypts the secret by trying with all possible keys.
+     *
+     * <p>The keys are raced first ({@link Breaker#race(char[], int, int[], Decryptor, Scratch, BooleanSupplier)}),
+     * so that the right one is usually the first to be checked against the whole secret.</p>
+     *
+     * @param secret    The secret to decrypt.
+     * @param length    Length of the secret.
+     * @param words     Number of entries of {@link Scratch#words} in use.
+     * @param threshold Acceptance level to decide whether the decrypted text is English.
+     * @param unspaced  Whether the secret is unspaced, so that the candidates are segmented.
+     * @param scratch   Work buffers. The decrypted message is left in {@link Scratch#decrypted}.
+     * @param stopped   Checked before each candidate.
+     * @return The decryption key, or -1 if no candidate is English.
+     */
+    private int bruteForce(char[] secret, int length, int words, int threshold, boolean unspaced,
+                           Scratch scratch, BooleanSupplier stopped) {
+        int[] keys = new int[alphabet.length()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        if (!unspaced) {
+            keys = race(secret, words, keys, CaesarBreakerOneKey::decrypt, scratch, stopped);
+        }
+
+        for (int i = 0; i < keys.length && !stopped.getAsBoolean(); i++) {
+            int key = keys[i];
+            CaesarCipher.of(key).encrypt(secret, scratch.decrypted, 0, length, 1);
+            if (accepts(scratch.decrypted, length, words, threshold, unspaced, scratch, stopped)) {
+                return key;
+            }
+            reject(stopped, scratch, key, -1);
+        }
+        return -1;
+    }
+
+    /**
+     * Decrypts a span of a secret with a key, for racing the keys.
+     *
+     * @param key  The decryption key.
+     * @param src  The secret.
+     * @param dst  The array to write the decrypted characters to.
+     * @param from Start of the span (inclusive).
+     * @param to   End of the span (exclusive).
+     */
+    private static void decrypt(int key, char[] src, char[] dst, int from, int to) {
+        CaesarCipher.of(key).encrypt(src, dst, from, to, 1);
+    }
+
+    /**
+     * Gets the best candidate checked before the budget of the decryption ran out.
+     *
+     * @param stopped The stop condition of the decryption, a {@link Budget} or not.
+     * @param secret  The secret text.
+     * @return The partial result, or a failure if the decryption didn't run out of budget.
+     */
+    private DecryptionResult partial(BooleanSupplier stopped, String secret) {
+        if (!(stopped instanceof Budget) || !((Budget) stopped).hasPartial())
+            return DecryptionResult.failure(1);
+
+        int key = ((Budget) stopped).getBestKey1();
+        return new DecryptionResult(new int[]{getKey(key)}, Plaintext.of(secret, CaesarCipher.of(key)), true,
+                PARTIAL);
+    }
+}
@@ -1,6 +1,12 @@
 package io.enfire.cipher;
 
+import io.enfire.util.TopK;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BooleanSupplier;
 
 /**
  * This class implements two-key Caesar Cipher decryption algorithm.
@@ -30,6 +36,15 @@ public class CaesarBreakerTwoKey extends Breaker {
         super(file);
     }
 
+    /**
+     * Creates a new {@code CaesarBreakerTwoKey} instance which shares an already loaded dictionary.
+     *
+     * @param dictionary The dictionary to consult.
+     */
+    public CaesarBreakerTwoKey(Dictionary dictionary) {
+        super(dictionary);
+    }
+
     // ==============================
     // Public Methods
     // ==============================
@@ -59,19 +74,171 @@ public class CaesarBreakerTwoKey extends Breaker {
         key[1] = -1;
         decrypted = "";
 
+        long start = System.nanoTime();
+        DecryptionResult r = record(secret, solve(secret, NEVER), start);
+        key = r.getKey();
+        decrypted = r.getDecrypted();
+    }
+
+    /**
+     * Decrypts the secret knowing pieces of the message (cribs), such as a header or a signature.
+     *
+     * <p>Only the keys under which every crib appears in the secret are checked for English,
+     * which skips the search over all the keys. The cribs are case sensitive, like the cipher.</p>
+     *
+     * <pre>{@code
+     * decrypt(secret, "Dear Sir", "Regards")
+     * }</pre>
+     *
+     * @param secret The secret to decrypt.
+     * @param cribs  Pieces of the message. Without cribs, the secret is decrypted as usual.
+     * @throws IllegalArgumentException if a crib has no English letter.
+     */
+    public void decrypt(String secret, String... cribs) {
+        if (secret.isBlank())
+            return;
+
+        // Reset the instance. Make it ready for another round.
+        key[0] = -1;
+        key[1] = -1;
+        decrypted = "";
+
+        long start = System.nanoTime();
+        DecryptionResult r = record(secret, solve(secret, cribs, NEVER), start);
+        key = r.getKey();
+        decrypted = r.getDecrypted();
+    }
+
+    /**
+     * Ranks all the key pairs instead of stopping at the first English candidate.
+     *
+     * <p>Every pair is scored by the number of words it decrypts to dictionary words. The pairs are
+     * scored in parallel, each task decrypting the even positions once per first key, and only the
+     * {@code k} best are decrypted to strings. The margin of a candidate over the next one tells
+     * how ambiguous the secret is.</p>
+     *
+     * @param secret A secret file path or a secret text.
+     * @param k      Number of candidates to return.
+     * @return At most {@code k} candidates, best first. Empty if the secret is blank.
+     */
+    public List<Candidate> rank(String secret, int k) {
+        if (secret.isBlank() || k <= 0)
+            return new ArrayList<>();
+
+        String text = read(secret);
+        char[] chars = text.toCharArray();
+        int[] words = tokenize(chars);
+        int threshold = calcThreshold(text);
+        int n = alphabet.length();
+
+        TopK top = evaluate(n * n, k + 1, () -> {
+            char[] decrypted = new char[chars.length];
+            int[] even = {-1};
+            return (pair, floor) -> {
+                if (pair / n != even[0]) {
+                    even[0] = pair / n;
+                    CaesarCipher.of(even[0]).encrypt(chars, decrypted, 0, 2);
+                }
+                CaesarCipher.of(pair % n).encrypt(chars, decrypted, 1, 2);
+                return score(decrypted, words, floor);
+            };
+        });
+        return candidates(top, k, words.length / 2, threshold, pair -> new DecryptionResult(
+                getKey(pair / n, pair % n), Plaintext.of(text, CaesarCipher.of(pair / n, pair % n))));
+    }
+
+    // ==============================
+    // Protected Methods
+    // ==============================
+
+    /**
+     * Decrypts the secret with appropriate algorithms: Frequency Analysis or Brute Force,
+     * as the {@link Planner} finds cheaper for the secret. Frequency Analysis may miss the keys,
+     * then Brute Force takes over.
+     *
+     * @param secret  A secret file path or a secret text.
+     * @param stopped Checked before each candidate. The decryption fails as soon as it's {@code true}.
+     * @return The decryption result with two keys.
+     */
+    @Override
+    protected DecryptionResult solve(String secret, BooleanSupplier stopped) {
+        if (secret.isBlank())
+            return DecryptionResult.failure(2);
+
         secret = read(secret);
-        int threshold = calcThreshold(secret);
-        int wordLimit = 50;
-
-        String[] r;
-        if (secret.split("\\s+").length < wordLimit) {
-            r = bruteForce(secret, threshold);
-        } else {
-            r = frequencyAnalysis(secret, threshold);
+        int length = secret.length();
+        Scratch scratch = Scratch.get().fit(length);
+        char[] text = scratch.text;
+        secret.getChars(0, length, text, 0);
+
+        int words = tokenize(text, length, scratch);
+        int threshold = calcThreshold(text, length);
+        // Without spaces, the words are estimated from the letters.
+        boolean unspaced = isUnspaced(scratch.words, words);
+        int wordCount = unspaced ? length / 5 : words / 2;
+
+        int[] evenCounter = count(text, length, 0, 2, scratch.counter);
+        int[] oddCounter = count(text, length, 1, 2, scratch.oddCounter);
+        List<Planner.Plan> plans = new Planner(2, profile)
+                .plan(new int[][]{evenCounter, oddCounter}, length, wordCount, countSafeWords(text, length));
+        int[] keys = null;
+        Planner.Plan plan = null;
+        for (int i = 0; i < plans.size() && keys == null && !stopped.getAsBoolean(); i++) {
+            plan = plans.get(i);
+            if (plan == Planner.Plan.BRUTE_FORCE) {
+                keys = bruteForce(text, length, words, threshold, unspaced, scratch, stopped);
+            } else {
+                keys = frequencyAnalysis(evenCounter, oddCounter, text, length, words, threshold, unspaced,
+                        scratch, stopped);
+            }
         }
+        if (keys == null)
+            return partial(stopped, secret);
 
-        key = getKey(Integer.parseInt(r[0]), Integer.parseInt(r[1]));
-        decrypted = r[2];
+        return new DecryptionResult(getKey(keys[0], keys[1]),
+                Plaintext.of(secret, CaesarCipher.of(keys[0], keys[1])), false, plan.name());
+    }
+
+    /**
+     * Decrypts the secret knowing pieces of the message (cribs).
+     *
+     * @param secret  A secret file path or a secret text.
+     * @param cribs   Pieces of the message.
+     * @param stopped Checked before each candidate. The decryption fails as soon as it's {@code true}.
+     * @return The decryption result with two keys.
+     * @throws IllegalArgumentException if a crib has no English letter.
+     * @see Crib
+     */
+    protected DecryptionResult solve(String secret, String[] cribs, BooleanSupplier stopped) {
+        if (cribs.length == 0)
+            return solve(secret, stopped);
+        if (secret.isBlank())
+            return DecryptionResult.failure(2);
+
+        secret = read(secret);
+        int length = secret.length();
+        Scratch scratch = Scratch.get().fit(length);
+        char[] text = scratch.text;
+        secret.getChars(0, length, text, 0);
+
+        BitSet keys = matchCribs(text, length, cribs, 2);
+        if (keys.isEmpty())
+            return DecryptionResult.failure(2);
+
+        int words = tokenize(text, length, scratch);
+        int threshold = calcThreshold(text, length);
+        boolean unspaced = isUnspaced(scratch.words, words);
+        int n = alphabet.length();
+        char[] decrypted = scratch.decrypted;
+        for (int key = keys.nextSetBit(0); key >= 0 && !stopped.getAsBoolean(); key = keys.nextSetBit(key + 1)) {
+            CaesarCipher.of(key / n).encrypt(text, decrypted, 0, length, 2);
+            CaesarCipher.of(key % n).encrypt(text, decrypted, 1, length, 2);
+            if (accepts(decrypted, length, words, threshold, unspaced, scratch, stopped))
+                return new DecryptionResult(getKey(key / n, key % n),
+                        Plaintext.of(secret, CaesarCipher.of(key / n, key % n)), false, CRIB);
+            reject(stopped, scratch, key / n, key % n);
+        }
+        return partial(stopped, secret);
     }
 
     // ==============================
@@ -85,101 +252,130 @@ public class CaesarBreakerTwoKey extends Breaker {
      * frequent letter (call X). Then, assume that X can be each one of {@link Breaker#freqLetters}.
      * Find the possible key from that assumption and decrypt the secret until it makes or breaks.</p>
      *
-     * @param secret    The secret to decrypt.
-     * @param threshold Acceptance level to decide whether the decrypted text is English.
-     * @return An array containing the two decryption keys and the decrypted message.
+     * <p>The pairs of keys are raced first, the most likely one is checked first.</p>
+     *
+     * <p>The even and odd positions of the secret are two strided views of the same array.
+     * Each view is counted and decrypted in place, so the halves are never copied out and joined back.</p>
+     *
+     * @param evenCounter The letter counts of the even positions of the secret.
+     * @param oddCounter  The letter counts of the odd positions of the secret.
+     * @param secret      The secret to decrypt.
+     * @param length      Length of the secret.
+     * @param words       Number of entries of {@link Scratch#words} in use.
+     * @param threshold   Acceptance level to decide whether the decrypted text is English.
+     * @param unspaced    Whether the secret is unspaced, so that the candidates are segmented.
+     * @param scratch     Work buffers. The decrypted message is left in {@link Scratch#decrypted}.
+     * @param stopped     Checked before each candidate.
+     * @return The two decryption keys, or {@code null} if no candidate is English.
      */
-    private String[] frequencyAnalysis(String secret, int threshold) {
-        String[] split = split(secret);
+    private int[] frequencyAnalysis(int[] evenCounter, int[] oddCounter, char[] secret, int length, int words,
+                                    int threshold, boolean unspaced, Scratch scratch, BooleanSupplier stopped) {
+        char[] decrypted = scratch.decrypted;
 
-        int[] evenCounter = count(split[0]);
         int evenTarget = getMaxCount(evenCounter);
-
-        int[] oddCounter = count(split[1]);
         int oddTarget = getMaxCount(oddCounter);
 
-        for (int i = 0; i < freqLetters.length(); i++) {
+        int n = alphabet.length();
+        int[] pairs = new int[freqLetters.length()];
+        for (int i = 0; i < pairs.length; i++) {
             int freqLetterIndex = alphabet.indexOf(freqLetters.charAt(i));
+            // Key 26 shifts like key 0, so that the pair fits the range of the race.
+            pairs[i] = calcKey(evenTarget, freqLetterIndex) % n * n + calcKey(oddTarget, freqLetterIndex) % n;
+        }
+        if (!unspaced) {
+            pairs = race(secret, words, pairs, CaesarBreakerTwoKey::decrypt, scratch, stopped);
+        }
 
-            int key1 = calcKey(evenTarget, freqLetterIndex);
-            String evenDecrypted = new CaesarCipher(key1).encrypt(split[0]);
+        for (int i = 0; i < pairs.length && !stopped.getAsBoolean(); i++) {
+            int key1 = pairs[i] / n;
+            CaesarCipher.of(key1).encrypt(secret, decrypted, 0, length, 2);
 
-            int key2 = calcKey(oddTarget, freqLetterIndex);
-            String oddDecrypted = new CaesarCipher(key2).encrypt(split[1]);
+            int key2 = pairs[i] % n;
+            CaesarCipher.of(key2).encrypt(secret, decrypted, 1, length, 2);
 
-            String decrypted = join(evenDecrypted, oddDecrypted);
-            if (isEnglish(decrypted, threshold)) {
-                return new String[]{Integer.toString(key1), Integer.toString(key2), decrypted};
+            if (accepts(decrypted, length, words, threshold, unspaced, scratch, stopped)) {
+                return new int[]{key1, key2};
             }
+            reject(stopped, scratch, key1, key2);
         }
-        return new String[]{"-1", "-1", ""};
+        return null;
     }
 
     /**
      * Decrypts the secret by trying with all possible keys.
      *
+     * <p>The candidate is decrypted in place: the even positions once per first key,
+     * then the odd positions once per second key. Each of the 26*26 = 676 candidates
+     * costs a pass over half of the secret and no allocation.</p>
+     *
+     * <p>On a spaced secret of enough words, the pairs of keys are raced first
+     * ({@link Breaker#race(char[], int, int[], Decryptor, Scratch, BooleanSupplier)}) and the winner
+     * is checked before the others, which usually spares the walk through the wrong pairs.</p>
+     *
      * @param secret    The secret to decrypt.
+     * @param length    Length of the secret.
+     * @param words     Number of entries of {@link Scratch#words} in use.
      * @param threshold Acceptance level to decide whether the decrypted text is English.
-     * @return An array containing the two decryption keys and the decrypted message.
+     * @param unspaced  Whether the secret is unspaced, so that the candidates are segmented.
+     * @param scratch   Work buffers. The decrypted message is left in {@link Scratch#decrypted}.
+     * @param stopped   Checked before each candidate.
+     * @return The two decryption keys, or {@code null} if no candidate is English.
      */
-    private String[] bruteForce(String secret, int threshold) {
-        String[] split = split(secret);
-        String[] evenDecrypted = new String[26];
-        String[] oddDecrypted = new String[26];
-
-        // First, encrypt each half with 26 keys (0-25).
-        for (int i = 0; i < alphabet.length(); i++) {
-            CaesarCipher caesar = new CaesarCipher(i);
-            evenDecrypted[i] = caesar.encrypt(split[0]);
-            oddDecrypted[i] = caesar.encrypt(split[1]);
-        }
+    private int[] bruteForce(char[] secret, int length, int words, int threshold, boolean unspaced,
+                             Scratch scratch, BooleanSupplier stopped) {
+        char[] decrypted = scratch.decrypted;
+        int n = alphabet.length();
 
-        // Then, join each of evenDecrypted with all of oddDecrypted.
-        // In total, that'll be 26*26 = 676 iterations.
-        for (int i = 0; i < evenDecrypted.length; i++) {
-            for (int j = 0; j < oddDecrypted.length; j++) {
-                String decrypted = join(evenDecrypted[i], oddDecrypted[j]);
-                if (isEnglish(decrypted, threshold)) {
-                    return new String[]{Integer.toString(i), Integer.toString(j), decrypted};
+        int first = -1;
+        if (!unspaced && words / 2 >= RACE_WORDS) {
+            int[] pairs = new int[n * n];
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = i;
+            }
+            // Only the winner of the race is decrypted ahead of the usual order.
+            first = race(secret, words, pairs, CaesarBreakerTwoKey::decrypt, scratch, stopped)[0];
+            if (!stopped.getAsBoolean()) {
+                CaesarCipher.of(first / n).encrypt(secret, decrypted, 0, length, 2);
+                CaesarCipher.of(first % n).encrypt(secret, decrypted, 1, length, 2);
+                if (accepts(decrypted, length, words, threshold, unspaced, scratch, stopped)) {
+                    return new int[]{first / n, first % n};
                 }
+                reject(stopped, scratch, first / n, first % n);
             }
         }
-        return new String[]{"-1", "-1", ""};
-    }
 
-    /**
-     * Splits the text at even and odd positions.
-     *
-     * @param text The text to split.
-     * @return The split array.
-     */
-    private String[] split(String text) {
-        String[] arr = new String[]{"", ""};
-        for (int i = 0; i < text.length(); i++) {
-            int cursor = i % 2;
-            arr[cursor] += text.charAt(i);
+        for (int i = 0; i < n && !stopped.getAsBoolean(); i++) {
+            CaesarCipher.of(i).encrypt(secret, decrypted, 0, length, 2);
+            for (int j = 0; j < n && !stopped.getAsBoolean(); j++) {
+                if (i * n + j == first)
+                    continue;
+
+                CaesarCipher.of(j).encrypt(secret, decrypted, 1, length, 2);
+                if (accepts(decrypted, length, words, threshold, unspaced, scratch, stopped)) {
+                    return new int[]{i, j};
+                }
+                reject(stopped, scratch, i, j);
+            }
         }
-        return arr;
+        return null;
     }
 
     /**
-     * Joins two strings at even and odd positions.
+     * Gets the best candidate checked before the budget of the decryption ran out.
      *
-     * @param first  The first string to join.
-     * @param second The second string to join.
-     * @return The joined string.
+     * @param stopped The stop condition of the decryption, a {@link Budget} or not.
+     * @param secret  The secret text.
+     * @return The partial result, or a failure if the decryption didn't run out of budget.
      */
-    private String join(String first, String second) {
-        StringBuilder joined = new StringBuilder();
-
-        // The first string is supposed to be always longer.
-        for (int i = 0; i < first.length(); i++) {
-            joined.append(first.charAt(i));
-            if (i < second.length()) {
-                joined.append(second.charAt(i));
-            }
-        }
-        return joined.toString();
+    private DecryptionResult partial(BooleanSupplier stopped, String secret) {
+        if (!(stopped instanceof Budget) || !((Budget) stopped).hasPartial())
+            return DecryptionResult.failure(2);
+
+        Budget budget = (Budget) stopped;
+        int key1 = budget.getBestKey1();
+        int key2 = budget.getBestKey2();
+        return new DecryptionResult(getKey(key1, key2), Plaintext.of(secret, CaesarCipher.of(key1, key2)), true,
+                PARTIAL);
     }
 
     /**
@@ -204,4 +400,20 @@ public class CaesarBreakerTwoKey extends Breaker {
         key2 = (key2 > 0) ? alphabet.length() - key2 : key2;
         return new int[]{key1, key2};
     }
-}
\ No newline at end of file
+
+    /**
+     * Decrypts a span of a secret with a pair of keys, for racing the pairs.
+     *
+     * @param pair The first decryption key times 26 plus the second one.
+     * @param src  The secret.
+     * @param dst  The array to write the decrypted characters to.
+     * @param from Start of the span (inclusive).
+     * @param to   End of the span (exclusive).
+     */
+    private static void decrypt(int pair, char[] src, char[] dst, int from, int to) {
+        int even = from + (from & 1);
+        int odd = from + 1 - (from & 1);
+        CaesarCipher.of(pair / 26).encrypt(src, dst, even, to, 2);
+        CaesarCipher.of(pair % 26).encrypt(src, dst, odd, to, 2);
+    }
+}
@@ -1,7 +1,17 @@
 package io.enfire.cipher;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * This class implements the Caesar Cipher encryption algorithm for one-key and two-key variants.
+ *
+ * <p>Instances are immutable. {@link CaesarCipher#of(int)} and {@link CaesarCipher#of(int, int)}
+ * return shared instances, built once with the class, so that the breakers can switch keys
+ * without creating ciphers.</p>
  */
 public class CaesarCipher {
     // ==============================
@@ -11,19 +21,83 @@ public class CaesarCipher {
     /**
      * 26 lower case English alphabet.
      */
-    private String alphabet = "abcdefghijklmnopqrstuvwxyz";
+    private static final String alphabet = "abcdefghijklmnopqrstuvwxyz";
     /**
      * 26 lower case English alphabet shifted by key1.
      */
-    private String shiftedAlpha1;
+    private final String shiftedAlpha1;
     /**
      * 26 lower case English alphabet shifted by key2.
      */
-    private String shiftedAlpha2;
+    private final String shiftedAlpha2;
+    /**
+     * Byte substitution table of key1: each ASCII letter maps to its shifted counterpart,
+     * every other byte to itself.
+     */
+    private final byte[] table1;
+    /**
+     * Byte substitution table of key2.
+     */
+    private final byte[] table2;
+    /**
+     * Shift of each byte of an 8-byte word whose first byte takes key1: key1 only for a one-key
+     * instance, key1 and key2 in turn for a two-key one.
+     */
+    private final long keys1;
+    /**
+     * Shift of each byte of an 8-byte word whose first byte takes key2.
+     */
+    private final long keys2;
     /**
      * Type of encryption (one-key or two-key).
      */
-    private boolean twoKeys = false;
+    private final boolean twoKeys;
+
+    /**
+     * Size of the scratch array used for buffers without an accessible array.
+     */
+    private static final int CHUNK = 8192;
+    /**
+     * High bit of each byte of a {@code long}. A word without them is pure ASCII.
+     */
+    private static final long NON_ASCII = 0x8080808080808080L;
+    /**
+     * Reads 8 bytes of a {@code byte[]} at once.
+     */
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    /**
+     * Number of keys (0 - 26).
+     */
+    private static final int KEYS = 27;
+    /**
+     * Shifted alphabet of each key.
+     */
+    private static final String[] SHIFTED = new String[KEYS];
+    /**
+     * Byte substitution table of each key, shared by all the instances.
+     */
+    private static final byte[][] TABLES = new byte[KEYS][];
+    /**
+     * Shared one-key instances, indexed by key.
+     */
+    private static final CaesarCipher[] ONE_KEY = new CaesarCipher[KEYS];
+    /**
+     * Shared two-key instances, indexed by {@code key1 * 27 + key2}.
+     */
+    private static final CaesarCipher[] TWO_KEYS = new CaesarCipher[KEYS * KEYS];
+
+    static {
+        for (int key = 0; key < KEYS; key++) {
+            SHIFTED[key] = shiftAlpha(key);
+            TABLES[key] = table(SHIFTED[key]);
+        }
+        for (int key1 = 0; key1 < KEYS; key1++) {
+            ONE_KEY[key1] = new CaesarCipher(key1);
+            for (int key2 = 0; key2 < KEYS; key2++) {
+                TWO_KEYS[key1 * KEYS + key2] = new CaesarCipher(key1, key2);
+            }
+        }
+    }
 
     // ==============================
     // Constructors
@@ -36,7 +110,13 @@ public class CaesarCipher {
      */
     public CaesarCipher(int key) {
         throwCheck(key);
-        shiftedAlpha1 = shiftAlpha(key);
+        twoKeys = false;
+        shiftedAlpha1 = SHIFTED[key];
+        shiftedAlpha2 = null;
+        table1 = TABLES[key];
+        table2 = null;
+        keys1 = keys(key, key);
+        keys2 = keys1;
     }
 
     /**
@@ -49,14 +129,42 @@ public class CaesarCipher {
         throwCheck(key1);
         throwCheck(key2);
         twoKeys = true;
-        shiftedAlpha1 = shiftAlpha(key1);
-        shiftedAlpha2 = shiftAlpha(key2);
+        shiftedAlpha1 = SHIFTED[key1];
+        shiftedAlpha2 = SHIFTED[key2];
+        table1 = TABLES[key1];
+        table2 = TABLES[key2];
+        keys1 = keys(key1, key2);
+        keys2 = keys(key2, key1);
     }
 
     // ==============================
     // Public Methods
     // ==============================
 
+    /**
+     * Gets the shared one-key cipher of the key.
+     *
+     * @param key The key to encrypt the message with.
+     * @return The cipher.
+     */
+    public static CaesarCipher of(int key) {
+        throwCheck(key);
+        return ONE_KEY[key];
+    }
+
+    /**
+     * Gets the shared two-key cipher of the keys.
+     *
+     * @param key1 The first key to encrypt the message with.
+     * @param key2 The second key to encrypt the message with.
+     * @return The cipher.
+     */
+    public static CaesarCipher of(int key1, int key2) {
+        throwCheck(key1);
+        throwCheck(key2);
+        return TWO_KEYS[key1 * KEYS + key2];
+    }
+
     /**
      * Encrypts the message based on one-key or two-key object instance.
      *
@@ -67,27 +175,173 @@ public class CaesarCipher {
         if (msg.isBlank())
             return "";
 
-        StringBuilder encrypted = new StringBuilder(msg);
+        char[] encrypted = msg.toCharArray();
+        encrypt(encrypted, encrypted, 0, 1);
+        return new String(encrypted);
+    }
+
+    /**
+     * Encrypts a strided view of the text: the characters at {@code from}, {@code from + step},
+     * {@code from + 2 * step} and so on. The other characters of {@code dst} are left untouched.
+     *
+     * <p>A two-key instance alternates its keys over the characters of the view,
+     * starting with the first key.</p>
+     *
+     * @param src  The text to encrypt.
+     * @param dst  The array to write the encrypted characters to. It may be {@code src} itself.
+     * @param from Index of the first character of the view.
+     * @param step Distance between two characters of the view.
+     */
+    public void encrypt(char[] src, char[] dst, int from, int step) {
+        encrypt(src, dst, from, src.length, step);
+    }
+
+    /**
+     * Encrypts a strided view of the characters of the text before {@code to}, so that a text
+     * can be held by a larger, reused array.
+     *
+     * @param src  The text to encrypt.
+     * @param dst  The array to write the encrypted characters to. It may be {@code src} itself.
+     * @param from Index of the first character of the view.
+     * @param to   End of the text (exclusive).
+     * @param step Distance between two characters of the view.
+     * @see CaesarCipher#encrypt(char[], char[], int, int)
+     */
+    public void encrypt(char[] src, char[] dst, int from, int to, int step) {
         String shiftedAlpha = shiftedAlpha1;
+        byte[] table = table1;
+        boolean first = true;
 
-        for (int i = 0; i < encrypted.length(); i++) {
-            char c = encrypted.charAt(i);
-            boolean isUpper = Character.isUpperCase(c);
-            int idx = alphabet.indexOf(Character.toLowerCase(c));
+        for (int i = from; i < to; i += step) {
+            if (twoKeys) {
+                shiftedAlpha = first ? shiftedAlpha1 : shiftedAlpha2;
+                table = first ? table1 : table2;
+                first = !first;
+            }
+            char c = src[i];
+            dst[i] = (c < 0x80) ? (char) table[c] : shift(c, shiftedAlpha);
+        }
+    }
 
-            if (idx != -1) {
-                if (twoKeys) {
-                    shiftedAlpha = (i % 2 == 0) ? shiftedAlpha1 : shiftedAlpha2;
-                }
-                c = shiftedAlpha.charAt(idx);
-                if (isUpper) {
-                    c = Character.toUpperCase(c);
-                }
-                encrypted.setCharAt(i, c);
+    /**
+     * Encrypts ASCII or UTF-8 encoded text, byte for byte, like {@link System#arraycopy}.
+     *
+     * <p>Only ASCII letters are shifted. Other bytes, including every byte of a multi-byte
+     * UTF-8 sequence, are copied as they are. A two-key instance alternates its keys over the
+     * characters (not the bytes) of the text, starting with the first key, so the result is the
+     * encoding of {@link CaesarCipher#encrypt(String)} as long as the text holds no non-ASCII
+     * letter which lowercases to an ASCII one (e.g. the Kelvin sign).</p>
+     *
+     * <p>@implNote 8 bytes are checked at once. Pure ASCII words are shifted as a whole with
+     * SIMD-within-a-register arithmetic, each byte with its own key, so two keys cost nothing more
+     * than one. Only words holding non-ASCII bytes are walked byte by byte, through a 256-entry
+     * substitution table, counting characters to keep the keys in turn.</p>
+     *
+     * @param src    The text to encrypt.
+     * @param srcPos Start of the text in {@code src}.
+     * @param dst    The array to write the encrypted bytes to. It may be {@code src} itself.
+     * @param dstPos Start of the encrypted text in {@code dst}.
+     * @param length Number of bytes to encrypt. It should end at a character boundary.
+     */
+    public void encrypt(byte[] src, int srcPos, byte[] dst, int dstPos, int length) {
+        encrypt(src, srcPos, dst, dstPos, length, true);
+    }
+
+    /**
+     * Encrypts the remaining bytes of {@code src}, ASCII or UTF-8 encoded, into {@code dst}.
+     * Both buffers advance by the number of bytes encrypted.
+     *
+     * @param src The text to encrypt.
+     * @param dst The buffer to write the encrypted bytes to, with room for all of them.
+     * @see CaesarCipher#encrypt(byte[], int, byte[], int, int)
+     */
+    public void encrypt(ByteBuffer src, ByteBuffer dst) {
+        int length = src.remaining();
+        if (dst.remaining() < length)
+            throw new BufferOverflowException();
+
+        if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+            encrypt(src.array(), src.arrayOffset() + src.position(),
+                    dst.array(), dst.arrayOffset() + dst.position(), length);
+            src.position(src.position() + length);
+            dst.position(dst.position() + length);
+            return;
+        }
+
+        // Chunks must not split the characters of a two-key text: the last UTF-8 sequence
+        // of a chunk is carried over to the next one if it's cut.
+        byte[] chunk = new byte[Math.min(length, CHUNK)];
+        boolean first = true;
+        while (src.hasRemaining()) {
+            int n = Math.min(src.remaining(), chunk.length);
+            src.get(chunk, 0, n);
+            int end = n;
+            if (twoKeys && src.hasRemaining()) {
+                end = boundary(chunk, n);
+                src.position(src.position() - (n - end));
+            }
+            first = encrypt(chunk, 0, chunk, 0, end, first);
+            dst.put(chunk, 0, end);
+        }
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Encrypts one character of a text, for {@link Plaintext}.
+     *
+     * @param c     The character to encrypt.
+     * @param index Index of the character in the text, which picks the key of a two-key cipher.
+     * @return The encrypted character.
+     */
+    char encrypt(char c, int index) {
+        boolean first = !twoKeys || (index & 1) == 0;
+        if (c < 0x80)
+            return (char) (first ? table1 : table2)[c];
+
+        return shift(c, first ? shiftedAlpha1 : shiftedAlpha2);
+    }
+
+    /**
+     * Substitutes the letter with its counterpart in the shifted alphabet, maintaining its case.
+     *
+     * @param c            The character to substitute.
+     * @param shiftedAlpha The shifted alphabet.
+     * @return The substituted letter, or the character itself if it is not an English letter.
+     */
+    static char shift(char c, String shiftedAlpha) {
+        boolean isUpper = Character.isUpperCase(c);
+        int idx = alphabet.indexOf(Character.toLowerCase(c));
+
+        if (idx != -1) {
+            c = shiftedAlpha.charAt(idx);
+            if (isUpper) {
+                c = Character.toUpperCase(c);
             }
         }
+        return c;
+    }
 
-        return encrypted.toString();
+    /**
+     * Builds the byte substitution table of a shifted alphabet. Any permutation of the alphabet works,
+     * such as the one of {@link AffineCipher}.
+     *
+     * @param shiftedAlpha The shifted alphabet.
+     * @return The table, indexed by unsigned byte.
+     */
+    static byte[] table(String shiftedAlpha) {
+        byte[] table = new byte[256];
+        for (int b = 0; b < table.length; b++) {
+            table[b] = (byte) b;
+        }
+        for (int i = 0; i < alphabet.length(); i++) {
+            char c = shiftedAlpha.charAt(i);
+            table[alphabet.charAt(i)] = (byte) c;
+            table[Character.toUpperCase(alphabet.charAt(i))] = (byte) Character.toUpperCase(c);
+        }
+        return table;
     }
 
     // ==============================
@@ -99,7 +353,7 @@ public class CaesarCipher {
      *
      * @param key The key to check.
      */
-    private void throwCheck(int key) {
+    private static void throwCheck(int key) {
         int min = 0;
         int max = 26;
         if (key < min || key > max) {
@@ -109,13 +363,108 @@ public class CaesarCipher {
         }
     }
 
+    /**
+     * Encrypts ASCII or UTF-8 encoded text, byte for byte.
+     *
+     * @param src    The text to encrypt.
+     * @param srcPos Start of the text in {@code src}.
+     * @param dst    The array to write the encrypted bytes to.
+     * @param dstPos Start of the encrypted text in {@code dst}.
+     * @param length Number of bytes to encrypt.
+     * @param first  Whether the first character takes the first key. Ignored by a one-key instance.
+     * @return Whether the character after the text would take the first key.
+     * @see CaesarCipher#encrypt(byte[], int, byte[], int, int)
+     */
+    private boolean encrypt(byte[] src, int srcPos, byte[] dst, int dstPos, int length, boolean first) {
+        first = first || !twoKeys;
+        byte[] table = first ? table1 : table2;
+        long keys = first ? keys1 : keys2;
+        int i = 0;
+        while (i < length) {
+            if (i + 8 <= length) {
+                long word = (long) LONGS.get(src, srcPos + i);
+                if ((word & NON_ASCII) == 0) {
+                    // 8 characters: the next character keeps its key.
+                    LONGS.set(dst, dstPos + i, shift(word, keys));
+                    i += 8;
+                    continue;
+                }
+            }
+
+            int b = src[srcPos + i] & 0xFF;
+            dst[dstPos + i] = table[b];
+            i++;
+            // ASCII and lead bytes of 2 and 3-byte sequences start one UTF-16 character. Continuation
+            // bytes start none and lead bytes of 4-byte sequences start two (a surrogate pair).
+            if (twoKeys && (b < 0x80 || (b >= 0xC0 && b < 0xF0))) {
+                first = !first;
+                table = first ? table1 : table2;
+                keys = first ? keys1 : keys2;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Shifts the ASCII letters of 8 bytes at once, maintaining their case (SWAR).
+     *
+     * <p>@implNote No byte can carry into or borrow from its neighbour: the bytes are ASCII,
+     * letters are at most {@code 'z' + 26} after the shift and only wrapped letters lose 26.</p>
+     *
+     * @param word  8 ASCII bytes.
+     * @param keys  The shift of each byte (0 - 26).
+     * @return The shifted bytes.
+     */
+    private static long shift(long word, long keys) {
+        long lower = word | 0x2020202020202020L;
+        // High bit of each byte in ['a', 'z'], spread to the whole byte.
+        long letters = (lower + 0x1F1F1F1F1F1F1F1FL) & (0xFAFAFAFAFAFAFAFAL - lower) & NON_ASCII;
+        letters = (letters >>> 7) * 0xFF;
+
+        long shifts = keys & letters;
+        // High bit of each letter shifted past 'z', spread to the whole byte.
+        long wrapped = (lower + shifts + 0x0505050505050505L) & NON_ASCII & letters;
+        wrapped = (wrapped >>> 7) * 0xFF;
+
+        return word + shifts - (0x1A1A1A1A1A1A1A1AL & wrapped);
+    }
+
+    /**
+     * Spreads two keys over the bytes of an 8-byte word, in memory order.
+     *
+     * @param even The key of bytes 0, 2, 4 and 6.
+     * @param odd  The key of bytes 1, 3, 5 and 7.
+     * @return The shift of each byte.
+     */
+    private static long keys(int even, int odd) {
+        long pair = (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) ? (odd << 8 | even) : (even << 8 | odd);
+        return pair * 0x0001000100010001L;
+    }
+
+    /**
+     * Gets the end of the last complete UTF-8 sequence of the bytes.
+     *
+     * @param bytes  UTF-8 encoded text.
+     * @param length Number of bytes.
+     * @return The largest character boundary, or {@code length} if no sequence is cut.
+     */
+    private static int boundary(byte[] bytes, int length) {
+        int lead = length - 1;
+        while (lead > 0 && lead > length - 4 && (bytes[lead] & 0xC0) == 0x80) {
+            lead--;
+        }
+        int b = bytes[lead] & 0xFF;
+        int size = (b < 0x80) ? 1 : (b >= 0xF0) ? 4 : (b >= 0xE0) ? 3 : (b >= 0xC0) ? 2 : 1;
+        return (lead + size > length) ? lead : length;
+    }
+
     /**
      * Shifts the English alphabet by steps defined by the key.
      *
      * @param key The steps to shift.
      * @return The shifted alphabet.
      */
-    private String shiftAlpha(int key) {
+    private static String shiftAlpha(int key) {
         return alphabet.substring(key) + alphabet.substring(0, key);
     }
 }
\ No newline at end of file
@@ -0,0 +1,387 @@
+package io.enfire.cipher;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class implements one-key Caesar Cipher decryption algorithm for streams.
+ *
+ * <p>Unlike {@link CaesarBreakerOneKey}, it doesn't wait for the whole secret. It gathers evidence
+ * while the secret arrives, commits to a key as soon as the evidence is strong enough and
+ * then decrypts the rest of the stream on the fly.</p>
+ */
+public class CaesarStreamBreaker extends Breaker {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * This field will contain the key used in encryption when the secret
+     * is successfully decrypted. -1 means the decryption failed or hasn't started yet.
+     */
+    public int key = -1;
+    /**
+     * Confidence bound: the number of dictionary words by which the leading key must beat
+     * every other key before the breaker commits to it.
+     */
+    public int confidence = 3;
+    /**
+     * Largest number of characters held back while no key is confident enough, 1M by default.
+     * Once that many are buffered, the keys are tried against them as at the end of the stream, and
+     * the rest of the stream is decrypted on the fly with the key found, or not read if none is.
+     * Hence, a stream with little evidence, such as one without spaces, takes bounded memory.
+     */
+    public int maxBuffered = 1 << 20;
+
+    /**
+     * Strategy recorded for a key which led the others by {@link CaesarStreamBreaker#confidence} words,
+     * so that the rest of the stream was decrypted on the fly.
+     */
+    static final String COMMITTED = "COMMITTED";
+    /**
+     * Strategy recorded for a key found on the buffered text, at the end of a stream in which no key
+     * was confident enough or once {@link CaesarStreamBreaker#maxBuffered} characters were buffered.
+     */
+    static final String SETTLED = "SETTLED";
+
+    /**
+     * Size of the chunks read from the stream.
+     */
+    private static final int CHUNK = 8192;
+    /**
+     * Shortest word which counts as evidence. Shorter words are not distinguishable from gibberish.
+     */
+    private static final int SAFE_LEVEL = 4;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code CaesarStreamBreaker} instance.
+     *
+     * @param file Dictionary file path.
+     * @throws IOException if the file path does not exist.
+     */
+    public CaesarStreamBreaker(String file) throws IOException {
+        super(file);
+    }
+
+    /**
+     * Creates a new {@code CaesarStreamBreaker} instance which shares an already loaded dictionary.
+     *
+     * @param dictionary The dictionary to consult.
+     */
+    public CaesarStreamBreaker(Dictionary dictionary) {
+        super(dictionary);
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Checks if the stream can be decrypted.
+     *
+     * <p>The decrypted stream goes to a {@link Writer}, so only {@link CaesarStreamBreaker#decrypt(String)}
+     * fills {@link Breaker#decrypted}. The key alone tells whether the decryption is a success.</p>
+     *
+     * @return {@code boolean} decryption result.
+     */
+    @Override
+    public boolean canDecrypt() {
+        return key > -1;
+    }
+
+    /**
+     * Decrypts the secret as if it were a stream.
+     *
+     * @param secret The secret to decrypt.
+     */
+    @Override
+    public void decrypt(String secret) {
+        if (secret.isBlank())
+            return;
+
+        // Reset the instance. Make it ready for another round.
+        key = -1;
+        decrypted = "";
+
+        long start = System.nanoTime();
+        DecryptionResult r = record(secret, solve(secret, NEVER), start);
+        key = r.getKey()[0];
+        decrypted = r.getDecrypted();
+    }
+
+    /**
+     * Decrypts the bytes of the channel, decoded with the given charset, into the writer.
+     *
+     * <p>The outcome is recorded in {@link Breaker#journal} with the hash of the characters decoded.</p>
+     *
+     * @param in      The channel to read the secret from.
+     * @param charset The charset of the secret.
+     * @param out     The writer to write the decrypted message to.
+     * @throws IOException if reading or writing fails.
+     */
+    public void decrypt(ReadableByteChannel in, Charset charset, Writer out) throws IOException {
+        decrypt(Channels.newReader(in, charset.newDecoder(), -1), out);
+    }
+
+    /**
+     * Decrypts the characters of the reader into the writer.
+     *
+     * <p>Algorithm: Keep a letter histogram and, for each of the 26 keys, the number of
+     * safe words (4 letters or more) which decrypt to a dictionary word. Once a key leads every
+     * other key by {@link CaesarStreamBreaker#confidence} words, flush the text read so far,
+     * decrypted, and decrypt the rest of the stream chunk by chunk. Hence, the time to the
+     * first decrypted character depends on the evidence needed, not on the length of the stream.</p>
+     *
+     * <p>If the stream ends before any key is confident enough, the keys are tried in the order of
+     * their evidence, ties broken by the histogram, against the whole text as {@link CaesarBreakerOneKey}
+     * does. So are they once {@link CaesarStreamBreaker#maxBuffered} characters are held back, against
+     * those, and the rest of the stream follows with the key accepted. Nothing is written if no key
+     * is accepted.</p>
+     *
+     * <p>The outcome is recorded in {@link Breaker#journal}, with the hash of the characters read
+     * in place of the secret: the same hash as {@link CaesarStreamBreaker#decrypt(String)} records
+     * for the same text.</p>
+     *
+     * @param in  The reader to read the secret from.
+     * @param out The writer to write the decrypted message to.
+     * @throws IOException if reading or writing fails.
+     */
+    public void decrypt(Reader in, Writer out) throws IOException {
+        // Reset the instance. Make it ready for another round.
+        decrypted = "";
+
+        long start = System.nanoTime();
+        Outcome o = stream(in, out, NEVER);
+        record(o.hash, new int[]{o.key}, (o.key > -1) ? ResultJournal.SUCCESS : 0, o.strategy, start);
+        key = o.key;
+    }
+
+    // ==============================
+    // Protected Methods
+    // ==============================
+
+    /**
+     * Decrypts the secret as if it were a stream.
+     *
+     * @param secret  A secret file path or a secret text.
+     * @param stopped Checked after each word. The decryption fails as soon as it's {@code true}.
+     * @return The decryption result with one key.
+     */
+    @Override
+    protected DecryptionResult solve(String secret, BooleanSupplier stopped) {
+        if (secret.isBlank())
+            return DecryptionResult.failure(1);
+
+        StringWriter out = new StringWriter();
+        Outcome o;
+        try {
+            o = stream(new StringReader(read(secret)), out, stopped);
+        } catch (IOException e) {
+            // In-memory streams don't fail.
+            throw new UncheckedIOException(e);
+        }
+        if (o.key == -1)
+            return DecryptionResult.failure(1);
+
+        return new DecryptionResult(new int[]{o.key}, out.toString(), false, o.strategy);
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Decrypts the characters of the reader into the writer.
+     *
+     * @param in      The reader to read the secret from.
+     * @param out     The writer to write the decrypted message to.
+     * @param stopped Checked after each word. The decryption fails as soon as it's {@code true}.
+     * @return The encryption key, how it was found and the hash of the characters read.
+     * @throws IOException if reading or writing fails.
+     * @see CaesarStreamBreaker#decrypt(Reader, Writer)
+     */
+    private Outcome stream(Reader in, Writer out, BooleanSupplier stopped) throws IOException {
+        StringBuilder pending = new StringBuilder();
+        int[] counter = new int[26];
+        int[] hits = new int[26];
+        char[] word = new char[16];
+        char[] shifted = new char[16];
+        int wordLen = 0;
+        int decryptionKey = -1;
+        long hash = ResultJournal.HASH_BASIS;
+        boolean full = false;
+
+        char[] chunk = new char[CHUNK];
+        int n;
+        while (decryptionKey == -1 && !full
+                && (n = in.read(chunk, 0, Math.min(CHUNK, Math.max(1, maxBuffered - pending.length())))) != -1) {
+            pending.append(chunk, 0, n);
+            hash = ResultJournal.hash(hash, chunk, 0, n);
+            for (int i = 0; i < n && decryptionKey == -1; i++) {
+                char c = chunk[i];
+                int idx = alphabet.indexOf(Character.toLowerCase(c));
+                if (idx != -1) {
+                    counter[idx]++;
+                }
+                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                    if (wordLen == word.length) {
+                        word = Arrays.copyOf(word, wordLen * 2);
+                        shifted = new char[wordLen * 2];
+                    }
+                    word[wordLen++] = c;
+                } else if (wordLen > 0) {
+                    weigh(word, wordLen, shifted, hits);
+                    wordLen = 0;
+                    decryptionKey = leader(hits);
+                    if (stopped.getAsBoolean())
+                        return new Outcome(-1, null, hash);
+                }
+            }
+            full = pending.length() >= maxBuffered;
+        }
+        // A full buffer may end in the middle of a word.
+        if (decryptionKey == -1 && !full && wordLen > 0) {
+            weigh(word, wordLen, shifted, hits);
+            decryptionKey = leader(hits);
+        }
+        String strategy = COMMITTED;
+        if (decryptionKey == -1) {
+            strategy = SETTLED;
+            decryptionKey = settle(pending.toString(), hits, counter, stopped);
+            if (decryptionKey == -1)
+                return new Outcome(-1, null, hash);
+        }
+
+        // Commit: flush what was read so far and decrypt the rest as it flows.
+        CaesarCipher cipher = CaesarCipher.of(decryptionKey);
+        out.write(cipher.encrypt(pending.toString()));
+        while ((n = in.read(chunk)) != -1) {
+            hash = ResultJournal.hash(hash, chunk, 0, n);
+            char[] part = (n == chunk.length) ? chunk : Arrays.copyOf(chunk, n);
+            cipher.encrypt(part, part, 0, 1);
+            out.write(part, 0, n);
+        }
+        out.flush();
+        return new Outcome(getKey(decryptionKey), strategy, hash);
+    }
+
+    /**
+     * Adds the evidence of a complete word: each key which decrypts it to a dictionary word scores a hit.
+     *
+     * @param word    Letters of the word.
+     * @param len     Length of the word.
+     * @param shifted Work array, at least as long as the word.
+     * @param hits    Hits of each key.
+     */
+    private void weigh(char[] word, int len, char[] shifted, int[] hits) {
+        if (len < SAFE_LEVEL)
+            return;
+
+        for (int k = 0; k < hits.length; k++) {
+            for (int i = 0; i < len; i++) {
+                int idx = Character.toLowerCase(word[i]) - 'a';
+                shifted[i] = alphabet.charAt((idx + k) % 26);
+            }
+            if (dictionary.lookup(shifted, 0, len)) {
+                hits[k]++;
+            }
+        }
+    }
+
+    /**
+     * Gets the key which leads every other key by the confidence bound.
+     *
+     * @param hits Hits of each key.
+     * @return The leading decryption key, or -1 if no key is confident enough.
+     */
+    private int leader(int[] hits) {
+        int best = getMaxCount(hits);
+        for (int k = 0; k < hits.length; k++) {
+            if (k != best && hits[best] - hits[k] < confidence) {
+                return -1;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Picks the decryption key at the end of a stream which never reached the confidence bound.
+     *
+     * @param text    The whole secret.
+     * @param hits    Hits of each key.
+     * @param counter Letter histogram of the secret.
+     * @param stopped Checked before each key.
+     * @return The decryption key, or -1 if no key makes English.
+     */
+    private int settle(String text, int[] hits, int[] counter, BooleanSupplier stopped) {
+        if (text.isBlank())
+            return -1;
+
+        // Keys implied by the histogram, most likely first.
+        int target = getMaxCount(counter);
+        Integer[] keys = new Integer[freqLetters.length()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = calcKey(target, alphabet.indexOf(freqLetters.charAt(i))) % 26;
+        }
+        // Stable sort: more hits first, then histogram order.
+        Arrays.sort(keys, (a, b) -> hits[b] - hits[a]);
+
+        int threshold = calcThreshold(text);
+        for (int k : keys) {
+            if (stopped.getAsBoolean())
+                return -1;
+            if (isEnglish(CaesarCipher.of(k).encrypt(text), threshold)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the key used in encryption.
+     *
+     * @param key The key used in decryption.
+     * @return The encryption key.
+     * @see CaesarBreakerOneKey
+     */
+    private int getKey(int key) {
+        return (key > 0) ? alphabet.length() - key : key;
+    }
+
+    /**
+     * The outcome of the decryption of a stream.
+     */
+    private static final class Outcome {
+        /**
+         * The encryption key, -1 if the decryption failed.
+         */
+        private final int key;
+        /**
+         * How the key was found, {@code null} if it wasn't.
+         */
+        private final String strategy;
+        /**
+         * Hash of the characters read, as {@link ResultJournal#hash(String)} computes it.
+         */
+        private final long hash;
+
+        private Outcome(int key, String strategy, long hash) {
+            this.key = key;
+            this.strategy = strategy;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.enfire.cipher;
+
+/**
+ * This class contains one of the ranked candidate decryptions of a secret.
+ *
+ * @see CaesarBreakerOneKey#rank(String, int)
+ * @see CaesarBreakerTwoKey#rank(String, int)
+ */
+public class Candidate extends DecryptionResult {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Number of words of the candidate found in the dictionary.
+     */
+    private final long score;
+    /**
+     * How far the candidate scores above the next ranked candidate.
+     */
+    private final long margin;
+    /**
+     * Whether the candidate passes the English check of the breaker.
+     */
+    private final boolean isEnglish;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code Candidate} instance.
+     *
+     * @param key       The keys used in encryption.
+     * @param decrypted The decrypted message.
+     * @param score     Number of words of the candidate found in the dictionary.
+     * @param margin    How far the candidate scores above the next ranked candidate.
+     * @param isEnglish Whether the candidate passes the English check of the breaker.
+     */
+    public Candidate(int[] key, CharSequence decrypted, long score, long margin, boolean isEnglish) {
+        super(key, decrypted);
+        this.score = score;
+        this.margin = margin;
+        this.isEnglish = isEnglish;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Gets the number of words of the candidate found in the dictionary.
+     *
+     * @return The score.
+     */
+    public long getScore() {
+        return score;
+    }
+
+    /**
+     * Gets how far the candidate scores above the next ranked candidate. A small margin
+     * on the best candidate means the secret is ambiguous.
+     *
+     * @return The margin, 0 for a tie.
+     */
+    public long getMargin() {
+        return margin;
+    }
+
+    /**
+     * Checks if the candidate passes the English check of the breaker.
+     *
+     * @return {@code boolean} result of the check.
+     */
+    public boolean isEnglish() {
+        return isEnglish;
+    }
+
+    /**
+     * Checks if the candidate is a successful decryption: a valid key and an English message.
+     *
+     * @return {@code boolean} decryption result.
+     */
+    @Override
+    public boolean canDecrypt() {
+        return isEnglish && super.canDecrypt();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " | score " + score + " (+" + margin + ")" + (isEnglish ? "" : " | not English");
+    }
+}
@@ -0,0 +1,206 @@
+package io.enfire.cipher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class decrypts a batch of secrets, many of which share a key, such as the messages of a feed.
+ *
+ * <p>Algorithm: Count the letters of each secret and score the 26 keys against the letter frequencies
+ * of the language ({@link LanguageProfile#scoreKeys(int[])}). Going from the longest secret to the
+ * shortest, a secret joins the cluster whose key ranks best among its {@value #CLUSTER_RANK} most likely
+ * keys, and the scores of the cluster add up, which amounts to merging the letter counts of its secrets.
+ * Then each cluster is solved once, on its longest secret, trying its keys from the most likely. The
+ * other secrets of the cluster only need their own check with that key. A secret which fails it tries
+ * the keys of the other clusters, then is decrypted on its own, as
+ * {@link CaesarBreakerOneKey#decrypt(String)} does.</p>
+ *
+ * <p>A secret too short for frequency analysis borrows the statistics of its cluster. Hence, a batch
+ * costs about one dictionary check per secret, and short secrets decrypt better than on their own.</p>
+ *
+ * @see CaesarBreakerOneKey#decryptAll(List)
+ */
+final class Clusterer {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * A secret of a batch joins a cluster if the key of the cluster is among this many most likely keys
+     * of the secret.
+     */
+    private static final int CLUSTER_RANK = 4;
+
+    /**
+     * The breaker which reads, checks and solves the secrets.
+     */
+    private final CaesarBreakerOneKey breaker;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code Clusterer} instance.
+     *
+     * @param breaker The breaker which reads, checks and solves the secrets.
+     */
+    Clusterer(CaesarBreakerOneKey breaker) {
+        this.breaker = breaker;
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Decrypts a batch of secrets.
+     *
+     * @param secrets The secrets to decrypt, file paths or texts.
+     * @return The decryption results, in the order of the secrets.
+     */
+    List<DecryptionResult> decryptAll(List<String> secrets) {
+        int count = secrets.size();
+        String[] texts = new String[count];
+        double[][] scores = new double[count][];
+        int[] letters = new int[count];
+        Integer[] order = new Integer[count];
+        int[] counter = new int[breaker.alphabet.length()];
+        for (int i = 0; i < count; i++) {
+            texts[i] = breaker.read(secrets.get(i));
+            char[] chars = texts[i].toCharArray();
+            breaker.count(chars, chars.length, 0, 1, counter);
+            for (int c : counter) {
+                letters[i] += c;
+            }
+            scores[i] = breaker.profile.scoreKeys(counter);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> -letters[i]));
+
+        List<Cluster> clusters = new ArrayList<>();
+        for (int i : order) {
+            if (letters[i] == 0)
+                continue;
+
+            // Ties go to the older cluster, which holds longer secrets.
+            Cluster cluster = null;
+            int best = CLUSTER_RANK;
+            for (Cluster c : clusters) {
+                int rank = keysAbove(scores[i], c.key());
+                if (rank < best) {
+                    cluster = c;
+                    best = rank;
+                }
+            }
+            if (cluster == null) {
+                cluster = new Cluster();
+                clusters.add(cluster);
+            }
+            cluster.add(i, scores[i]);
+        }
+
+        DecryptionResult[] results = new DecryptionResult[count];
+        for (Cluster c : clusters) {
+            // The first member is the longest: it decides the key of the cluster.
+            int key = -1;
+            int first = c.members.get(0);
+            Integer[] keys = c.keys();
+            for (int k = 0; k < keys.length && key == -1; k++) {
+                results[first] = breaker.confirm(texts[first], keys[k]);
+                if (results[first] != null) {
+                    key = keys[k];
+                }
+            }
+            c.confirmed = key;
+            for (int m = 1; m < c.members.size() && key != -1; m++) {
+                int i = c.members.get(m);
+                results[i] = breaker.confirm(texts[i], key);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            // The keys of the other clusters are cheap guesses before a decryption of its own.
+            for (int c = 0; c < clusters.size() && results[i] == null && letters[i] > 0; c++) {
+                int key = clusters.get(c).confirmed;
+                if (key != -1 && keysAbove(scores[i], key) < CLUSTER_RANK) {
+                    results[i] = breaker.confirm(texts[i], key);
+                }
+            }
+            if (results[i] == null) {
+                results[i] = breaker.solveText(texts[i], Breaker.NEVER);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Counts the keys which score higher than a key, that is the rank of the key among all the keys.
+     *
+     * @param scores The scores of the keys.
+     * @param key    The key to rank.
+     * @return The number of keys which score higher, 0 for the most likely key.
+     */
+    private static int keysAbove(double[] scores, int key) {
+        int rank = 0;
+        for (double score : scores) {
+            if (score > scores[key]) {
+                rank++;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * A group of secrets of a batch which seem to share a key.
+     */
+    private static class Cluster {
+        /**
+         * The secrets, by index in the batch, the longest first.
+         */
+        private final List<Integer> members = new ArrayList<>();
+        /**
+         * Sum of the key scores of the secrets.
+         */
+        private final double[] scores = new double[26];
+        /**
+         * The key which decrypted the longest secret, -1 if none did.
+         */
+        private int confirmed = -1;
+
+        private void add(int member, double[] memberScores) {
+            members.add(member);
+            for (int k = 0; k < scores.length; k++) {
+                scores[k] += memberScores[k];
+            }
+        }
+
+        /**
+         * Gets the most likely key of the cluster.
+         *
+         * @return The decryption key.
+         */
+        private int key() {
+            return CaesarBreakerOneKey.best(scores);
+        }
+
+        /**
+         * Gets all the keys, the most likely first.
+         *
+         * @return The decryption keys.
+         */
+        private Integer[] keys() {
+            Integer[] keys = new Integer[scores.length];
+            for (int k = 0; k < keys.length; k++) {
+                keys[k] = k;
+            }
+            Arrays.sort(keys, Comparator.comparingDouble(k -> -scores[k]));
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package io.enfire.cipher;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class finds the keys under which a known piece of the message (a crib), such as a header
+ * or a signature, appears in a secret.
+ *
+ * <p>A Caesar Cipher shifts the letters of a word but keeps the distances between them. Hence,
+ * the crib can be searched for in the secret without knowing the key: each letter is replaced by its
+ * distance to the previous letter of the same key, and the crib is searched for as a pattern of
+ * distances. Every match fixes the keys at once.</p>
+ *
+ * <p>Algorithm: Knuth-Morris-Pratt search of the distance pattern of the crib, computed on the fly
+ * over the secret. Hence, a crib costs a single pass over the secret, whatever the number of keys.
+ * Only the few characters of the crib which come before the first letter of each key (one key, or
+ * one key per parity for two keys) have no distance within the crib. They are checked directly
+ * at each match.</p>
+ */
+final class Crib {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * 26 lower case English alphabet.
+     */
+    private static final String alphabet = "abcdefghijklmnopqrstuvwxyz";
+    /**
+     * Flag of the tokens of letters, above any {@code char}.
+     */
+    private static final int LETTER = 0x10000;
+    /**
+     * Flag of the tokens of upper case letters. A Caesar Cipher keeps the case.
+     */
+    private static final int UPPER = 0x100;
+    /**
+     * Distance of a letter which has no previous letter of the same key.
+     */
+    private static final int FIRST = 26;
+
+    /**
+     * The known piece of the message.
+     */
+    private final char[] crib;
+    /**
+     * Number of keys the cipher alternates: 1 or 2.
+     */
+    private final int period;
+    /**
+     * Tokens of the crib: the character itself for other characters, {@link #LETTER} with the case and
+     * the distance to the previous letter of the same key for letters.
+     */
+    private final int[] tokens;
+    /**
+     * Index of the previous letter of the same key in the crib, for each letter. -1 for the first ones.
+     */
+    private final int[] previous;
+    /**
+     * Index of the first letter of each key in the crib, -1 if the key has no letter.
+     */
+    private final int[] anchors;
+    /**
+     * Start of the tokens searched for. The characters before it are checked directly.
+     */
+    private final int start;
+    /**
+     * Failure function of the searched tokens: the length of the longest proper border of each prefix.
+     */
+    private final int[] failure;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code Crib} instance.
+     *
+     * @param crib   The known piece of the message.
+     * @param period Number of keys the cipher alternates over the characters: 1 or 2.
+     * @throws IllegalArgumentException if the crib has no English letter.
+     */
+    Crib(String crib, int period) {
+        this.crib = crib.toCharArray();
+        this.period = period;
+
+        int m = this.crib.length;
+        tokens = new int[m];
+        previous = new int[m];
+        anchors = new int[period];
+        Arrays.fill(anchors, -1);
+
+        int[] last = anchors.clone();
+        int first = -1;
+        for (int j = 0; j < m; j++) {
+            int r = j % period;
+            previous[j] = last[r];
+            tokens[j] = token(this.crib, j, last[r]);
+            if (isLetter(this.crib[j])) {
+                if (last[r] == -1) {
+                    anchors[r] = j;
+                    first = j;
+                }
+                last[r] = j;
+            }
+        }
+        if (first == -1)
+            throw new IllegalArgumentException("Crib has no English letter: " + crib);
+
+        start = first + 1;
+        failure = new int[m - start];
+        for (int i = 1, k = 0; i < failure.length; i++) {
+            while (k > 0 && tokens[start + i] != tokens[start + k]) {
+                k = failure[k - 1];
+            }
+            if (tokens[start + i] == tokens[start + k]) {
+                k++;
+            }
+            failure[i] = k;
+        }
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Finds the decryption keys under which the crib appears in the text.
+     *
+     * @param text   The secret.
+     * @param length Length of the secret.
+     * @return The keys: {@code key} for one key, {@code key1 * 26 + key2} for two keys,
+     * {@code key1} decrypting the even positions.
+     */
+    BitSet keys(char[] text, int length) {
+        int n = alphabet.length();
+        BitSet keys = new BitSet((period == 1) ? n : n * n);
+        int m = crib.length;
+        if (m > length)
+            return keys;
+
+        if (failure.length == 0) {
+            for (int p = 0; p + m <= length; p++) {
+                addKeys(text, p, keys);
+            }
+            return keys;
+        }
+
+        int[] last = new int[period];
+        Arrays.fill(last, -1);
+        int k = 0;
+        for (int i = 0; i < length; i++) {
+            int r = i % period;
+            int t = token(text, i, last[r]);
+            if (isLetter(text[i])) {
+                last[r] = i;
+            }
+
+            while (k > 0 && t != tokens[start + k]) {
+                k = failure[k - 1];
+            }
+            if (t == tokens[start + k]) {
+                k++;
+            }
+            if (k == failure.length) {
+                int p = i - m + 1;
+                if (p >= 0) {
+                    addKeys(text, p, keys);
+                }
+                k = failure[k - 1];
+            }
+        }
+        return keys;
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Checks the characters before {@link #start} at the alignment and adds the keys it implies.
+     *
+     * @param text The secret.
+     * @param p    Index of the secret where the crib would start.
+     * @param keys The keys found so far.
+     */
+    private void addKeys(char[] text, int p, BitSet keys) {
+        for (int j = 0; j < start; j++) {
+            char c = crib[j];
+            char s = text[p + j];
+            if (!isLetter(c)) {
+                if (s != c)
+                    return;
+            } else if (!isLetter(s) || isUpper(s) != isUpper(c)) {
+                return;
+            } else if (previous[j] != -1 && distance(text, p + j, p + previous[j]) != distance(crib, j, previous[j])) {
+                return;
+            }
+        }
+
+        int n = alphabet.length();
+        if (period == 1) {
+            keys.set(key(text, p, anchors[0]));
+            return;
+        }
+
+        // The parity of the secret decides which key decrypts each anchor.
+        int[] shifts = {-1, -1};
+        for (int r = 0; r < period; r++) {
+            if (anchors[r] != -1) {
+                shifts[(p + anchors[r]) & 1] = key(text, p, anchors[r]);
+            }
+        }
+        for (int k1 = 0; k1 < n; k1++) {
+            if (shifts[0] != -1 && k1 != shifts[0])
+                continue;
+            if (shifts[1] != -1) {
+                keys.set(k1 * n + shifts[1]);
+            } else {
+                keys.set(k1 * n, k1 * n + n);
+            }
+        }
+    }
+
+    /**
+     * Gets the decryption key which turns the letter of the secret into the letter of the crib.
+     *
+     * @param text The secret.
+     * @param p    Index of the secret where the crib starts.
+     * @param j    Index of a letter of the crib.
+     * @return The decryption key.
+     */
+    private int key(char[] text, int p, int j) {
+        int n = alphabet.length();
+        return Math.floorMod(index(crib[j]) - index(text[p + j]), n);
+    }
+
+    /**
+     * Gets the token of a character.
+     *
+     * @param text     The text holding the character.
+     * @param i        Index of the character.
+     * @param previous Index of the previous letter of the same key, -1 if none.
+     * @return The token.
+     * @see Crib#tokens
+     */
+    private static int token(char[] text, int i, int previous) {
+        char c = text[i];
+        if (!isLetter(c))
+            return c;
+
+        int distance = (previous == -1) ? FIRST : distance(text, i, previous);
+        return LETTER | (isUpper(c) ? UPPER : 0) | distance;
+    }
+
+    /**
+     * Gets the distance from one letter to another in the alphabet, going forward and wrapping around.
+     *
+     * @param text The text holding the letters.
+     * @param i    Index of the letter to reach.
+     * @param from Index of the letter to start from.
+     * @return The distance, from 0 to 25.
+     */
+    private static int distance(char[] text, int i, int from) {
+        return Math.floorMod(index(text[i]) - index(text[from]), alphabet.length());
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isUpper(char c) {
+        return c <= 'Z';
+    }
+
+    private static int index(char c) {
+        return (c <= 'Z') ? c - 'A' : c - 'a';
+    }
+}
@@ -0,0 +1,186 @@
+package io.enfire.cipher;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * This class contains the outcome of one decryption.
+ */
+public class DecryptionResult {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * The keys used in encryption. Their meaning depends on the breaker which produced the result.
+     * -1 means the decryption failed.
+     */
+    private final int[] key;
+    /**
+     * The decrypted message, a {@link Plaintext} view of the secret or a string. Empty means the decryption failed.
+     */
+    private final CharSequence decrypted;
+    /**
+     * Whether the decryption ran out of budget, so that the message is only the best candidate found in time.
+     */
+    private final boolean partial;
+    /**
+     * How the key was found, such as the plan of a Caesar breaker. {@code null} if the breaker doesn't tell.
+     */
+    private final String strategy;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code DecryptionResult} instance.
+     *
+     * @param key       The keys used in encryption.
+     * @param decrypted The decrypted message.
+     */
+    public DecryptionResult(int[] key, CharSequence decrypted) {
+        this(key, decrypted, false);
+    }
+
+    /**
+     * Creates a new {@code DecryptionResult} instance which may be partial.
+     *
+     * @param key       The keys used in encryption.
+     * @param decrypted The decrypted message.
+     * @param partial   Whether the decryption ran out of budget before accepting a candidate.
+     * @see Budget
+     */
+    public DecryptionResult(int[] key, CharSequence decrypted, boolean partial) {
+        this(key, decrypted, partial, null);
+    }
+
+    /**
+     * Creates a new {@code DecryptionResult} instance which tells how the key was found.
+     *
+     * @param key       The keys used in encryption.
+     * @param decrypted The decrypted message.
+     * @param partial   Whether the decryption ran out of budget before accepting a candidate.
+     * @param strategy  How the key was found, recorded in {@link Breaker#journal}.
+     */
+    DecryptionResult(int[] key, CharSequence decrypted, boolean partial, String strategy) {
+        this.key = key.clone();
+        this.decrypted = decrypted;
+        this.partial = partial;
+        this.strategy = strategy;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Creates a failed result.
+     *
+     * @param keys Number of keys of the breaker.
+     * @return A result whose keys are all -1 and whose message is empty.
+     */
+    public static DecryptionResult failure(int keys) {
+        int[] key = new int[keys];
+        Arrays.fill(key, -1);
+        return new DecryptionResult(key, "");
+    }
+
+    /**
+     * Gets the keys used in encryption.
+     *
+     * @return A copy of the keys.
+     */
+    public int[] getKey() {
+        return key.clone();
+    }
+
+    /**
+     * Gets the decrypted message.
+     *
+     * <p>If the message is a view of the secret, it's copied on every call: prefer
+     * {@link DecryptionResult#getPlaintext()} or {@link DecryptionResult#writeTo(Writer)} for a large secret.</p>
+     *
+     * @return The decrypted message.
+     */
+    public String getDecrypted() {
+        return decrypted.toString();
+    }
+
+    /**
+     * Gets the decrypted message without copying it.
+     *
+     * @return The decrypted message, usually a {@link Plaintext} view of the secret.
+     */
+    public CharSequence getPlaintext() {
+        return decrypted;
+    }
+
+    /**
+     * Writes the decrypted message to a writer without copying it.
+     *
+     * @param out The writer. It's neither flushed nor closed.
+     * @throws IOException if the writer fails.
+     */
+    public void writeTo(Writer out) throws IOException {
+        if (decrypted instanceof Plaintext) {
+            ((Plaintext) decrypted).writeTo(out);
+        } else {
+            out.append(decrypted);
+        }
+    }
+
+    /**
+     * Checks if the decryption ran out of budget. A partial result holds the best scoring candidate
+     * found in time, which wasn't accepted as English.
+     *
+     * @return {@code boolean} result of the check.
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * Checks if the decryption is a success. A partial result is not.
+     *
+     * @return {@code boolean} decryption result.
+     */
+    public boolean canDecrypt() {
+        if (partial)
+            return false;
+
+        for (int k : key) {
+            if (k < 0) {
+                return false;
+            }
+        }
+        if (key.length == 0)
+            return false;
+
+        for (int i = 0; i < decrypted.length(); i++) {
+            if (!Character.isWhitespace(decrypted.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(key) + " | " + decrypted + (partial ? " | partial" : "");
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Gets how the key was found.
+     *
+     * @return The strategy, such as {@code FREQUENCY_ANALYSIS}, or {@code null} if the breaker doesn't tell.
+     */
+    String getStrategy() {
+        return strategy;
+    }
+}
@@ -1,39 +1,136 @@
 package io.enfire.cipher;
 
+import io.enfire.util.Dawg;
+
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 
 /**
  * This class creates an object which contains dictionary words.
+ *
+ * <p>Words can be added and removed, and the whole word file reloaded, while other threads look words up.
+ * Lookups never block on updates: each shard is an immutable snapshot which updates replace as a whole
+ * (copy-on-write), so a lookup sees a shard either before or after an update, never in between.</p>
  */
 public class Dictionary {
     // ==============================
     // Fields
     // ==============================
 
+    /**
+     * How a {@code Dictionary} loads its word file.
+     */
+    public enum Loading {
+        /**
+         * Reads and builds everything before the constructor returns.
+         */
+        EAGER,
+        /**
+         * Indexes the file in parallel, then builds all the shards in the background.
+         * A lookup waits only for the shard it needs.
+         */
+        PARALLEL,
+        /**
+         * Indexes the file in parallel, then builds each shard on the first lookup which needs it.
+         */
+        LAZY
+    }
+
     /**
      * 26 lower case English alphabet.
      */
-    private String alphabet = "abcdefghijklmnopqrstuvwxyz";
+    private static final String alphabet = "abcdefghijklmnopqrstuvwxyz";
+    /**
+     * Number of shards: one per English letter and an extra one for the other characters.
+     */
+    private static final int SHARDS = 27;
+    /**
+     * Class path resource of the bundled word list.
+     */
+    private static final String BUNDLED = "/dictionary.txt";
+    /**
+     * Class path resource of the bundled word list, prebuilt by {@link DictionaryIndexer} at build time.
+     */
+    private static final String BUNDLED_INDEX = "/dictionary.idx";
+    /**
+     * First bytes of an index file ("DAWG").
+     */
+    private static final int MAGIC = 0x44415747;
+    /**
+     * Format version of an index file.
+     */
+    private static final int VERSION = 2;
+    /**
+     * Largest number of added and removed words a shard keeps apart before they are merged into its automaton.
+     */
+    private static final int OVERLAY = 256;
+    /**
+     * Largest share of the words a letter pair may be found in and still be rare: 30 per million,
+     * about 5 words of the bundled dictionary.
+     */
+    private static final double RARE = 0.00003;
+    /**
+     * Fewest words for the letter pairs to tell rare ones apart. A smaller dictionary has no rare pairs.
+     */
+    private static final int RARE_WORDS = 10_000;
+    /**
+     * Number of pairs of English letters.
+     */
+    private static final int BIGRAMS = 26 * 26;
 
     /**
-     * A map to contain dictionary words.
+     * Automata to contain dictionary words, grouped by their first letters.
      *
-     * <p>{@code map{a={0=List...45=List}...z, *}}</p>
+     * <p>{@code shards[a...z, *]}</p>
      *
-     * <p>@implSpec A nested map. The outer map holds 26 rooms for English alphabet and
-     * an extra room for non-alphabet characters (*). The inner one is grouped by lengths of words;
-     * starting from 0 to 45 (longest English word has 45 letters). Room 0 is for words longer than 45.</p>
+     * <p>@implSpec Each shard is a minimal {@link Dawg}. Words sharing prefixes or suffixes share their
+     * states, so the bundled word list takes roughly a tenth of the memory it would take as strings.
+     * Slots 0 - 25 hold the words starting with English letters, slot 26 the others (*).</p>
      *
-     * <p>@implNote The reason for using {@link Map} is to loosely contain the words. For example,
-     * the outer map might not have all 26 alphabet and other characters, and nor might the inner map.</p>
+     * <p>@implNote A slot is {@code null} until its shard starts building, and then a future which
+     * completes when the shard is built. Hence, the shards can be published one by one. Updates replace
+     * the future of a built shard with a completed one, and a reload replaces the whole array.</p>
+     */
+    private volatile AtomicReferenceArray<CompletableFuture<Shard>> shards = new AtomicReferenceArray<>(SHARDS);
+    /**
+     * Memory-mapped word file, kept until all the shards are built. {@code null} if loaded eagerly.
      */
-    private Map<Character, Map<Integer, ArrayList<String>>> map = new HashMap<>();
+    private volatile ByteBuffer source;
+    /**
+     * Lines of the word file, as {@code [start, end)} byte offset pairs, indexed by byte range and shard.
+     * Kept as long as {@link #source}.
+     */
+    private volatile int[][][] lines;
+    /**
+     * Lock taken by the updates, so that they apply one at a time. Lookups don't take it.
+     */
+    private final Object updates = new Object();
+    /**
+     * Rare letter pairs, as one bit row per first letter, counted when the words are loaded.
+     */
+    private volatile int[] rareBigrams;
 
     // ==============================
     // Constructors
@@ -46,27 +143,66 @@ public class Dictionary {
      * @throws IOException if the file path does not exist.
      */
     public Dictionary(String file) throws IOException {
-        Reader reader = new FileReader(file);
-        BufferedReader buff = new BufferedReader(reader);
+        this(file, Loading.EAGER);
+    }
 
-        String word;
-        while ((word = buff.readLine()) != null) {
-            if (word.isBlank())
-                continue;
+    /**
+     * Creates a new {@code Dictionary} instance with the given loading mode.
+     *
+     * <p>The file is read as UTF-8, whatever the loading mode and the platform's default charset,
+     * so that the same file always gives the same words.</p>
+     *
+     * @param file    Dictionary file path.
+     * @param loading How to load the file.
+     * @throws IOException if the file path does not exist.
+     */
+    public Dictionary(String file, Loading loading) throws IOException {
+        int[] counts = new int[BIGRAMS + 1];
+        if (loading == Loading.EAGER) {
+            shards = loadEagerly(file, counts);
+            rareBigrams = rareBigrams(counts);
+            return;
+        }
 
-            word = word.toLowerCase().strip();
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            source = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        lines = index(source, counts);
+        rareBigrams = rareBigrams(counts);
 
-            char alphaKey = getOuterKey(word);
-            Map<Integer, ArrayList<String>> alphaGroup = map.computeIfAbsent(alphaKey, k -> new HashMap<>());
+        if (loading == Loading.PARALLEL) {
+            for (int i = 0; i < SHARDS; i++) {
+                int shard = i;
+                CompletableFuture<Shard> future = new CompletableFuture<>();
+                shards.set(shard, future);
+                ForkJoinPool.commonPool().execute(() -> build(shard, future));
+            }
+        }
+    }
 
-            int lengthKey = getInnerKey(word);
-            ArrayList<String> lengthGroup = alphaGroup.computeIfAbsent(lengthKey, k -> new ArrayList<>());
+    /**
+     * Creates a new {@code Dictionary} instance from a word list.
+     *
+     * @param reader The word list, one word per line. It's closed when done.
+     * @throws IOException if reading fails.
+     */
+    private Dictionary(Reader reader) throws IOException {
+        int[] counts = new int[BIGRAMS + 1];
+        shards = load(reader, counts);
+        rareBigrams = rareBigrams(counts);
+    }
 
-            lengthGroup.add(word);
+    /**
+     * Creates a new {@code Dictionary} instance from already built shards.
+     *
+     * @param dawgs The shards.
+     * @param rare  The rare letter pairs of their words.
+     */
+    private Dictionary(Dawg[] dawgs, int[] rare) {
+        for (int i = 0; i < SHARDS; i++) {
+            shards.set(i, CompletableFuture.completedFuture(new Shard(dawgs[i])));
         }
-
-        buff.close();
-        reader.close();
+        rareBigrams = rare;
     }
 
     // ==============================
@@ -74,7 +210,117 @@ public class Dictionary {
     // ==============================
 
     /**
-     * Looks up the word in the dictionary map.
+     * Loads the word list bundled in the class path.
+     *
+     * <p>The build compiles the bundled word list into a prebuilt index ({@link DictionaryIndexer}),
+     * so no text is parsed and no automaton is built: the index is read with one bulk read and
+     * its arrays are used as they are. If the index is missing, as when running from sources without
+     * the build step, the bundled text is parsed instead.</p>
+     *
+     * @return The bundled dictionary.
+     * @throws IOException if the bundled resources can't be read.
+     */
+    public static Dictionary bundled() throws IOException {
+        try (InputStream in = Dictionary.class.getResourceAsStream(BUNDLED_INDEX)) {
+            if (in != null)
+                return read(ByteBuffer.wrap(in.readAllBytes()));
+        }
+
+        InputStream in = Dictionary.class.getResourceAsStream(BUNDLED);
+        if (in == null)
+            throw new FileNotFoundException(BUNDLED);
+
+        return new Dictionary(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the index of the dictionary, which {@link Dictionary#bundled()} reads back.
+     * Every shard is built first. The rare letter pairs follow the shards, so reading them back
+     * doesn't walk the words.
+     *
+     * @param out The stream to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writeIndex(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            shard(i).compact().base.write(data);
+        }
+        for (int row : rareBigrams) {
+            data.writeInt(row);
+        }
+        data.flush();
+    }
+
+    /**
+     * Adds the word to the dictionary. Lookups see it as soon as this method returns.
+     *
+     * <p>@implNote The word goes to a small automaton of added words next to the automaton of its shard,
+     * and both are published as a new snapshot of the shard. Once the added and removed words of a shard
+     * outnumber {@link Dictionary#OVERLAY}, they are merged into a new automaton of the shard, in the
+     * calling thread. Lookups keep using the previous snapshot meanwhile.</p>
+     *
+     * @param word The word to add.
+     * @return {@code true} if the dictionary didn't contain the word.
+     */
+    public boolean add(String word) {
+        if (word.isBlank())
+            return false;
+
+        word = word.toLowerCase().strip();
+        synchronized (updates) {
+            int i = getShard(word.charAt(0));
+            Shard shard = shard(i);
+            return update(i, shard, shard.add(word));
+        }
+    }
+
+    /**
+     * Removes the word from the dictionary. Lookups stop seeing it as soon as this method returns.
+     *
+     * @param word The word to remove.
+     * @return {@code true} if the dictionary contained the word.
+     * @see Dictionary#add(String)
+     */
+    public boolean remove(String word) {
+        if (word.isBlank())
+            return false;
+
+        word = word.toLowerCase().strip();
+        synchronized (updates) {
+            int i = getShard(word.charAt(0));
+            Shard shard = shard(i);
+            return update(i, shard, shard.remove(word));
+        }
+    }
+
+    /**
+     * Replaces all the words with the words of the file, at once.
+     *
+     * <p>The file is loaded eagerly in the calling thread while lookups keep using the current words.
+     * Then all the shards are swapped in a single write, so a lookup sees either the old or the new words.
+     * Words added or removed while the file loads are dropped with the old words.</p>
+     *
+     * @param file Dictionary file path.
+     * @throws IOException if the file path does not exist. The current words are kept.
+     */
+    public void reload(String file) throws IOException {
+        int[] counts = new int[BIGRAMS + 1];
+        AtomicReferenceArray<CompletableFuture<Shard>> fresh = loadEagerly(file, counts);
+        int[] rare = rareBigrams(counts);
+        synchronized (updates) {
+            shards = fresh;
+            source = null;
+            lines = null;
+            rareBigrams = rare;
+        }
+    }
+
+    /**
+     * Looks up the word in the dictionary.
      *
      * @param word The word to look up.
      * @return {@code boolean} result of the lookup.
@@ -84,23 +330,108 @@ public class Dictionary {
             return false;
 
         word = word.toLowerCase();
+        return shard(word.charAt(0)).contains(word);
+    }
 
-        char alphaKey = getOuterKey(word);
-        Map<Integer, ArrayList<String>> alphaGroup = map.get(alphaKey);
-        if (alphaGroup == null)
+    /**
+     * Looks up the word spanning {@code [from, to)} of the text in the dictionary,
+     * without copying it out of the text.
+     *
+     * @param text The text containing the word.
+     * @param from Start of the word (inclusive).
+     * @param to   End of the word (exclusive).
+     * @return {@code boolean} result of the lookup.
+     */
+    public boolean lookup(char[] text, int from, int to) {
+        if (from >= to)
             return false;
 
-        int lengthKey = getInnerKey(word);
-        ArrayList<String> lengthGroup = alphaGroup.get(lengthKey);
-        if (lengthGroup == null)
+        // Words are stripped when loaded, so a blank span never matches.
+        return shard(Character.toLowerCase(text[from])).contains(text, from, to);
+    }
+
+    /**
+     * Finds the dictionary words which start at {@code from}: the prefixes of {@code [from, to)}
+     * of the text which are dictionary words, in a single walk of the automaton.
+     *
+     * @param text The text to match.
+     * @param from Start of the words (inclusive).
+     * @param to   End of the text to match (exclusive).
+     * @param ends The array to write the (exclusive) end of each word to, shortest first.
+     *             It needs room for {@code to - from} entries.
+     * @return The number of words found.
+     */
+    public int matchPrefixes(char[] text, int from, int to, int[] ends) {
+        if (from >= to)
+            return 0;
+
+        return shard(Character.toLowerCase(text[from])).matchPrefixes(text, from, to, ends);
+    }
+
+    /**
+     * Checks if any dictionary word starts with the prefix.
+     *
+     * <p>@implNote Until its shard is merged, a removed word still counts as a word starting with its
+     * prefixes. Hence, the check may be wrong only by saying {@code true}, which is safe for pruning.</p>
+     *
+     * @param prefix The prefix to look up.
+     * @return {@code boolean} result of the lookup.
+     */
+    public boolean hasPrefix(String prefix) {
+        if (prefix.isBlank())
             return false;
 
-        for (String dictWord : map.get(alphaKey).get(lengthKey)) {
-            if (word.equals(dictWord)) {
-                return true;
+        prefix = prefix.toLowerCase();
+        return shard(prefix.charAt(0)).hasPrefix(prefix);
+    }
+
+    /**
+     * Performs the action for each dictionary word, shard by shard, each in lexicographic order.
+     *
+     * @param action The action to perform.
+     */
+    public void forEach(Consumer<? super String> action) {
+        for (int i = 0; i < SHARDS; i++) {
+            shard(i).compact().base.forEach(action);
+        }
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Gets the pairs of English letters which are found in at most {@link Dictionary#RARE} of the words,
+     * such as "qz" or "xj". A wrong decryption is full of them, English text has next to none.
+     *
+     * <p>A small or custom dictionary misses too many common pairs to tell which ones are rare:
+     * below {@value #RARE_WORDS} words, no pair is.</p>
+     *
+     * <p>@implNote The pairs are counted as the words are read, before any shard is built, and again
+     * on a reload. A prebuilt index stores them. Words added or removed meanwhile don't change them.</p>
+     *
+     * @return Bit {@code b} of entry {@code a} is set if the pair of letters {@code a} and {@code b}
+     * (0 for 'a') is rare. The array is shared and must not be modified.
+     */
+    int[] rareBigrams() {
+        return rareBigrams;
+    }
+
+    /**
+     * Counts the shards built so far, which stay unbuilt until a lookup needs them in a lazy dictionary.
+     *
+     * @return The number of built shards.
+     */
+    int builtShards() {
+        AtomicReferenceArray<CompletableFuture<Shard>> current = shards;
+        int built = 0;
+        for (int i = 0; i < SHARDS; i++) {
+            CompletableFuture<Shard> future = current.get(i);
+            if (future != null && future.isDone()) {
+                built++;
             }
         }
-        return false;
+        return built;
     }
 
     // ==============================
@@ -108,25 +439,624 @@ public class Dictionary {
     // ==============================
 
     /**
-     * Gets the outer map key.
+     * Reads the whole file and builds all the shards.
      *
-     * @param word The word whose position is to find.
-     * @return The outer map key.
+     * @param file   Dictionary file path.
+     * @param counts The letter pair counts to add the words to.
+     * @return The built shards.
+     * @throws IOException if the file path does not exist.
      */
-    private char getOuterKey(String word) {
-        char firstLetter = word.charAt(0);
-        return (alphabet.indexOf(firstLetter) == -1) ? '*' : firstLetter;
+    private static AtomicReferenceArray<CompletableFuture<Shard>> loadEagerly(String file, int[] counts)
+            throws IOException {
+        return load(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), counts);
     }
 
     /**
-     * Gets the inner map key.
+     * Reads all the words and builds all the shards.
      *
-     * @param word The word whose position is to find.
-     * @return The inner map key.
+     * @param reader The word list, one word per line. It's closed when done.
+     * @param counts The letter pair counts to add the words to.
+     * @return The built shards.
+     * @throws IOException if reading fails.
      */
-    private int getInnerKey(String word) {
-        int len = word.length();
-        int longestEngWord = 45;
-        return (len > longestEngWord) ? 0 : len;
+    private static AtomicReferenceArray<CompletableFuture<Shard>> load(Reader reader, int[] counts) throws IOException {
+        BufferedReader buff = new BufferedReader(reader);
+        List<List<String>> words = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            words.add(new ArrayList<>());
+        }
+
+        int[] seen = new int[BIGRAMS];
+        String word;
+        while ((word = buff.readLine()) != null) {
+            if (word.isBlank())
+                continue;
+
+            word = word.toLowerCase().strip();
+            words.get(getShard(word.charAt(0))).add(word);
+            countBigrams(word, counts, seen);
+        }
+
+        buff.close();
+        reader.close();
+
+        AtomicReferenceArray<CompletableFuture<Shard>> built = new AtomicReferenceArray<>(SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            built.set(i, CompletableFuture.completedFuture(new Shard(new Dawg(words.get(i)))));
+        }
+        return built;
+    }
+
+    /**
+     * Reads an index written by {@link Dictionary#writeIndex(OutputStream)}.
+     *
+     * @param buffer The whole index.
+     * @return The dictionary.
+     * @throws IOException if the buffer isn't an index of a supported version.
+     */
+    static Dictionary read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC)
+            throw new IOException("Not a dictionary index");
+        if (buffer.getInt() != VERSION || buffer.getInt() != SHARDS)
+            throw new IOException("Unsupported dictionary index version");
+
+        Dawg[] dawgs = new Dawg[SHARDS];
+        int[] rare = new int[alphabet.length()];
+        try {
+            for (int i = 0; i < SHARDS; i++) {
+                dawgs[i] = Dawg.read(buffer);
+            }
+            for (int a = 0; a < rare.length; a++) {
+                rare[a] = buffer.getInt();
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Truncated dictionary index", e);
+        }
+        return new Dictionary(dawgs, rare);
+    }
+
+    /**
+     * Gets the shard of the words starting with the character, waiting for it to be built.
+     *
+     * @param first The first character of the word, in lower case.
+     * @return The shard.
+     */
+    private Shard shard(char first) {
+        return shard(getShard(first));
+    }
+
+    /**
+     * Gets the shard, building it in the calling thread if nobody has started yet.
+     *
+     * @param i The shard index.
+     * @return The shard.
+     */
+    private Shard shard(int i) {
+        AtomicReferenceArray<CompletableFuture<Shard>> current = shards;
+        CompletableFuture<Shard> future = current.get(i);
+        if (future == null) {
+            CompletableFuture<Shard> mine = new CompletableFuture<>();
+            if (current.compareAndSet(i, null, mine)) {
+                build(i, mine);
+            }
+            future = current.get(i);
+        }
+        return future.join();
+    }
+
+    /**
+     * Publishes a new snapshot of the shard. The caller holds {@link #updates}.
+     *
+     * @param i       The shard index.
+     * @param shard   The current snapshot.
+     * @param updated The new snapshot, the same object if nothing changed.
+     * @return {@code true} if the shard changed.
+     */
+    private boolean update(int i, Shard shard, Shard updated) {
+        if (updated == shard)
+            return false;
+
+        if (updated.overlay() > OVERLAY) {
+            updated = updated.compact();
+        }
+        shards.set(i, CompletableFuture.completedFuture(updated));
+        return true;
+    }
+
+    /**
+     * Gets the shard index of the words starting with the character.
+     *
+     * @param first The first character of the word, in lower case.
+     * @return The shard index.
+     */
+    private static int getShard(char first) {
+        int idx = alphabet.indexOf(first);
+        return (idx == -1) ? SHARDS - 1 : idx;
+    }
+
+    /**
+     * Decodes the lines of the shard from the mapped file and builds the shard.
+     *
+     * @param shard  The shard index.
+     * @param future The future to complete with the shard.
+     */
+    private void build(int shard, CompletableFuture<Shard> future) {
+        try {
+            int[][][] index = lines;
+            ByteBuffer mapped = source;
+            if (index == null || mapped == null) {
+                // The dictionary was reloaded meanwhile.
+                future.complete(shard(shard));
+                return;
+            }
+
+            ByteBuffer buffer = mapped.duplicate();
+            List<String> words = new ArrayList<>();
+            byte[] bytes = new byte[64];
+            for (int[][] range : index) {
+                int[] spans = range[shard];
+                for (int i = 0; i < spans.length; i += 2) {
+                    int len = spans[i + 1] - spans[i];
+                    if (len > bytes.length) {
+                        bytes = new byte[len];
+                    }
+                    buffer.position(spans[i]);
+                    buffer.get(bytes, 0, len);
+                    String word = new String(bytes, 0, len, StandardCharsets.UTF_8);
+                    if (!word.isBlank()) {
+                        words.add(word.toLowerCase().strip());
+                    }
+                }
+            }
+            future.complete(new Shard(new Dawg(words)));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        releaseSource();
+    }
+
+    /**
+     * Drops the mapped file once every shard is built.
+     */
+    private void releaseSource() {
+        AtomicReferenceArray<CompletableFuture<Shard>> current = shards;
+        for (int i = 0; i < SHARDS; i++) {
+            CompletableFuture<Shard> future = current.get(i);
+            if (future == null || !future.isDone())
+                return;
+        }
+        source = null;
+        lines = null;
+    }
+
+    /**
+     * Finds the lines of the file and sorts them into shards.
+     *
+     * <p>Algorithm: Split the file into one byte range per processor, each starting at a line start.
+     * Scan the ranges in parallel and file each line under its first non-whitespace byte.
+     * Only the rare lines starting with a non-ASCII byte are decoded to find their first letter.
+     * The letter pairs of the lines are counted on the way, so no shard needs building for them.</p>
+     *
+     * @param buffer The mapped file.
+     * @param counts The letter pair counts to add the lines to.
+     * @return Lines as {@code [start, end)} byte offset pairs, indexed by byte range and shard.
+     */
+    private int[][][] index(ByteBuffer buffer, int[] counts) {
+        int size = buffer.limit();
+        int ranges = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), size / 65536));
+        int[] bounds = new int[ranges + 1];
+        for (int r = 1; r < ranges; r++) {
+            int b = Math.max(bounds[r - 1], (int) ((long) size * r / ranges));
+            while (b < size && b > 0 && !isLineBreak(buffer.get(b - 1))) {
+                b++;
+            }
+            bounds[r] = b;
+        }
+        bounds[ranges] = size;
+
+        int[][][] result = new int[ranges][][];
+        int[][] partial = new int[ranges][BIGRAMS + 1];
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int r = 0; r < ranges; r++) {
+            int range = r;
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    result[range] = index(buffer.duplicate(), bounds[range], bounds[range + 1], partial[range]);
+                }
+            });
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        for (int[] range : partial) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += range[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the lines of a byte range and sorts them into shards.
+     *
+     * @param buffer The mapped file.
+     * @param from   Start of the range, at a line start.
+     * @param to     End of the range, at a line start or the end of the file.
+     * @param counts The letter pair counts to add the lines to.
+     * @return Lines as {@code [start, end)} byte offset pairs, indexed by shard.
+     */
+    private int[][] index(ByteBuffer buffer, int from, int to, int[] counts) {
+        int[][] spans = new int[SHARDS][16];
+        int[] lens = new int[SHARDS];
+        int[] seen = new int[BIGRAMS];
+
+        int i = from;
+        while (i < to) {
+            int start = i;
+            while (i < to && !isLineBreak(buffer.get(i))) {
+                i++;
+            }
+            int end = i;
+            i++;
+
+            int first = start;
+            while (first < end && isAsciiWhitespace(buffer.get(first))) {
+                first++;
+            }
+            if (first == end)
+                continue;
+
+            int shard;
+            byte b = buffer.get(first);
+            if (b >= 0) {
+                shard = getShard(Character.toLowerCase((char) b));
+            } else {
+                byte[] bytes = new byte[end - start];
+                buffer.position(start);
+                buffer.get(bytes);
+                String word = new String(bytes, StandardCharsets.UTF_8);
+                if (word.isBlank())
+                    continue;
+                shard = getShard(word.toLowerCase().strip().charAt(0));
+            }
+
+            if (lens[shard] + 2 > spans[shard].length) {
+                spans[shard] = Arrays.copyOf(spans[shard], spans[shard].length * 2);
+            }
+            spans[shard][lens[shard]++] = start;
+            spans[shard][lens[shard]++] = end;
+            countBigrams(buffer, start, end, counts, seen);
+        }
+
+        for (int s = 0; s < SHARDS; s++) {
+            spans[s] = Arrays.copyOf(spans[s], lens[s]);
+        }
+        return spans;
+    }
+
+    /**
+     * Counts the pairs of English letters of a word: each pair found in the word adds one to its count.
+     *
+     * @param word   The word, in lower case.
+     * @param counts The count of each pair {@code a * 26 + b} (0 for 'a'), then the number of words,
+     *               which this word adds one to.
+     * @param seen   The number of the word which last counted each pair, so that a pair counts once per word.
+     */
+    private static void countBigrams(String word, int[] counts, int[] seen) {
+        int number = ++counts[BIGRAMS];
+        int a = -1;
+        for (int i = 0; i < word.length(); i++) {
+            int b = alphabet.indexOf(word.charAt(i));
+            if (a != -1 && b != -1 && seen[a * 26 + b] != number) {
+                seen[a * 26 + b] = number;
+                counts[a * 26 + b]++;
+            }
+            a = b;
+        }
+    }
+
+    /**
+     * Counts the pairs of English letters of the line spanning {@code [from, to)} of the mapped file,
+     * as {@link Dictionary#countBigrams(String, int[], int[])} does. Only a line with non-ASCII bytes is decoded.
+     *
+     * @param buffer The mapped file.
+     * @param from   Start of the line (inclusive).
+     * @param to     End of the line (exclusive).
+     * @param counts The count of each pair, then the number of words.
+     * @param seen   The number of the word which last counted each pair.
+     */
+    private static void countBigrams(ByteBuffer buffer, int from, int to, int[] counts, int[] seen) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) < 0) {
+                byte[] bytes = new byte[to - from];
+                buffer.position(from);
+                buffer.get(bytes);
+                countBigrams(new String(bytes, StandardCharsets.UTF_8).toLowerCase(), counts, seen);
+                return;
+            }
+        }
+
+        int number = ++counts[BIGRAMS];
+        int a = -1;
+        for (int i = from; i < to; i++) {
+            int b = alphabet.indexOf(Character.toLowerCase((char) buffer.get(i)));
+            if (a != -1 && b != -1 && seen[a * 26 + b] != number) {
+                seen[a * 26 + b] = number;
+                counts[a * 26 + b]++;
+            }
+            a = b;
+        }
+    }
+
+    /**
+     * Finds the rare pairs of English letters from their counts.
+     *
+     * @param counts The count of each pair, then the number of words.
+     * @return The rare pairs, as {@link Dictionary#rareBigrams()} returns them.
+     */
+    private static int[] rareBigrams(int[] counts) {
+        int words = counts[BIGRAMS];
+        int[] rare = new int[alphabet.length()];
+        double limit = RARE * words;
+        for (int a = 0; a < rare.length && words >= RARE_WORDS; a++) {
+            for (int b = 0; b < rare.length; b++) {
+                if (counts[a * 26 + b] <= limit) {
+                    rare[a] |= 1 << b;
+                }
+            }
+        }
+        return rare;
+    }
+
+    /**
+     * Checks if the byte ends a line, as {@link BufferedReader#readLine()} sees it.
+     *
+     * @param b The byte to check.
+     * @return {@code boolean} result of the check.
+     */
+    private static boolean isLineBreak(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * Checks if the byte is an ASCII character which {@link String#strip()} would strip, line breaks aside.
+     *
+     * @param b The byte to check.
+     * @return {@code boolean} result of the check.
+     */
+    private static boolean isAsciiWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\f' || b == 0x0B || b == 0x1C || b == 0x1D || b == 0x1E || b == 0x1F;
+    }
+
+    /**
+     * An immutable snapshot of a shard: its automaton and the words added and removed since it was built.
+     *
+     * <p>@implSpec The added words are never in {@link #base} and the removed words always are, so a word
+     * is in the shard if it's added, or if it's in the automaton and not removed. The small automata
+     * of added and removed words are walked in step with the automaton of the shard, so a lookup still
+     * reads each character once. They are {@code null} when empty, which leaves a single walk.</p>
+     */
+    private static final class Shard {
+        /**
+         * Words of the shard when it was built or last merged.
+         */
+        private final Dawg base;
+        /**
+         * Words added since, or {@code null}.
+         */
+        private final Dawg added;
+        /**
+         * Words removed since, or {@code null}.
+         */
+        private final Dawg removed;
+
+        private Shard(Dawg base) {
+            this(base, null, null);
+        }
+
+        private Shard(Dawg base, Dawg added, Dawg removed) {
+            this.base = base;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        /**
+         * Checks if the shard contains the word.
+         *
+         * @param word The word, in lower case.
+         * @return {@code boolean} result of the lookup.
+         */
+        private boolean contains(String word) {
+            if (added != null && added.contains(word))
+                return true;
+
+            return base.contains(word) && (removed == null || !removed.contains(word));
+        }
+
+        /**
+         * Checks if the shard contains the word spanning {@code [from, to)} of the text, in any case.
+         *
+         * @param text The text containing the word.
+         * @param from Start of the word (inclusive).
+         * @param to   End of the word (exclusive).
+         * @return {@code boolean} result of the lookup.
+         */
+        private boolean contains(char[] text, int from, int to) {
+            int b = Dawg.ROOT;
+            int a = (added == null) ? Dawg.NONE : Dawg.ROOT;
+            int r = (removed == null) ? Dawg.NONE : Dawg.ROOT;
+            for (int i = from; i < to; i++) {
+                char c = Character.toLowerCase(text[i]);
+                if (b != Dawg.NONE) {
+                    b = base.next(b, c);
+                }
+                if (a != Dawg.NONE) {
+                    a = added.next(a, c);
+                }
+                if (b == Dawg.NONE && a == Dawg.NONE)
+                    return false;
+                if (r != Dawg.NONE) {
+                    r = removed.next(r, c);
+                }
+            }
+            return isWord(b, a, r);
+        }
+
+        /**
+         * Finds the words of the shard which are prefixes of {@code [from, to)} of the text.
+         *
+         * @param text The text to match.
+         * @param from Start of the words (inclusive).
+         * @param to   End of the text to match (exclusive).
+         * @param ends The array to write the (exclusive) end of each word to, shortest first.
+         * @return The number of words found.
+         * @see Dictionary#matchPrefixes(char[], int, int, int[])
+         */
+        private int matchPrefixes(char[] text, int from, int to, int[] ends) {
+            int b = Dawg.ROOT;
+            int a = (added == null) ? Dawg.NONE : Dawg.ROOT;
+            int r = (removed == null) ? Dawg.NONE : Dawg.ROOT;
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                char c = Character.toLowerCase(text[i]);
+                if (b != Dawg.NONE) {
+                    b = base.next(b, c);
+                }
+                if (a != Dawg.NONE) {
+                    a = added.next(a, c);
+                }
+                if (b == Dawg.NONE && a == Dawg.NONE)
+                    break;
+                if (r != Dawg.NONE) {
+                    r = removed.next(r, c);
+                }
+                if (isWord(b, a, r)) {
+                    ends[count++] = i + 1;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Checks if any word of the shard starts with the prefix, removed words included.
+         *
+         * @param prefix The prefix, in lower case.
+         * @return {@code boolean} result of the lookup.
+         */
+        private boolean hasPrefix(String prefix) {
+            return base.hasPrefix(prefix) || (added != null && added.hasPrefix(prefix));
+        }
+
+        /**
+         * Checks if the states reached by the same walk end a word of the shard.
+         *
+         * @param b The state of {@link #base}.
+         * @param a The state of {@link #added}.
+         * @param r The state of {@link #removed}.
+         * @return {@code boolean} result of the check.
+         */
+        private boolean isWord(int b, int a, int r) {
+            if (a != Dawg.NONE && added.isFinal(a))
+                return true;
+
+            return b != Dawg.NONE && base.isFinal(b) && (r == Dawg.NONE || !removed.isFinal(r));
+        }
+
+        /**
+         * Gets the number of words kept apart from the automaton of the shard.
+         *
+         * @return The number of added and removed words.
+         */
+        private int overlay() {
+            return ((added == null) ? 0 : added.size()) + ((removed == null) ? 0 : removed.size());
+        }
+
+        /**
+         * Adds the word.
+         *
+         * @param word The word, in lower case.
+         * @return The new snapshot, or this one if the shard already contains the word.
+         */
+        private Shard add(String word) {
+            if (removed != null && removed.contains(word))
+                return new Shard(base, added, without(removed, word));
+            if (contains(word))
+                return this;
+
+            return new Shard(base, with(added, word), removed);
+        }
+
+        /**
+         * Removes the word.
+         *
+         * @param word The word, in lower case.
+         * @return The new snapshot, or this one if the shard doesn't contain the word.
+         */
+        private Shard remove(String word) {
+            if (added != null && added.contains(word))
+                return new Shard(base, without(added, word), removed);
+            if (!contains(word))
+                return this;
+
+            return new Shard(base, added, with(removed, word));
+        }
+
+        /**
+         * Merges the added and removed words into a new automaton.
+         *
+         * @return The merged snapshot, or this one if there is nothing to merge.
+         */
+        private Shard compact() {
+            if (added == null && removed == null)
+                return this;
+
+            List<String> words = new ArrayList<>(base.size() + overlay());
+            base.forEach(word -> {
+                if (removed == null || !removed.contains(word)) {
+                    words.add(word);
+                }
+            });
+            if (added != null) {
+                added.forEach(words::add);
+            }
+            return new Shard(new Dawg(words));
+        }
+
+        /**
+         * Builds an automaton of the words of another one and the word.
+         *
+         * @param dawg The automaton, possibly {@code null}.
+         * @param word The word to add.
+         * @return The new automaton.
+         */
+        private static Dawg with(Dawg dawg, String word) {
+            List<String> words = new ArrayList<>();
+            if (dawg != null) {
+                dawg.forEach(words::add);
+            }
+            words.add(word);
+            return new Dawg(words);
+        }
+
+        /**
+         * Builds an automaton of the words of another one but the word.
+         *
+         * @param dawg The automaton.
+         * @param word The word to leave out.
+         * @return The new automaton, or {@code null} if it would be empty.
+         */
+        private static Dawg without(Dawg dawg, String word) {
+            List<String> words = new ArrayList<>();
+            dawg.forEach(w -> {
+                if (!w.equals(word)) {
+                    words.add(w);
+                }
+            });
+            return words.isEmpty() ? null : new Dawg(words);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package io.enfire.cipher;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * This class compiles a word list into the prebuilt index which {@link Dictionary#bundled()} loads.
+ *
+ * <p>The build runs it on {@code src/main/resources/dictionary.txt}, after compiling the classes,
+ * and puts the index next to them in the class path.</p>
+ */
+public class DictionaryIndexer {
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Compiles a word list into an index file.
+     *
+     * @param args Word list file path and index file path.
+     * @throws IOException if the word list can't be read or the index can't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: DictionaryIndexer <dictionary file> <index file>");
+            System.exit(2);
+        }
+
+        Path index = Paths.get(args[1]);
+        if (index.getParent() != null) {
+            Files.createDirectories(index.getParent());
+        }
+        Dictionary dictionary = new Dictionary(args[0], Dictionary.Loading.EAGER);
+        try (OutputStream out = new FileOutputStream(index.toFile())) {
+            dictionary.writeIndex(out);
+        }
+    }
+}
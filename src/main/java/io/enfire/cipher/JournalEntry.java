@@ -0,0 +1,129 @@
+package io.enfire.cipher;
+
+import java.util.Arrays;
+
+/**
+ * This class contains one decryption outcome read back from a {@link ResultJournal}.
+ *
+ * @see JournalReader
+ */
+public class JournalEntry {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * When the decryption ended, in milliseconds since the epoch.
+     */
+    private final long timestamp;
+    /**
+     * Hash of the secret, as given to the breaker.
+     */
+    private final long hash;
+    /**
+     * The keys used in encryption, -1 if the decryption failed.
+     */
+    private final int[] key;
+    /**
+     * Whether the decryption succeeded.
+     */
+    private final boolean success;
+    /**
+     * Whether the decryption ran out of budget.
+     */
+    private final boolean partial;
+    /**
+     * How the key was found, or the breaker which decrypted the secret.
+     */
+    private final String strategy;
+    /**
+     * How long the decryption took, in nanoseconds.
+     */
+    private final long nanos;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code JournalEntry} instance.
+     *
+     * @param timestamp When the decryption ended, in milliseconds since the epoch.
+     * @param hash      Hash of the secret.
+     * @param key       The keys used in encryption.
+     * @param success   Whether the decryption succeeded.
+     * @param partial   Whether the decryption ran out of budget.
+     * @param strategy  How the key was found, or the breaker which decrypted the secret.
+     * @param nanos     How long the decryption took, in nanoseconds.
+     */
+    public JournalEntry(long timestamp, long hash, int[] key, boolean success, boolean partial, String strategy,
+                        long nanos) {
+        this.timestamp = timestamp;
+        this.hash = hash;
+        this.key = key.clone();
+        this.success = success;
+        this.partial = partial;
+        this.strategy = strategy;
+        this.nanos = nanos;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * @return When the decryption ended, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return Hash of the secret, as {@link ResultJournal#hash(String)} computes it.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return A copy of the keys used in encryption.
+     */
+    public int[] getKey() {
+        return key.clone();
+    }
+
+    /**
+     * @return Whether the decryption succeeded.
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * @return Whether the decryption ran out of budget.
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * @return How the key was found, such as {@code FREQUENCY_ANALYSIS}, {@code BRUTE_FORCE}, {@code CRIB}
+     * or {@code PARTIAL}, or else the simple name of the breaker which decrypted the secret.
+     */
+    public String getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return How long the decryption took, in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d %016x %s %s%s %dus", timestamp, hash, strategy, Arrays.toString(key),
+                success ? "" : (partial ? " partial" : " failed"), nanos / 1000);
+    }
+}
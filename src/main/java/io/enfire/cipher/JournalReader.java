@@ -0,0 +1,172 @@
+package io.enfire.cipher;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class reads back the records of a {@link ResultJournal}, for offline analysis or replay.
+ *
+ * <p>The segments are mapped read-only and scanned in order, without copying them. A journal may
+ * be read while it's written: the records are read up to the last one claimed, and a record claimed
+ * but not published yet, or never published because its writer failed, is skipped.</p>
+ */
+public class JournalReader {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Loads the length of a record with acquire semantics.
+     */
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The directory of the segments.
+     */
+    private final Path dir;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code JournalReader} instance.
+     *
+     * @param dir The directory of the segments.
+     */
+    public JournalReader(Path dir) {
+        this.dir = dir;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Performs the action on every record of the journal, oldest segment first and in the order
+     * of the records within a segment.
+     *
+     * @param action The action to perform.
+     * @throws IOException if a segment can't be read or isn't a journal segment.
+     */
+    public void forEach(Consumer<JournalEntry> action) throws IOException {
+        for (Path segment : segments(dir)) {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(segment)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.limit() < ResultJournal.SEGMENT_HEADER || buffer.getInt(0) != ResultJournal.MAGIC)
+                throw new IOException("Not a journal segment: " + segment);
+            if (buffer.getInt(4) != ResultJournal.VERSION)
+                throw new IOException("Unsupported journal version " + buffer.getInt(4) + ": " + segment);
+
+            int at = ResultJournal.SEGMENT_HEADER;
+            while (at + 4 <= buffer.limit()) {
+                int size = (int) INTS.getAcquire(buffer, at);
+                // 0 ends the claims, END the segment, and no record is shorter than its header.
+                if (Math.abs(size) < ResultJournal.RECORD_HEADER)
+                    break;
+
+                if (size > 0) {
+                    action.accept(entry(buffer, at));
+                }
+                at += Math.abs(size);
+            }
+        }
+    }
+
+    /**
+     * Reads every record of the journal.
+     *
+     * @return The records, in the order of {@link JournalReader#forEach(Consumer)}.
+     * @throws IOException if a segment can't be read or isn't a journal segment.
+     */
+    public List<JournalEntry> readAll() throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        forEach(entries::add);
+        return entries;
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Lists the segments of a journal.
+     *
+     * @param dir The directory of the segments.
+     * @return The segment files, oldest first. Empty if the directory doesn't exist.
+     * @throws IOException if the directory can't be read.
+     */
+    static List<Path> segments(Path dir) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(dir))
+            return segments;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + ResultJournal.SUFFIX)) {
+            for (Path file : files) {
+                if (sequence(file) >= 0) {
+                    segments.add(file);
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(JournalReader::sequence));
+        return segments;
+    }
+
+    /**
+     * Gets the number of a segment from its file name.
+     *
+     * @param segment The segment file.
+     * @return The number, -1 if the name isn't the one of a segment.
+     */
+    static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - ResultJournal.SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Decodes a record.
+     *
+     * @param buffer The segment.
+     * @param at     Offset of the record.
+     * @return The record.
+     */
+    private static JournalEntry entry(MappedByteBuffer buffer, int at) {
+        int flags = buffer.get(at + 4);
+        int keys = buffer.get(at + 5) & 0xFF;
+        int length = buffer.getShort(at + 6) & 0xFFFF;
+        int[] key = new int[keys];
+        for (int k = 0; k < keys; k++) {
+            key[k] = buffer.getInt(at + ResultJournal.RECORD_HEADER + 4 * k);
+        }
+        byte[] name = new byte[length];
+        for (int i = 0, p = at + ResultJournal.RECORD_HEADER + 4 * keys; i < length; i++) {
+            name[i] = buffer.get(p + i);
+        }
+        return new JournalEntry(buffer.getLong(at + 8), buffer.getLong(at + 16), key,
+                (flags & ResultJournal.SUCCESS) != 0, (flags & ResultJournal.PARTIAL) != 0,
+                new String(name, StandardCharsets.UTF_8), buffer.getLong(at + 24));
+    }
+}
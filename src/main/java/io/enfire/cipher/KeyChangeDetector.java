@@ -0,0 +1,225 @@
+package io.enfire.cipher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class decrypts a secret whose key changes partway through, such as a long capture of a feed
+ * which rotates its keys.
+ *
+ * <p>Algorithm: A window of {@value #WINDOW} letters slides across the secret in one pass. The scores
+ * of the 26 keys against the English letter frequencies ({@link Breaker#logFreqs}) are kept up to date
+ * as letters enter and leave the window, at 26 additions each. Once another key has led for
+ * {@value #PERSISTENCE} windows, the key changed: the change point is placed where it best splits
+ * the letters between the old key and the new one, then moved to the closest word boundary nearby.
+ * The segments are then solved independently on {@link Breaker#executor}, each trying first the key
+ * its letters point to. Adjacent segments which decrypt with the same key are merged.</p>
+ *
+ * <p>A key must hold for a few windows to be detected. A secret shorter than two windows is a single
+ * segment.</p>
+ *
+ * @see CaesarBreakerOneKey#decryptSegments(String)
+ */
+final class KeyChangeDetector {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Number of letters of the window which slides across a secret to find where its key changes.
+     */
+    private static final int WINDOW = 100;
+    /**
+     * Number of consecutive windows a new key must lead before the key is taken as changed.
+     */
+    private static final int PERSISTENCE = WINDOW / 4;
+    /**
+     * How far a key change moves, in characters, to fall right after a whitespace.
+     */
+    private static final int SNAP = 12;
+
+    /**
+     * The breaker which reads, checks and solves the segments.
+     */
+    private final CaesarBreakerOneKey breaker;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code KeyChangeDetector} instance.
+     *
+     * @param breaker The breaker which reads, checks and solves the segments.
+     */
+    KeyChangeDetector(CaesarBreakerOneKey breaker) {
+        this.breaker = breaker;
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Decrypts a secret whose key changes partway through.
+     *
+     * @param secret A secret file path or a secret text.
+     * @return The segments, in order, covering the whole secret. A segment which can't be decrypted
+     * has the key -1 and an empty message. Empty if the secret is blank.
+     */
+    List<KeySegment> decryptSegments(String secret) {
+        List<KeySegment> segments = new ArrayList<>();
+        if (secret.isBlank())
+            return segments;
+
+        String text = breaker.read(secret);
+        int[] bounds = changePoints(text);
+        List<CompletableFuture<DecryptionResult>> results = new ArrayList<>();
+        for (int s = 0; s + 1 < bounds.length; s++) {
+            String part = text.substring(bounds[s], bounds[s + 1]);
+            results.add(CompletableFuture.supplyAsync(() -> {
+                int guess = CaesarBreakerOneKey.best(breaker.profile.scoreKeys(breaker.count(part)));
+                DecryptionResult r = breaker.confirm(part, guess);
+                return (r != null) ? r : breaker.solveText(part, Breaker.NEVER);
+            }, breaker.executor));
+        }
+
+        // The segments are views of the whole secret, so that the parts solved can be let go.
+        int n = breaker.alphabet.length();
+        for (int s = 0; s < results.size(); s++) {
+            DecryptionResult r = results.get(s).join();
+            int start = bounds[s];
+            int end = bounds[s + 1];
+            if (!r.canDecrypt()) {
+                segments.add(new KeySegment(r.getKey(), "", start, end));
+                continue;
+            }
+            if (!segments.isEmpty()) {
+                KeySegment last = segments.get(segments.size() - 1);
+                if (last.canDecrypt() && last.getKey()[0] == r.getKey()[0]) {
+                    segments.remove(segments.size() - 1);
+                    start = last.getStart();
+                }
+            }
+            int key = (n - r.getKey()[0]) % n;
+            segments.add(new KeySegment(r.getKey(), Plaintext.of(text, start, end, CaesarCipher.of(key)), start, end));
+        }
+        return segments;
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Finds where the key of a secret changes.
+     *
+     * @param text The secret text.
+     * @return The indexes of the secret where the segments start, then the length of the secret.
+     */
+    private int[] changePoints(String text) {
+        int length = text.length();
+        int n = breaker.alphabet.length();
+        int[] at = new int[length];
+        int[] letters = new int[length];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                at[count] = i;
+                letters[count++] = c - 'a';
+            } else if (c >= 'A' && c <= 'Z') {
+                at[count] = i;
+                letters[count++] = c - 'A';
+            }
+        }
+
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        double[] scores = new double[n];
+        int current = -1;
+        int next = -1;
+        int run = 0;
+        int last = 0;
+        for (int j = 0; j < count && count >= 2 * WINDOW; j++) {
+            for (int k = 0; k < n; k++) {
+                scores[k] += breaker.logFreqs[(letters[j] + k) % n];
+                if (j >= WINDOW) {
+                    scores[k] -= breaker.logFreqs[(letters[j - WINDOW] + k) % n];
+                }
+            }
+            if (j < WINDOW - 1)
+                continue;
+
+            int key = CaesarBreakerOneKey.best(scores);
+            if (current == -1 || key == current) {
+                current = key;
+                run = 0;
+                continue;
+            }
+            if (key != next) {
+                next = key;
+                run = 0;
+            }
+            if (++run < PERSISTENCE)
+                continue;
+
+            // The window in which the new key first led holds both keys.
+            int hi = j - PERSISTENCE + 1;
+            int split = split(letters, Math.max(last, hi - WINDOW + 1), hi + 1, current, next);
+            int bound = snap(text, at[split], bounds.get(bounds.size() - 1));
+            if (bound > bounds.get(bounds.size() - 1)) {
+                bounds.add(bound);
+            }
+            last = split;
+            current = next;
+            run = 0;
+        }
+        bounds.add(length);
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Finds the best point to split letters between two keys.
+     *
+     * @param letters The letters, from 0 to 25.
+     * @param from    Index of the first letter which may start the second key.
+     * @param to      Index of the letter which ends the search, exclusive.
+     * @param before  The decryption key before the split.
+     * @param after   The decryption key after the split.
+     * @return The index of the first letter of the second key, {@code to} if none.
+     */
+    private int split(int[] letters, int from, int to, int before, int after) {
+        int n = breaker.alphabet.length();
+        double gain = 0;
+        double best = 0;
+        int split = to;
+        for (int x = to - 1; x >= from; x--) {
+            gain += breaker.logFreqs[(letters[x] + after) % n] - breaker.logFreqs[(letters[x] + before) % n];
+            if (gain > best) {
+                best = gain;
+                split = x;
+            }
+        }
+        return split;
+    }
+
+    /**
+     * Moves a change point of the key right after the closest whitespace nearby, if any.
+     *
+     * @param text The secret text.
+     * @param i    The change point.
+     * @param from The previous change point. The change point doesn't move before it.
+     * @return The moved change point.
+     */
+    private static int snap(String text, int i, int from) {
+        for (int d = 0; d <= SNAP; d++) {
+            if (i - d > from && Character.isWhitespace(text.charAt(i - d - 1)))
+                return i - d;
+            if (i + d < text.length() && Character.isWhitespace(text.charAt(i + d - 1)))
+                return i + d;
+        }
+        return i;
+    }
+}
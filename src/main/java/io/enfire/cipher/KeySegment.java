@@ -0,0 +1,66 @@
+package io.enfire.cipher;
+
+/**
+ * This class contains the decryption of one stretch of a secret whose key changes partway through.
+ *
+ * @see CaesarBreakerOneKey#decryptSegments(String)
+ */
+public class KeySegment extends DecryptionResult {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Index of the secret where the segment starts, inclusive.
+     */
+    private final int start;
+    /**
+     * Index of the secret where the segment ends, exclusive.
+     */
+    private final int end;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code KeySegment} instance.
+     *
+     * @param key       The keys used in encryption of the segment.
+     * @param decrypted The decrypted segment. Empty means the decryption of the segment failed.
+     * @param start     Index of the secret where the segment starts, inclusive.
+     * @param end       Index of the secret where the segment ends, exclusive.
+     */
+    public KeySegment(int[] key, CharSequence decrypted, int start, int end) {
+        super(key, decrypted);
+        this.start = start;
+        this.end = end;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Gets the index of the secret where the segment starts.
+     *
+     * @return The start index, inclusive.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the index of the secret where the segment ends.
+     *
+     * @return The end index, exclusive.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ") " + super.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package io.enfire.cipher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class decrypts a secret whose language is one of several, finding the language along with the key.
+ *
+ * <p>Algorithm: Count the letters of the secret once. Each language ranks the 26 keys by the
+ * log-likelihood of those counts against its own letter frequencies, and keeps its
+ * {@value #LANGUAGE_KEYS} most likely keys, or all of them if the secret has fewer than
+ * {@value #LANGUAGE_LETTERS} letters. Each key kept by any language is decrypted once. Then
+ * the languages check their keys with their own dictionaries in parallel, on {@link Breaker#executor}.
+ * The key and language which find the most words win, among those the language accepts
+ * ({@link LanguageProfile#accepts(long, int, int)}). Ties go to the language listed first.</p>
+ *
+ * <p>The words are told apart by spaces: unspaced secrets aren't supported.</p>
+ *
+ * @see CaesarBreakerOneKey#identify(String, List)
+ */
+final class LanguageIdentifier {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Number of most likely keys of each language checked with its dictionary.
+     */
+    private static final int LANGUAGE_KEYS = 3;
+    /**
+     * Fewer letters than this, and the letter counts can't rank the keys: all of them are checked.
+     */
+    private static final int LANGUAGE_LETTERS = 100;
+
+    /**
+     * The breaker which reads and tokenizes the secret.
+     */
+    private final CaesarBreakerOneKey breaker;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code LanguageIdentifier} instance.
+     *
+     * @param breaker The breaker which reads and tokenizes the secret.
+     */
+    LanguageIdentifier(CaesarBreakerOneKey breaker) {
+        this.breaker = breaker;
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Decrypts a secret whose language is one of several.
+     *
+     * @param secret    A secret file path or a secret text.
+     * @param languages The candidate languages, the most expected first.
+     * @return The decryption result with one key and the language. A failure if no language accepts
+     * any candidate.
+     */
+    LanguageResult identify(String secret, List<LanguageProfile> languages) {
+        LanguageResult failure = new LanguageResult(new int[]{-1}, "", null);
+        if (secret.isBlank() || languages.isEmpty())
+            return failure;
+
+        String original = breaker.read(secret);
+        char[] text = original.toCharArray();
+        int length = text.length;
+        int n = breaker.alphabet.length();
+        int[] counter = breaker.count(text, 0, 1);
+        int letters = 0;
+        for (int c : counter) {
+            letters += c;
+        }
+
+        // One histogram ranks the keys of every language. A key is decrypted once for all of them.
+        int depth = (letters < LANGUAGE_LETTERS) ? n : LANGUAGE_KEYS;
+        Integer[][] ranked = new Integer[languages.size()][];
+        char[][] candidates = new char[n][];
+        for (int l = 0; l < ranked.length; l++) {
+            double[] scores = languages.get(l).scoreKeys(counter);
+            ranked[l] = new Integer[n];
+            for (int k = 0; k < n; k++) {
+                ranked[l][k] = k;
+            }
+            Arrays.sort(ranked[l], Comparator.comparingDouble(k -> -scores[k]));
+            ranked[l] = Arrays.copyOf(ranked[l], depth);
+            for (int k : ranked[l]) {
+                if (candidates[k] == null) {
+                    candidates[k] = new char[length];
+                    CaesarCipher.of(k).encrypt(text, candidates[k], 0, 1);
+                }
+            }
+        }
+
+        int[] words = breaker.tokenize(text);
+        List<CompletableFuture<long[]>> matches = new ArrayList<>();
+        for (int l = 0; l < ranked.length; l++) {
+            LanguageProfile language = languages.get(l);
+            Integer[] keys = ranked[l];
+            matches.add(CompletableFuture.supplyAsync(() -> {
+                int threshold = breaker.calcThreshold(text, length, language);
+                long[] best = {-1, -1};
+                for (int k : keys) {
+                    long hits = language.hits(candidates[k], words);
+                    if (hits > best[1] && language.accepts(hits, words.length / 2, threshold)) {
+                        best[0] = k;
+                        best[1] = hits;
+                    }
+                }
+                return best;
+            }, breaker.executor));
+        }
+
+        int winner = -1;
+        long[] best = {-1, -1};
+        for (int l = 0; l < matches.size(); l++) {
+            long[] match = matches.get(l).join();
+            if (match[1] > best[1]) {
+                winner = l;
+                best = match;
+            }
+        }
+        if (winner == -1)
+            return failure;
+
+        int key = (int) best[0];
+        return new LanguageResult(new int[]{breaker.getKey(key)}, Plaintext.of(original, CaesarCipher.of(key)),
+                languages.get(winner));
+    }
+}
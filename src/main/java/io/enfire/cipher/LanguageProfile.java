@@ -0,0 +1,212 @@
+package io.enfire.cipher;
+
+import java.util.Arrays;
+
+/**
+ * This class bundles what a breaker needs to know about a language: its letter frequencies, its words
+ * and how many unknown words a candidate in that language may have.
+ *
+ * <p>Only the 26 letters of the English alphabet are counted and shifted, so the profile fits the
+ * languages written with them. Letters with diacritics are left as they are by the ciphers; a word
+ * holding one is simply not found in the dictionary.</p>
+ *
+ * @see CaesarBreakerOneKey#identify(String, java.util.List)
+ */
+public class LanguageProfile {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Frequencies of the 26 English letters in alphabetical order, in percent. Cited from
+     * <a href='http://pi.math.cornell.edu/~mec/2003-2004/cryptography/subs/frequencies.html'>cornell.edu</a>
+     */
+    static final double[] ENGLISH = {
+            8.12, 1.49, 2.71, 4.32, 12.02, 2.30, 2.03, 5.92, 7.31, 0.10, 0.69, 3.98, 2.61,
+            6.95, 7.68, 1.82, 0.11, 6.02, 6.28, 9.10, 2.88, 1.11, 2.09, 0.17, 2.11, 0.07
+    };
+    /**
+     * Frequency given to a letter the table says never occurs, in percent, so that its logarithm is finite.
+     */
+    private static final double RARE = 0.001;
+
+    /**
+     * Name of the language.
+     */
+    private final String name;
+    /**
+     * Frequencies of the 26 letters in alphabetical order, in percent.
+     */
+    private final double[] freqs;
+    /**
+     * Natural logarithms of {@link #freqs}.
+     */
+    private final double[] logFreqs;
+    /**
+     * Words of the language.
+     */
+    private final Dictionary dictionary;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code LanguageProfile} instance.
+     *
+     * @param name       Name of the language.
+     * @param freqs      Frequencies of the 26 letters in alphabetical order, in percent or in any other unit.
+     * @param dictionary Words of the language.
+     * @throws IllegalArgumentException if there aren't 26 frequencies.
+     */
+    public LanguageProfile(String name, double[] freqs, Dictionary dictionary) {
+        if (freqs.length != 26)
+            throw new IllegalArgumentException("Expected 26 letter frequencies: " + freqs.length);
+
+        this.name = name;
+        this.freqs = freqs.clone();
+        this.dictionary = dictionary;
+        logFreqs = new double[freqs.length];
+        for (int i = 0; i < freqs.length; i++) {
+            logFreqs[i] = Math.log(Math.max(freqs[i], RARE));
+        }
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Creates the profile of English, the language of the breakers.
+     *
+     * @param dictionary English words.
+     * @return The profile.
+     */
+    public static LanguageProfile english(Dictionary dictionary) {
+        return new LanguageProfile("English", ENGLISH, dictionary);
+    }
+
+    /**
+     * @return Name of the language.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return A copy of the frequencies of the 26 letters in alphabetical order.
+     */
+    public double[] getFreqs() {
+        return freqs.clone();
+    }
+
+    /**
+     * @return Words of the language.
+     */
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Calculates how many words of a candidate may be missing from the dictionary before the candidate
+     * isn't taken for the language. Override it to change the policy.
+     *
+     * <p>The longer the text, the smaller the share of unknown words it may have: short texts hold
+     * proportionally more names, abbreviations and typos.</p>
+     *
+     * @param safeWords Number of words of at least 4 characters of the text.
+     * @return The threshold.
+     */
+    public int threshold(int safeWords) {
+        double percent;
+        if (safeWords <= 5) {
+            percent = .9;
+        } else if (safeWords <= 30) {
+            percent = .5;
+        } else if (safeWords <= 80) {
+            percent = .4;
+        } else if (safeWords <= 130) {
+            percent = .3;
+        } else {
+            percent = .2;
+        }
+        return (int) ((double) safeWords * percent);
+    }
+
+    /**
+     * Checks if a candidate is in the language, knowing how many of its words are in the dictionary.
+     * Override it along with {@link LanguageProfile#threshold(int)} to change the policy.
+     *
+     * @param hits      Number of words of the candidate found in the dictionary.
+     * @param words     Number of words of the candidate.
+     * @param threshold The threshold of the candidate.
+     * @return {@code boolean} validation result.
+     */
+    public boolean accepts(long hits, int words, int threshold) {
+        return hits > 0 && words - hits < Math.max(threshold, 1);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Scores the 26 Caesar decryption keys of a text by the log-likelihood of the letters they decrypt to.
+     *
+     * @param counter The letter counts of the text.
+     * @return The score of each decryption key, the higher the more likely.
+     */
+    double[] scoreKeys(int[] counter) {
+        int n = logFreqs.length;
+        double[] scores = new double[n];
+        for (int k = 0; k < n; k++) {
+            for (int c = 0; c < n; c++) {
+                if (counter[c] > 0) {
+                    scores[k] += counter[c] * logFreqs[(c + k) % n];
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Counts the words of a text found in the dictionary.
+     *
+     * @param text  The text.
+     * @param words The words of the text, as {@code [start, end)} index pairs.
+     * @return The number of words found.
+     */
+    long hits(char[] text, int[] words) {
+        long hits = 0;
+        for (int i = 0; i < words.length; i += 2) {
+            if (dictionary.lookup(text, words[i], words[i + 1])) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Checks if the profile is the one of English, whose letter pairs the dictionary of the breakers tells.
+     *
+     * @return {@code true} if the letter frequencies are the English ones.
+     * @see Breaker#hasRareBigrams(char[], int)
+     */
+    boolean isEnglish() {
+        return Arrays.equals(freqs, ENGLISH);
+    }
+
+    /**
+     * Gets the natural logarithms of the letter frequencies.
+     *
+     * @return The logarithms, not to be modified.
+     */
+    double[] logFreqs() {
+        return logFreqs;
+    }
+}
@@ -0,0 +1,61 @@
+package io.enfire.cipher;
+
+/**
+ * This class contains the outcome of a decryption whose language had to be found as well as the key.
+ *
+ * @see CaesarBreakerOneKey#identify(String, java.util.List)
+ */
+public class LanguageResult extends DecryptionResult {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * The language of the message, {@code null} if the decryption failed.
+     */
+    private final LanguageProfile language;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code LanguageResult} instance.
+     *
+     * @param key       The keys used in encryption.
+     * @param decrypted The decrypted message.
+     * @param language  The language of the message, {@code null} if the decryption failed.
+     */
+    public LanguageResult(int[] key, CharSequence decrypted, LanguageProfile language) {
+        super(key, decrypted);
+        this.language = language;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Gets the language of the message.
+     *
+     * @return The profile of the language, {@code null} if the decryption failed.
+     */
+    public LanguageProfile getLanguage() {
+        return language;
+    }
+
+    /**
+     * Checks if the decryption is a success: a valid key, a message and a language.
+     *
+     * @return {@code boolean} decryption result.
+     */
+    @Override
+    public boolean canDecrypt() {
+        return language != null && super.canDecrypt();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " | " + language;
+    }
+}
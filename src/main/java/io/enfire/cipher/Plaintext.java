@@ -0,0 +1,195 @@
+package io.enfire.cipher;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * This class is a decrypted message which is never stored: each character is decrypted from the secret
+ * when it's read, through the substitution tables of the cipher.
+ *
+ * <p>The breakers return it in their results, so that a result holds no second copy of a large secret.
+ * Reading a few characters, such as the first line, costs that many lookups. {@link Plaintext#writeTo(Writer)}
+ * decrypts the message chunk by chunk into a writer, and {@link Plaintext#toString()} builds a copy of
+ * the message, anew on every call.</p>
+ *
+ * <p>Instances are immutable, but they hold on to the secret.</p>
+ *
+ * @see DecryptionResult#getPlaintext()
+ */
+public final class Plaintext implements CharSequence {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Number of characters decrypted at once by {@link Plaintext#writeTo(Writer)}.
+     */
+    private static final int CHUNK = 8192;
+
+    /**
+     * The secret.
+     */
+    private final String secret;
+    /**
+     * Index of the secret the message starts at.
+     */
+    private final int start;
+    /**
+     * Index of the secret the message ends at (exclusive).
+     */
+    private final int end;
+    /**
+     * Decrypts one character of the secret.
+     */
+    private final Mapping mapping;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code Plaintext} instance.
+     *
+     * @param secret  The secret.
+     * @param start   Index of the secret the message starts at.
+     * @param end     Index of the secret the message ends at (exclusive).
+     * @param mapping Decrypts one character of the secret.
+     * @throws IndexOutOfBoundsException if the range isn't within the secret.
+     */
+    private Plaintext(String secret, int start, int end, Mapping mapping) {
+        if (start < 0 || end > secret.length() || start > end)
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length "
+                    + secret.length());
+
+        this.secret = secret;
+        this.start = start;
+        this.end = end;
+        this.mapping = mapping;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length())
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length());
+
+        return mapping.map(secret.charAt(start + index), start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length() || start > end)
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length "
+                    + length());
+
+        return new Plaintext(secret, this.start + start, this.start + end, mapping);
+    }
+
+    /**
+     * Writes the message to a writer, decrypting it chunk by chunk.
+     *
+     * @param out The writer. It's neither flushed nor closed.
+     * @throws IOException if the writer fails.
+     */
+    public void writeTo(Writer out) throws IOException {
+        char[] chunk = new char[Math.min(CHUNK, length())];
+        for (int from = start; from < end; from += chunk.length) {
+            int to = Math.min(from + chunk.length, end);
+            decrypt(from, to, chunk);
+            out.write(chunk, 0, to - from);
+        }
+    }
+
+    /**
+     * Builds a copy of the message.
+     *
+     * @return The decrypted message.
+     */
+    @Override
+    public String toString() {
+        char[] chars = new char[length()];
+        decrypt(start, end, chars);
+        return new String(chars);
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Creates the decryption of a whole secret.
+     *
+     * @param secret The secret.
+     * @param cipher The decryption key: one or two keys, the first one for the even positions.
+     * @return The message.
+     */
+    static Plaintext of(String secret, CaesarCipher cipher) {
+        return of(secret, 0, secret.length(), cipher);
+    }
+
+    /**
+     * Creates the decryption of a part of a secret.
+     *
+     * @param secret The secret.
+     * @param start  Index of the secret the message starts at.
+     * @param end    Index of the secret the message ends at (exclusive).
+     * @param cipher The decryption key: one or two keys, the first one for the even positions of the secret.
+     * @return The message.
+     * @throws IndexOutOfBoundsException if the range isn't within the secret.
+     */
+    static Plaintext of(String secret, int start, int end, CaesarCipher cipher) {
+        return new Plaintext(secret, start, end, cipher::encrypt);
+    }
+
+    /**
+     * Creates the decryption of a whole secret.
+     *
+     * @param secret The secret.
+     * @param cipher The decryption key.
+     * @return The message.
+     */
+    static Plaintext of(String secret, AffineCipher cipher) {
+        return new Plaintext(secret, 0, secret.length(), (c, index) -> cipher.encrypt(c));
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Decrypts a range of the secret.
+     *
+     * @param from Index of the secret to start at.
+     * @param to   Index of the secret to end at (exclusive).
+     * @param dst  The array to write the decrypted characters to, from its start.
+     */
+    private void decrypt(int from, int to, char[] dst) {
+        secret.getChars(from, to, dst, 0);
+        for (int i = from; i < to; i++) {
+            dst[i - from] = mapping.map(dst[i - from], i);
+        }
+    }
+
+    /**
+     * Decrypts one character of a secret.
+     */
+    @FunctionalInterface
+    private interface Mapping {
+        /**
+         * Decrypts a character.
+         *
+         * @param c     The character.
+         * @param index Index of the character in the secret.
+         * @return The decrypted character.
+         */
+        char map(char c, int index);
+    }
+}
@@ -0,0 +1,193 @@
+package io.enfire.cipher;
+
+import java.util.List;
+
+import static java.lang.System.Logger.Level.DEBUG;
+
+/**
+ * This class picks the strategy of a Caesar breaker from cheap statistics of the secret: how many
+ * letters it has, how peaked their histogram is, how many words and safe words it has.
+ *
+ * <p>Each plan is priced in character operations: decrypting a candidate reads the whole secret,
+ * and checking a wrong one looks up its words until it misses {@link LanguageProfile#threshold(int)}
+ * of them. Brute force checks half of the keys on average. Frequency analysis checks first the key
+ * which maps the most frequent letter to the most frequent letter of the language: the more letters
+ * and the more peaked their histogram, the likelier it's right. The letters are counted for the plan
+ * anyway, so both plans cost the same up front.</p>
+ *
+ * <p>@implNote The chance that the most frequent letter of the secret is the most frequent letter
+ * of the language is the normal approximation of the chance that the first letter of the language
+ * outnumbers the second one in a sample of that many letters. The approximation only holds once the
+ * first letter is expected at least 5 times: below that, and when the most frequent letter is tied,
+ * the letters are taken as no evidence. The chance is then scaled down the flatter the histogram is,
+ * from full at the peak of the language to none at a uniform histogram.</p>
+ *
+ * @see CaesarBreakerOneKey
+ * @see CaesarBreakerTwoKey
+ */
+final class Planner {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Writes which plan was chosen, at {@code DEBUG} level.
+     */
+    private static final System.Logger LOGGER = System.getLogger(Planner.class.getName());
+    /**
+     * Fewest expected occurrences of the first letter of the language for the normal approximation.
+     */
+    private static final int MIN_OCCURRENCES = 5;
+    /**
+     * Factor of the logistic approximation of the standard normal distribution.
+     */
+    private static final double LOGISTIC = 1.702;
+
+    /**
+     * Number of keys of the cipher, used alternately.
+     */
+    private final int keys;
+    /**
+     * The language of the secret.
+     */
+    private final LanguageProfile language;
+    /**
+     * Share of the first letter of the language.
+     */
+    private final double first;
+    /**
+     * Share of the second letter of the language.
+     */
+    private final double second;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code Planner} instance.
+     *
+     * @param keys     Number of keys of the cipher, used alternately: 1 or 2.
+     * @param language The language of the secret.
+     */
+    Planner(int keys, LanguageProfile language) {
+        this.keys = keys;
+        this.language = language;
+
+        double[] freqs = language.getFreqs();
+        double total = 0;
+        double max = 0;
+        double next = 0;
+        for (double freq : freqs) {
+            total += freq;
+            if (freq > max) {
+                next = max;
+                max = freq;
+            } else if (freq > next) {
+                next = freq;
+            }
+        }
+        first = max / total;
+        second = next / total;
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Plans the decryption of a secret.
+     *
+     * @param counters  The letter counts of the secret, one per key: the even then the odd positions
+     *                  for two keys.
+     * @param length    Length of the secret.
+     * @param words     Number of words of the secret, or its estimate if the secret is unspaced.
+     * @param safeWords Number of words of at least 4 characters of the secret.
+     * @return The plans to carry out in order, until one finds the key. A plan which can't miss
+     * the key isn't followed by any other.
+     */
+    List<Plan> plan(int[][] counters, int length, int words, int safeWords) {
+        // Both plans check the same candidates, only in another order and number.
+        int letters = 0;
+        for (int[] counter : counters) {
+            for (int count : counter) {
+                letters += count;
+            }
+        }
+        int lookups = Math.min(Math.max(words, 1), Math.max(language.threshold(safeWords), 1));
+        double candidate = length + lookups * Math.max((double) letters / Math.max(words, 1), 1);
+
+        double bruteForce = (Math.pow(26, keys) + 1) / 2 * candidate;
+        double frequencyAnalysis;
+        List<Plan> plans;
+        if (keys == 1) {
+            // Frequency analysis goes through all the keys too, the likely one first.
+            double p = chance(counters[0]);
+            frequencyAnalysis = (p + (1 - p) * 27 / 2) * candidate;
+            plans = frequencyAnalysis < bruteForce ? List.of(Plan.FREQUENCY_ANALYSIS) : List.of(Plan.BRUTE_FORCE);
+        } else {
+            // It only finds the keys if both halves guess the same letter, then brute force takes over.
+            double p = 1;
+            for (int[] counter : counters) {
+                p *= chance(counter);
+            }
+            frequencyAnalysis = (p + (1 - p) * 26) * candidate + (1 - p) * bruteForce;
+            plans = frequencyAnalysis < bruteForce
+                    ? List.of(Plan.FREQUENCY_ANALYSIS, Plan.BRUTE_FORCE) : List.of(Plan.BRUTE_FORCE);
+        }
+
+        int total = letters;
+        double fa = frequencyAnalysis;
+        LOGGER.log(DEBUG, () -> String.format("%s for %d letters, %d words, %d safe words: " +
+                        "brute force %.0f, frequency analysis %.0f", plans, total, words, safeWords, bruteForce, fa));
+        return plans;
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Estimates the chance that the most frequent letter of the secret is the most frequent letter
+     * of the language.
+     *
+     * @param counter The letter counts of the secret.
+     * @return The chance, 0 if the letters are no evidence.
+     */
+    private double chance(int[] counter) {
+        int letters = 0;
+        int max = 0;
+        int ties = 0;
+        for (int count : counter) {
+            letters += count;
+            if (count > max) {
+                max = count;
+                ties = 1;
+            } else if (count == max) {
+                ties++;
+            }
+        }
+        if (letters * first < MIN_OCCURRENCES || ties > 1)
+            return 0;
+
+        double z = (first - second) * letters / Math.sqrt((first + second) * letters);
+        double normal = 1 / (1 + Math.exp(-LOGISTIC * z));
+        double uniform = 1.0 / counter.length;
+        double peak = ((double) max / letters - uniform) / (first - uniform);
+        return normal * Math.min(Math.max(peak, 0), 1);
+    }
+
+    /**
+     * The strategies of the Caesar breakers.
+     */
+    enum Plan {
+        /**
+         * Tries all the keys in order.
+         */
+        BRUTE_FORCE,
+        /**
+         * Tries the keys which map the most frequent letter to the frequent letters of the language.
+         */
+        FREQUENCY_ANALYSIS
+    }
+}
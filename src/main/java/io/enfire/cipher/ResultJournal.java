@@ -0,0 +1,339 @@
+package io.enfire.cipher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class records the outcome of decryptions in an append-only binary journal, for audit and replay.
+ *
+ * <p>The journal is a directory of segments: memory-mapped files of a fixed size, numbered in order.
+ * Each record holds the hash of the secret, the keys, whether the decryption succeeded or ran out
+ * of budget, how the key was found, the time it took and when it ended. {@link JournalReader} reads them back.</p>
+ *
+ * <p>@implSpec Any number of threads append at once without locking. A writer claims the bytes
+ * of its record with a single atomic add on the tail of the current segment, marks them as claimed
+ * with the negated length, writes the record into the mapping, then publishes its length with
+ * a release store: a reader which sees the length sees the whole record, and a reader which sees
+ * the mark steps over a record never published, such as the one of a writer which failed. The writer whose claim crosses the end of the segment marks the end,
+ * maps the next segment and writes out the full one, while the writers which claimed after it wait
+ * for the switch. The records of the current segment are left to the operating system to write out,
+ * unless {@link ResultJournal#force()} is called.</p>
+ *
+ * <p>@implNote Segment format, little-endian: a 16-byte header ({@link #MAGIC}, {@link #VERSION},
+ * the segment number), then 8-byte aligned records. A record starts with its length, 0 for bytes
+ * never claimed, the negated length for a record claimed but not published and -1 for the end of
+ * the segment, followed by the flags, the number of keys,
+ * the length of the strategy, the timestamp, the hash and the duration, then the keys and
+ * the strategy in UTF-8.</p>
+ */
+public class ResultJournal implements Closeable {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * First 4 bytes of every segment: "EJNL".
+     */
+    static final int MAGIC = 0x4C4E4A45;
+    /**
+     * Version of the segment format.
+     */
+    static final int VERSION = 1;
+    /**
+     * Size of the header of a segment.
+     */
+    static final int SEGMENT_HEADER = 16;
+    /**
+     * Size of the fixed part of a record.
+     */
+    static final int RECORD_HEADER = 32;
+    /**
+     * Length of the record which marks the end of a segment.
+     */
+    static final int END = -1;
+    /**
+     * Flag of a successful decryption.
+     */
+    static final int SUCCESS = 1;
+    /**
+     * Flag of a decryption which ran out of budget.
+     */
+    static final int PARTIAL = 2;
+    /**
+     * Suffix of the segment files.
+     */
+    static final String SUFFIX = ".journal";
+    /**
+     * Hash of the empty secret, which every hash starts from.
+     */
+    static final long HASH_BASIS = 0xCBF29CE484222325L;
+
+    /**
+     * Default size of a segment: 64 MiB.
+     */
+    private static final int SEGMENT_SIZE = 64 << 20;
+    /**
+     * Largest size of a segment, so that the claims of waiting writers can't overflow.
+     */
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+    /**
+     * Factor of each character of the hash of a secret.
+     */
+    private static final long HASH_PRIME = 0x100000001B3L;
+    /**
+     * Stores the length of a record with release semantics.
+     */
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The directory of the segments.
+     */
+    private final Path dir;
+    /**
+     * Size of each segment.
+     */
+    private final int segmentSize;
+    /**
+     * The segment being appended to.
+     */
+    private volatile Segment current;
+    /**
+     * Why the next segment couldn't be mapped, if it couldn't.
+     */
+    private volatile IOException failure;
+    /**
+     * Whether the journal is closed.
+     */
+    private volatile boolean closed;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code ResultJournal} instance with 64 MiB segments.
+     *
+     * @param dir The directory of the segments. It's created if it doesn't exist.
+     * @throws IOException if the first segment can't be created.
+     */
+    public ResultJournal(Path dir) throws IOException {
+        this(dir, SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new {@code ResultJournal} instance.
+     *
+     * <p>The journal never appends to the segments of another instance: it starts a new segment after
+     * the last one of the directory.</p>
+     *
+     * @param dir         The directory of the segments. It's created if it doesn't exist.
+     * @param segmentSize Size of each segment, in bytes.
+     * @throws IOException              if the first segment can't be created.
+     * @throws IllegalArgumentException if the size is smaller than a record or larger than 1 GiB.
+     */
+    public ResultJournal(Path dir, int segmentSize) throws IOException {
+        if (segmentSize < SEGMENT_HEADER + RECORD_HEADER || segmentSize > MAX_SEGMENT_SIZE)
+            throw new IllegalArgumentException("Segment size out of bounds: " + segmentSize);
+
+        this.dir = Files.createDirectories(dir);
+        this.segmentSize = segmentSize;
+        long last = -1;
+        for (Path segment : JournalReader.segments(dir)) {
+            last = Math.max(last, JournalReader.sequence(segment));
+        }
+        current = new Segment(dir, last + 1, segmentSize);
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Records the outcome of a decryption.
+     *
+     * @param secret   The secret, as given to the breaker. Only its hash is recorded.
+     * @param result   The decryption result.
+     * @param strategy How the key was found, or the breaker which decrypted the secret.
+     * @param nanos    How long the decryption took, in nanoseconds.
+     * @throws UncheckedIOException  if the next segment can't be created.
+     * @throws IllegalStateException if the journal is closed.
+     */
+    public void append(String secret, DecryptionResult result, String strategy, long nanos) {
+        int flags = (result.canDecrypt() ? SUCCESS : 0) | (result.isPartial() ? PARTIAL : 0);
+        append(hash(secret), result.getKey(), flags, strategy, System.currentTimeMillis(), nanos);
+    }
+
+    /**
+     * Hashes a secret the way the journal records it (64-bit FNV-1a of its characters). The hash tells
+     * which records are about a secret at hand. It doesn't hide the secret from a determined reader.
+     *
+     * @param secret The secret.
+     * @return The hash.
+     */
+    public static long hash(String secret) {
+        long hash = HASH_BASIS;
+        for (int i = 0; i < secret.length(); i++) {
+            hash ^= secret.charAt(i);
+            hash *= HASH_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Writes the records of the current segment to the storage device. Full segments are written
+     * when the journal moves on to the next one.
+     */
+    public void force() {
+        current.buffer.force();
+    }
+
+    /**
+     * Writes the records to the storage device and stops the journal. Records can't be appended anymore.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        force();
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Goes on hashing a secret read in parts, such as a stream.
+     *
+     * @param hash  The hash of the characters before, {@link #HASH_BASIS} at the start.
+     * @param chars The next characters.
+     * @param from  Index of the first character.
+     * @param to    Index of the character to stop at (exclusive).
+     * @return The hash of all the characters so far, as {@link ResultJournal#hash(String)} computes it.
+     */
+    static long hash(long hash, char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            hash ^= chars[i];
+            hash *= HASH_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Records the outcome of a decryption.
+     *
+     * @param hash      Hash of the secret.
+     * @param key       The keys used in encryption.
+     * @param flags     {@link #SUCCESS} and {@link #PARTIAL}.
+     * @param strategy  How the key was found, or the breaker which decrypted the secret.
+     * @param timestamp When the decryption ended, in milliseconds since the epoch.
+     * @param nanos     How long the decryption took, in nanoseconds.
+     */
+    void append(long hash, int[] key, int flags, String strategy, long timestamp, long nanos) {
+        if (closed)
+            throw new IllegalStateException("Journal is closed: " + dir);
+
+        byte[] name = strategy.getBytes(StandardCharsets.UTF_8);
+        int keys = Math.min(key.length, 0xFF);
+        int length = Math.min(name.length, 0xFFFF);
+        int size = (RECORD_HEADER + 4 * keys + length + 7) & ~7;
+        if (size > segmentSize - SEGMENT_HEADER)
+            throw new IllegalArgumentException("Record larger than a segment: " + size);
+
+        while (true) {
+            Segment segment = current;
+            int at = segment.tail.getAndAdd(size);
+            if (at + size <= segmentSize) {
+                MappedByteBuffer buffer = segment.buffer;
+                // Should the writer fail before publishing, the readers still step over the record.
+                buffer.putInt(at, -size);
+                buffer.put(at + 4, (byte) flags);
+                buffer.put(at + 5, (byte) keys);
+                buffer.putShort(at + 6, (short) length);
+                buffer.putLong(at + 8, timestamp);
+                buffer.putLong(at + 16, hash);
+                buffer.putLong(at + 24, nanos);
+                for (int k = 0; k < keys; k++) {
+                    buffer.putInt(at + RECORD_HEADER + 4 * k, key[k]);
+                }
+                for (int i = 0, p = at + RECORD_HEADER + 4 * keys; i < length; i++) {
+                    buffer.put(p + i, name[i]);
+                }
+                INTS.setRelease(buffer, at, size);
+                return;
+            }
+
+            if (at <= segmentSize) {
+                // The one claim which crosses the end of the segment moves the journal on.
+                if (at + 4 <= segmentSize) {
+                    INTS.setRelease(segment.buffer, at, END);
+                }
+                roll(segment);
+            }
+            while (current == segment) {
+                if (failure != null)
+                    throw new UncheckedIOException(failure);
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Maps the segment after a full one.
+     *
+     * @param full The full segment.
+     */
+    private void roll(Segment full) {
+        try {
+            current = new Segment(dir, full.sequence + 1, segmentSize);
+            full.buffer.force();
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * One memory-mapped file of the journal.
+     */
+    private static final class Segment {
+        /**
+         * Number of the segment in the journal.
+         */
+        private final long sequence;
+        /**
+         * The mapping of the file.
+         */
+        private final MappedByteBuffer buffer;
+        /**
+         * Offset of the next claim.
+         */
+        private final AtomicInteger tail = new AtomicInteger(SEGMENT_HEADER);
+
+        private Segment(Path dir, long sequence, int size) throws IOException {
+            this.sequence = sequence;
+            Path file = dir.resolve(String.format("%019d%s", sequence, SUFFIX));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(8, sequence);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package io.enfire.cipher;
+
+/**
+ * This class holds the work buffers of the breakers, one set per thread, so that decrypting
+ * a secret allocates nothing but its result once the buffers have grown to fit.
+ *
+ * <p>@implNote The buffers only grow, up to {@value #RETAINED} characters. A longer secret gets
+ * buffers of its own, which are dropped with it, so a pooled thread doesn't keep the buffers
+ * of the longest secret it ever decrypted. A thread borrows them for one decryption and must not
+ * wait on a fork-join task in the meantime, since the thread could run another decryption
+ * while it waits.</p>
+ *
+ * <p>The buffers are only reused by a thread which decrypts many secrets, such as a pooled
+ * platform thread. {@link io.enfire.util.Threads#taskExecutor()} starts a virtual thread per
+ * task where it can, and each of those allocates buffers of its own.</p>
+ */
+final class Scratch {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Buffers of each thread, created on first use.
+     */
+    private static final ThreadLocal<Scratch> LOCAL = ThreadLocal.withInitial(() -> new Scratch(256));
+    /**
+     * Largest secret, in characters, whose buffers a thread keeps for the next decryption.
+     */
+    static final int RETAINED = 1 << 16;
+
+    /**
+     * The secret being decrypted.
+     */
+    char[] text;
+    /**
+     * The candidate decryption.
+     */
+    char[] decrypted;
+    /**
+     * Words of the secret, as {@code [start, end)} index pairs.
+     */
+    int[] words;
+    /**
+     * Sort keys of the words.
+     */
+    long[] order;
+    /**
+     * Letters of the candidate decryption, for word segmentation.
+     */
+    char[] letters;
+    /**
+     * Cost of the best segmentation of each prefix of {@link #letters}.
+     */
+    int[] cost;
+    /**
+     * Start of the last word of the best segmentation of each prefix of {@link #letters}.
+     */
+    int[] back;
+    /**
+     * Ends of the dictionary words starting at one position of {@link #letters}.
+     */
+    int[] ends;
+    /**
+     * Score of the last candidate checked for English: its dictionary words, or its known letters
+     * if it was segmented.
+     */
+    long score;
+    /**
+     * Letter frequencies of the even (or all) positions.
+     */
+    final int[] counter = new int[26];
+    /**
+     * Letter frequencies of the odd positions.
+     */
+    final int[] oddCounter = new int[26];
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    private Scratch(int capacity) {
+        allocate(capacity);
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Gets the buffers of the calling thread.
+     *
+     * @return The buffers.
+     */
+    static Scratch get() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Makes room for a secret of the given length.
+     *
+     * @param length Length of the secret.
+     * @return This object, or new buffers for this secret alone if it's longer than {@value #RETAINED} characters.
+     */
+    Scratch fit(int length) {
+        if (text.length < length) {
+            if (length > RETAINED)
+                return new Scratch(length);
+
+            allocate(Math.min(RETAINED, Math.max(length, text.length * 2)));
+        }
+        return this;
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Replaces the buffers with empty ones for a secret of the given length.
+     *
+     * @param capacity Length of the secret.
+     */
+    private void allocate(int capacity) {
+        text = new char[capacity];
+        decrypted = new char[capacity];
+        words = new int[capacity + 2];
+        order = new long[capacity / 2 + 1];
+        letters = new char[capacity];
+        cost = new int[capacity + 1];
+        back = new int[capacity + 1];
+        ends = new int[capacity + 1];
+    }
+}
@@ -0,0 +1,230 @@
+package io.enfire.cipher;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class breaks texts without spaces, such as {@code thequickbrownfox} or five-letter groups,
+ * into dictionary words.
+ *
+ * <p>Algorithm: Dynamic programming over the letters of the text (Viterbi). The best segmentation
+ * of the first {@code i} letters extends a best segmentation of a shorter prefix by either a dictionary
+ * word or a single unknown letter. Unknown letters cost more than words, and words cost the same
+ * whatever their length, so the best segmentation covers as many letters as it can with as few
+ * words as it can. The dictionary words starting at a position are found in a single walk of the
+ * dictionary automaton, which stops as soon as no word has the walked prefix. Hence, the running time
+ * is {@code O(n * maxWordLen)}.</p>
+ */
+public class Segmenter {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Cost of a dictionary word.
+     */
+    private static final int WORD = 2;
+    /**
+     * Cost of an unknown letter.
+     */
+    private static final int UNKNOWN = 5;
+    /**
+     * Shortest average word length of an English segmentation. Gibberish breaks into
+     * short dictionary words, English mostly doesn't.
+     */
+    private static final double MIN_AVERAGE = 3.5;
+    /**
+     * Largest share of unknown letters in an English segmentation.
+     */
+    private static final double MAX_UNKNOWN = .1;
+
+    /**
+     * {@code Segmenter} object will consult this dictionary to break the texts.
+     */
+    private final Dictionary dictionary;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code Segmenter} instance.
+     *
+     * @param dictionary The dictionary to consult.
+     */
+    public Segmenter(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Breaks the letters of the text into dictionary words.
+     *
+     * <p>Characters other than English letters are dropped. Runs of letters which make no word
+     * are kept together as one unknown word.</p>
+     *
+     * <pre>{@code
+     * segment("Thequick, brownfox") => "the quick brown fox"
+     * }</pre>
+     *
+     * @param text The text to segment.
+     * @return The lower case words, separated by single spaces.
+     */
+    public String segment(String text) {
+        Scratch scratch = Scratch.get().fit(text.length());
+        char[] letters = scratch.letters;
+        int n = letters(text.toCharArray(), text.length(), letters);
+        segment(letters, n, scratch, Breaker.NEVER);
+
+        // Walk the best path backwards, marking where each word starts.
+        int[] back = scratch.back;
+        boolean[] starts = new boolean[n + 1];
+        int j = n;
+        while (j > 0) {
+            int start = back[j];
+            if (start < 0) {
+                start = -start - 1;
+                // Glue consecutive unknown letters into one word.
+                while (start > 0 && back[start] < 0) {
+                    start = -back[start] - 1;
+                }
+            }
+            starts[start] = true;
+            j = start;
+        }
+
+        StringBuilder words = new StringBuilder(n + n / 4);
+        for (int i = 0; i < n; i++) {
+            if (starts[i] && i > 0) {
+                words.append(' ');
+            }
+            words.append(letters[i]);
+        }
+        return words.toString();
+    }
+
+    /**
+     * Checks if the letters of the text make English once broken into dictionary words.
+     *
+     * <p>The text is English if its best segmentation leaves at most a tenth of the letters unknown
+     * and if its words are not too short on average, since nearly any string of letters can be broken
+     * into tiny dictionary words.</p>
+     *
+     * @param text   The text to check.
+     * @param length Length of the text.
+     * @return {@code boolean} validation result.
+     */
+    public boolean isEnglish(char[] text, int length) {
+        Scratch scratch = Scratch.get().fit(length);
+        return isEnglish(text, length, scratch, Breaker.NEVER);
+    }
+
+    // ==============================
+    // Package-private Methods
+    // ==============================
+
+    /**
+     * Checks if the letters of the text make English once broken into dictionary words.
+     *
+     * @param text    The text to check. It may be a buffer of {@code scratch}, but not {@link Scratch#letters}.
+     * @param length  Length of the text.
+     * @param scratch Work buffers, fit for the text. On return, {@link Scratch#score} holds the number
+     *                of letters which make dictionary words.
+     * @param stopped Checked every few hundred letters. The text is rejected as soon as it's {@code true}.
+     * @return {@code boolean} validation result.
+     * @see Segmenter#isEnglish(char[], int)
+     */
+    boolean isEnglish(char[] text, int length, Scratch scratch, BooleanSupplier stopped) {
+        scratch.score = 0;
+        char[] letters = scratch.letters;
+        int n = letters(text, length, letters);
+        if (n == 0 || !segment(letters, n, scratch, stopped))
+            return false;
+
+        int[] back = scratch.back;
+        int words = 0;
+        int known = 0;
+        int j = n;
+        while (j > 0) {
+            int start = back[j];
+            if (start >= 0) {
+                words++;
+                known += j - start;
+            } else {
+                start = -start - 1;
+            }
+            j = start;
+        }
+        scratch.score = known;
+        return words > 0 && n - known <= n * MAX_UNKNOWN && (double) known / words >= MIN_AVERAGE;
+    }
+
+    /**
+     * Finds the best segmentation of the letters.
+     *
+     * @param letters Lower case letters.
+     * @param n       Number of letters.
+     * @param scratch Work buffers, fit for the letters. On return, {@code back[j]} tells where the last
+     *                word of the best segmentation of the first {@code j} letters starts: at {@code back[j]}
+     *                for a dictionary word, at {@code -back[j] - 1} for an unknown letter.
+     * @param stopped Checked every few hundred letters.
+     * @return {@code false} if stopped before the end.
+     */
+    boolean segment(char[] letters, int n, Scratch scratch, BooleanSupplier stopped) {
+        int[] cost = scratch.cost;
+        int[] back = scratch.back;
+        int[] ends = scratch.ends;
+
+        cost[0] = 0;
+        for (int j = 1; j <= n; j++) {
+            cost[j] = Integer.MAX_VALUE;
+        }
+        for (int i = 0; i < n; i++) {
+            if ((i & Breaker.CHECK_MASK) == Breaker.CHECK_MASK && stopped.getAsBoolean())
+                return false;
+
+            int base = cost[i];
+            if (base + UNKNOWN < cost[i + 1]) {
+                cost[i + 1] = base + UNKNOWN;
+                back[i + 1] = -i - 1;
+            }
+            int count = dictionary.matchPrefixes(letters, i, n, ends);
+            for (int w = 0; w < count; w++) {
+                int end = ends[w];
+                if (base + WORD < cost[end]) {
+                    // Ties go to the longer last word, found first.
+                    cost[end] = base + WORD;
+                    back[end] = i;
+                }
+            }
+        }
+        return true;
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Copies the English letters of the text, in lower case.
+     *
+     * @param text    The text to copy from.
+     * @param length  Length of the text.
+     * @param letters The array to copy to, as long as the text at least.
+     * @return The number of letters.
+     */
+    private static int letters(char[] text, int length, char[] letters) {
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text[i];
+            if (c >= 'a' && c <= 'z') {
+                letters[n++] = c;
+            } else if (c >= 'A' && c <= 'Z') {
+                letters[n++] = (char) (c + ('a' - 'A'));
+            }
+        }
+        return n;
+    }
+}
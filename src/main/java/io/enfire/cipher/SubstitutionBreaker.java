@@ -0,0 +1,390 @@
+package io.enfire.cipher;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class implements monoalphabetic substitution cipher decryption algorithm.
+ */
+public class SubstitutionBreaker extends Breaker {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * This field will contain the key used in encryption when the secret is successfully decrypted:
+     * the cipher letter of each letter of {@link Breaker#alphabet}. Empty means the decryption failed
+     * or hasn't started yet.
+     */
+    public String key = "";
+    /**
+     * Number of independent hill-climbing searches, each starting from a random key.
+     */
+    public int restarts = 32;
+    /**
+     * Seed of the random keys. The same seed and restarts give the same result.
+     */
+    public long seed = 1;
+    /**
+     * The pool to run the hill-climbing searches on.
+     */
+    public ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Symbol standing for a word boundary in encoded texts. Symbols 0 - 25 are letter indices.
+     */
+    private static final int SPACE = 26;
+    /**
+     * Log10 probabilities of quadgrams.
+     *
+     * <p>@implSpec Indexed by {@code ((a * 27 + b) * 27 + c) * 27 + d}, where {@code a, b, c, d}
+     * are symbols (letter indices or {@link #SPACE}). The table is learnt from the dictionary words,
+     * each one padded with word boundaries, since a word list says nothing about the letters
+     * across two words.</p>
+     */
+    private final float[] quadgrams = new float[27 * 27 * 27 * 27];
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code SubstitutionBreaker} instance.
+     *
+     * @param file Dictionary file path.
+     * @throws IOException if the file path does not exist.
+     */
+    public SubstitutionBreaker(String file) throws IOException {
+        super(file);
+        learnQuadgrams();
+    }
+
+    /**
+     * Creates a new {@code SubstitutionBreaker} instance which shares an already loaded dictionary.
+     *
+     * @param dictionary The dictionary to consult.
+     */
+    public SubstitutionBreaker(Dictionary dictionary) {
+        super(dictionary);
+        learnQuadgrams();
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Checks if the encrypted message can be decrypted.
+     *
+     * @return {@code boolean} decryption result.
+     */
+    @Override
+    public boolean canDecrypt() {
+        return !key.isEmpty() && !decrypted.isBlank();
+    }
+
+    /**
+     * Decrypts the secret with parallel random-restart hill climbing.
+     *
+     * <p>Algorithm: Start from a random key and keep swapping two letters of the key as long as
+     * the swap raises the quadgram score of the decrypted text. Run many of those climbs in parallel
+     * and keep the best scoring key. Finally, confirm the winner with the dictionary.</p>
+     *
+     * @param secret The secret to decrypt.
+     */
+    @Override
+    public void decrypt(String secret) {
+        if (secret.isBlank())
+            return;
+
+        // Reset the instance. Make it ready for another round.
+        key = "";
+        decrypted = "";
+
+        long start = System.nanoTime();
+        DecryptionResult r = record(secret, solve(secret, NEVER), start);
+        if (r.canDecrypt()) {
+            key = getKey(r.getKey());
+            decrypted = r.getDecrypted();
+        }
+    }
+
+    // ==============================
+    // Protected Methods
+    // ==============================
+
+    /**
+     * Decrypts the secret with parallel random-restart hill climbing.
+     *
+     * @param secret  A secret file path or a secret text.
+     * @param stopped Checked before each round of swaps. The decryption fails as soon as it's {@code true}.
+     * @return The decryption result with 26 keys: the cipher letter index of each plain letter.
+     */
+    @Override
+    protected DecryptionResult solve(String secret, BooleanSupplier stopped) {
+        if (secret.isBlank())
+            return DecryptionResult.failure(26);
+
+        secret = read(secret);
+        byte[] text = encode(secret);
+        if (text.length < 6)
+            return DecryptionResult.failure(26);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Climb> climbs = new ArrayList<>();
+        for (int i = 0; i < restarts; i++) {
+            climbs.add(new Climb(text, random.split(), stopped));
+        }
+        Climb best = pool.invoke(new RecursiveTask<>() {
+            @Override
+            protected Climb compute() {
+                Climb best = null;
+                for (Climb climb : invokeAll(climbs)) {
+                    if (best == null || climb.join().score > best.score) {
+                        best = climb.join();
+                    }
+                }
+                return best;
+            }
+        });
+        if (best == null || stopped.getAsBoolean())
+            return DecryptionResult.failure(26);
+
+        String message = apply(secret, best.plain);
+        if (!isEnglish(message, calcThreshold(message)))
+            return DecryptionResult.failure(26);
+
+        // The encryption key is the inverse of the decryption key.
+        int[] key = new int[26];
+        for (int i = 0; i < best.plain.length; i++) {
+            key[best.plain[i]] = i;
+        }
+        return new DecryptionResult(key, message);
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Learns the quadgram log probabilities from the dictionary words.
+     */
+    private void learnQuadgrams() {
+        int[] counts = new int[quadgrams.length];
+        long[] total = new long[1];
+        dictionary.forEach(word -> {
+            byte[] symbols = encode(word);
+            for (int i = 0; i + 3 < symbols.length; i++) {
+                counts[quadgram(symbols, i)]++;
+                total[0]++;
+            }
+        });
+
+        double floor = Math.log10(0.01 / Math.max(total[0], 1));
+        for (int i = 0; i < quadgrams.length; i++) {
+            quadgrams[i] = (float) ((counts[i] == 0) ? floor : Math.log10((double) counts[i] / total[0]));
+        }
+    }
+
+    /**
+     * Encodes the letters of the text as letter indices (0 - 25) and each run of other characters
+     * as a single {@link #SPACE}. The encoding always starts and ends with {@link #SPACE}.
+     *
+     * @param text The text to encode.
+     * @return The encoded symbols.
+     */
+    private byte[] encode(String text) {
+        byte[] encoded = new byte[text.length() + 2];
+        int len = 0;
+        encoded[len++] = SPACE;
+        for (int i = 0; i < text.length(); i++) {
+            int idx = alphabet.indexOf(Character.toLowerCase(text.charAt(i)));
+            if (idx != -1) {
+                encoded[len++] = (byte) idx;
+            } else if (encoded[len - 1] != SPACE) {
+                encoded[len++] = SPACE;
+            }
+        }
+        if (encoded[len - 1] != SPACE) {
+            encoded[len++] = SPACE;
+        }
+        return Arrays.copyOf(encoded, len);
+    }
+
+    /**
+     * Gets the quadgram table index of the four symbols starting at {@code i}.
+     *
+     * @param symbols Encoded text.
+     * @param i       Start of the quadgram.
+     * @return The quadgram table index.
+     */
+    private static int quadgram(byte[] symbols, int i) {
+        return ((symbols[i] * 27 + symbols[i + 1]) * 27 + symbols[i + 2]) * 27 + symbols[i + 3];
+    }
+
+    /**
+     * Decrypts the text with the decryption key, maintaining case and non-alphabet characters.
+     *
+     * @param text  The text to decrypt.
+     * @param plain The plain letter index of each cipher letter index.
+     * @return The decrypted text.
+     */
+    private String apply(String text, byte[] plain) {
+        StringBuilder decrypted = new StringBuilder(text);
+        for (int i = 0; i < decrypted.length(); i++) {
+            char c = decrypted.charAt(i);
+            int idx = alphabet.indexOf(Character.toLowerCase(c));
+            if (idx != -1) {
+                char p = alphabet.charAt(plain[idx]);
+                decrypted.setCharAt(i, Character.isUpperCase(c) ? Character.toUpperCase(p) : p);
+            }
+        }
+        return decrypted.toString();
+    }
+
+    /**
+     * Gets the key used in encryption as letters.
+     *
+     * @param key The cipher letter index of each plain letter.
+     * @return The cipher letter of each plain letter.
+     */
+    private String getKey(int[] key) {
+        char[] letters = new char[key.length];
+        for (int i = 0; i < key.length; i++) {
+            letters[i] = alphabet.charAt(key[i]);
+        }
+        return new String(letters);
+    }
+
+    /**
+     * One hill-climbing search from a random key.
+     *
+     * <p>@implNote The candidate plaintext is kept as letter indices and updated in place on each swap.
+     * Swapping the plain letters of cipher letters {@code a} and {@code b} only changes the quadgrams
+     * around the positions of {@code a} and {@code b}, so only those are rescored.</p>
+     */
+    private class Climb extends RecursiveTask<Climb> {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] cipher;
+        private final SplittableRandom random;
+        private final BooleanSupplier stopped;
+        private final byte[] plain = new byte[26];
+        private double score;
+
+        private Climb(byte[] cipher, SplittableRandom random, BooleanSupplier stopped) {
+            this.cipher = cipher;
+            this.random = random;
+            this.stopped = stopped;
+        }
+
+        @Override
+        protected Climb compute() {
+            // Random initial key (Fisher-Yates shuffle).
+            for (int i = 0; i < 26; i++) {
+                plain[i] = (byte) i;
+            }
+            for (int i = 25; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                byte t = plain[i];
+                plain[i] = plain[j];
+                plain[j] = t;
+            }
+
+            // Positions of each cipher letter.
+            int[] counter = new int[27];
+            for (byte c : cipher) {
+                counter[c]++;
+            }
+            int[][] positions = new int[26][];
+            for (int i = 0; i < 26; i++) {
+                positions[i] = new int[counter[i]];
+                counter[i] = 0;
+            }
+            for (int i = 0; i < cipher.length; i++) {
+                if (cipher[i] != SPACE) {
+                    positions[cipher[i]][counter[cipher[i]]++] = i;
+                }
+            }
+
+            byte[] text = new byte[cipher.length];
+            for (int i = 0; i < cipher.length; i++) {
+                text[i] = (cipher[i] == SPACE) ? SPACE : plain[cipher[i]];
+            }
+            for (int i = 0; i + 3 < text.length; i++) {
+                score += quadgram(text, i);
+            }
+
+            int[] stamps = new int[text.length];
+            int[] windows = new int[text.length];
+            int stamp = 0;
+            boolean improved = true;
+            while (improved && !stopped.getAsBoolean()) {
+                improved = false;
+                for (int a = 0; a < 26; a++) {
+                    for (int b = a + 1; b < 26; b++) {
+                        if (positions[a].length == 0 && positions[b].length == 0)
+                            continue;
+
+                        // Collect the quadgrams touching a or b, once each.
+                        stamp++;
+                        int count = collect(positions[a], text.length, stamps, stamp, windows, 0);
+                        count = collect(positions[b], text.length, stamps, stamp, windows, count);
+
+                        double before = 0;
+                        for (int i = 0; i < count; i++) {
+                            before += quadgram(text, windows[i]);
+                        }
+                        swap(text, positions, a, b);
+                        double after = 0;
+                        for (int i = 0; i < count; i++) {
+                            after += quadgram(text, windows[i]);
+                        }
+
+                        if (after > before) {
+                            score += after - before;
+                            improved = true;
+                        } else {
+                            swap(text, positions, a, b);
+                        }
+                    }
+                }
+            }
+            return this;
+        }
+
+        private int collect(int[] positions, int len, int[] stamps, int stamp, int[] windows, int count) {
+            for (int p : positions) {
+                for (int w = Math.max(0, p - 3); w <= p && w + 3 < len; w++) {
+                    if (stamps[w] != stamp) {
+                        stamps[w] = stamp;
+                        windows[count++] = w;
+                    }
+                }
+            }
+            return count;
+        }
+
+        private void swap(byte[] text, int[][] positions, int a, int b) {
+            byte t = plain[a];
+            plain[a] = plain[b];
+            plain[b] = t;
+            for (int p : positions[a]) {
+                text[p] = plain[a];
+            }
+            for (int p : positions[b]) {
+                text[p] = plain[b];
+            }
+        }
+
+        private float quadgram(byte[] text, int i) {
+            return quadgrams[SubstitutionBreaker.quadgram(text, i)];
+        }
+    }
+}
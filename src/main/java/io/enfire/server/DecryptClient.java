@@ -0,0 +1,88 @@
+package io.enfire.server;
+
+import io.enfire.cipher.DecryptionResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+
+/**
+ * This class connects to a local {@link DecryptServer}.
+ *
+ * <p>A client holds one connection. Its methods are synchronized, so it can be shared,
+ * but concurrent calls are served one after the other.</p>
+ */
+public class DecryptClient implements Closeable {
+    // ==============================
+    // Fields
+    // ==============================
+
+    private final SocketChannel channel;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code DecryptClient} instance connected to the server on the loopback interface.
+     *
+     * @param port The port the server listens on.
+     * @throws IOException if the server can't be reached.
+     */
+    public DecryptClient(int port) throws IOException {
+        channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Decrypts the secret on the server.
+     *
+     * @param secret The secret to decrypt.
+     * @param keys   Number of Caesar keys of the secret (1 or 2).
+     * @return The decryption result.
+     * @throws IOException if the connection fails or the server rejects the request.
+     */
+    public synchronized DecryptionResult decrypt(String secret, int keys) throws IOException {
+        out.writeByte(Protocol.DECRYPT);
+        out.writeByte(keys);
+        Protocol.writeString(out, secret);
+        out.flush();
+        return Protocol.readResult(in);
+    }
+
+    /**
+     * Gets the load of the server.
+     *
+     * @return The server statistics.
+     * @throws IOException if the connection fails.
+     */
+    public synchronized ServerStats stats() throws IOException {
+        out.writeByte(Protocol.STATS);
+        out.flush();
+        return Protocol.readStats(in);
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException if the connection can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,451 @@
+package io.enfire.server;
+
+import io.enfire.cipher.Breaker;
+import io.enfire.cipher.CaesarBreakerOneKey;
+import io.enfire.cipher.CaesarBreakerTwoKey;
+import io.enfire.cipher.DecryptionResult;
+import io.enfire.cipher.Dictionary;
+import io.enfire.util.Threads;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a local decryption server, so that short-lived processes can skip loading
+ * the dictionary and use the warm one of a shared server instead.
+ *
+ * <p>The server listens on the loopback interface only and speaks the length-prefixed protocol of
+ * {@link Protocol}. Incoming secrets are queued and gathered in micro-batches. The one-key secrets of
+ * a batch are decrypted together by {@link CaesarBreakerOneKey#decryptAll(List)}, which solves the
+ * secrets sharing a key once for all of them. The other secrets are decrypted in parallel.</p>
+ *
+ * @see DecryptClient
+ */
+public class DecryptServer implements Closeable {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Largest number of secrets dispatched together. The larger the batch, the more one-key secrets
+     * share the work of their key.
+     */
+    public int batchSize = 64;
+    /**
+     * How long the dispatcher waits for a batch to fill up, in microseconds.
+     */
+    public long batchWindow = 500;
+    /**
+     * Largest secret accepted, in UTF-8 bytes. A client which sends a longer one, or a negative length,
+     * gets an error and its connection is closed.
+     */
+    public int maxSecretLength = 16 << 20;
+
+    /**
+     * Breakers indexed by their number of keys. They share the dictionary and run on {@link #workers}.
+     */
+    private final Breaker[] breakers;
+    /**
+     * The one-key breaker of {@link #breakers}, which decrypts the one-key secrets of a batch together.
+     */
+    private final CaesarBreakerOneKey oneKey;
+    /**
+     * Secrets waiting to be dispatched.
+     */
+    private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    /**
+     * Secrets taken from {@link #queue} and not decrypted yet.
+     */
+    private final Set<Job> running = ConcurrentHashMap.newKeySet();
+    /**
+     * Pool running the decryptions, one thread per core.
+     */
+    private final ForkJoinPool workers = new ForkJoinPool();
+    /**
+     * Executor running the connections, a virtual thread each when the runtime supports it.
+     */
+    private final ExecutorService connections = Threads.newTaskExecutor();
+    /**
+     * Latencies of the last requests in microseconds, used as a ring buffer.
+     */
+    private final long[] latencies = new long[4096];
+    /**
+     * Number of requests served.
+     */
+    private final AtomicLong requests = new AtomicLong();
+
+    private ServerSocketChannel server;
+    private Thread acceptor;
+    private Thread dispatcher;
+    private volatile boolean closed;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code DecryptServer} instance.
+     *
+     * @param dictionary The dictionary shared by all the decryptions.
+     */
+    public DecryptServer(Dictionary dictionary) {
+        oneKey = new CaesarBreakerOneKey(dictionary);
+        breakers = new Breaker[]{null, oneKey, new CaesarBreakerTwoKey(dictionary)};
+        for (int i = 1; i < breakers.length; i++) {
+            breakers[i].executor = workers;
+            breakers[i].readFiles = false;
+        }
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Runs a server until the process is killed.
+     *
+     * @param args Dictionary file path and, optionally, the port to listen on (default 7070).
+     * @throws IOException if the dictionary can't be read or the port can't be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DecryptServer <dictionary file> [port]");
+            System.exit(2);
+        }
+        int port = (args.length > 1) ? Integer.parseInt(args[1]) : 7070;
+        DecryptServer server = new DecryptServer(new Dictionary(args[0]));
+        System.out.println("Listening on port " + server.start(port));
+    }
+
+    /**
+     * Starts listening on the loopback interface.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @return The port listened on.
+     * @throws IOException if the port can't be bound.
+     */
+    public int start(int port) throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+
+        acceptor = new Thread(this::accept, "decrypt-server-acceptor");
+        dispatcher = new Thread(this::dispatch, "decrypt-server-dispatcher");
+        acceptor.setDaemon(true);
+        dispatcher.setDaemon(true);
+        acceptor.start();
+        dispatcher.start();
+
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Gets the number of secrets waiting to be dispatched.
+     *
+     * @return The queue depth.
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of requests served.
+     *
+     * @return The number of requests.
+     */
+    public long requests() {
+        return requests.get();
+    }
+
+    /**
+     * Gets a percentile of the latencies of the last requests, from queueing to decryption.
+     *
+     * @param percentile The percentile (0 - 100).
+     * @return The latency in microseconds, or 0 if no request has been served yet.
+     */
+    public long latency(double percentile) {
+        long[] sorted;
+        synchronized (latencies) {
+            int n = (int) Math.min(requests.get(), latencies.length);
+            sorted = Arrays.copyOf(latencies, n);
+        }
+        if (sorted.length == 0)
+            return 0;
+
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+
+    /**
+     * Stops listening and stops the decryptions.
+     *
+     * <p>The secrets still queued or being decrypted fail, so that their clients get an error
+     * instead of waiting forever.</p>
+     *
+     * @throws IOException if the server socket can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (server != null) {
+            server.close();
+        }
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        connections.shutdownNow();
+        workers.shutdownNow();
+
+        for (Job job = queue.poll(); job != null; job = queue.poll()) {
+            fail(job);
+        }
+        for (Job job : running) {
+            fail(job);
+        }
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Accepts connections until the server is closed.
+     */
+    private void accept() {
+        while (!closed) {
+            try {
+                SocketChannel channel = server.accept();
+                connections.execute(() -> serve(channel));
+            } catch (IOException e) {
+                // Closed.
+                return;
+            }
+        }
+    }
+
+    /**
+     * Serves the requests of one connection until the client closes it.
+     *
+     * @param channel The connection.
+     */
+    private void serve(SocketChannel channel) {
+        try (channel;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            while (!closed) {
+                int op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+
+                if (op == Protocol.DECRYPT) {
+                    int keys = in.readByte();
+                    String secret;
+                    try {
+                        secret = Protocol.readString(in, maxSecretLength);
+                    } catch (ProtocolException e) {
+                        // The secret is left unread, so the rest of the stream can't be trusted.
+                        Protocol.writeError(out, e.getMessage());
+                        return;
+                    }
+                    if (keys < 1 || keys >= breakers.length) {
+                        Protocol.writeError(out, "Unsupported number of keys: " + keys);
+                        continue;
+                    }
+                    Job job = new Job(breakers[keys], secret);
+                    queue.put(job);
+                    if (closed) {
+                        // close() may have drained the queue before the job got in.
+                        fail(job);
+                    }
+                    try {
+                        Protocol.writeResult(out, job.result.join());
+                    } catch (RuntimeException e) {
+                        Protocol.writeError(out, String.valueOf(e.getCause()));
+                    }
+                } else if (op == Protocol.STATS) {
+                    Protocol.writeStats(out, new ServerStats(queueDepth(), requests(),
+                            latency(50), latency(95), latency(99)));
+                } else {
+                    Protocol.writeError(out, "Unknown operation: " + op);
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // The connection is gone or the server is closing.
+        }
+    }
+
+    /**
+     * Gathers queued secrets in micro-batches and dispatches them until the server is closed.
+     *
+     * <p>A batch starts with the first secret to arrive and closes when it has {@link #batchSize} secrets
+     * or {@link #batchWindow} has passed, whichever comes first. Its one-key secrets go together to
+     * {@link #workers} as one task, the others one task each.</p>
+     */
+    private void dispatch() {
+        List<Job> batch = new ArrayList<>();
+        while (!closed) {
+            try {
+                batch.add(track(queue.take()));
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(batchWindow);
+                while (batch.size() < batchSize) {
+                    Job job = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (job == null)
+                        break;
+                    batch.add(track(job));
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            List<Job> together = new ArrayList<>();
+            for (Job job : batch) {
+                if (job.breaker == oneKey) {
+                    together.add(job);
+                } else {
+                    submit(job);
+                }
+            }
+            // A lone secret has nothing to share: it's cheaper on its own.
+            if (together.size() == 1) {
+                submit(together.get(0));
+            } else if (!together.isEmpty()) {
+                submit(together);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Decrypts a secret on {@link #workers}.
+     *
+     * @param job The job of the secret.
+     */
+    private void submit(Job job) {
+        try {
+            job.breaker.decryptAsync(job.secret).whenComplete((r, e) -> complete(job, r, e));
+        } catch (RejectedExecutionException e) {
+            // The workers are shut down: the server is closing.
+            job.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Decrypts one-key secrets together on {@link #workers}.
+     *
+     * @param jobs The jobs of the secrets.
+     */
+    private void submit(List<Job> jobs) {
+        List<String> secrets = new ArrayList<>();
+        for (Job job : jobs) {
+            secrets.add(job.secret);
+        }
+        try {
+            CompletableFuture.supplyAsync(() -> oneKey.decryptAll(secrets), workers).whenComplete((rs, e) -> {
+                for (int i = 0; i < jobs.size(); i++) {
+                    complete(jobs.get(i), (e != null) ? null : rs.get(i), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The workers are shut down: the server is closing.
+            for (Job job : jobs) {
+                job.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Completes a job with the outcome of its decryption and records its latency.
+     *
+     * @param job The job.
+     * @param r   The decryption result, {@code null} if the decryption failed.
+     * @param e   The exception the decryption failed with, {@code null} if none.
+     */
+    private void complete(Job job, DecryptionResult r, Throwable e) {
+        record(System.nanoTime() - job.queued);
+        if (e != null) {
+            job.result.completeExceptionally(e);
+        } else {
+            job.result.complete(r);
+        }
+    }
+
+    /**
+     * Marks a job as taken from the queue, until its result is complete.
+     *
+     * @param job The job.
+     * @return The job.
+     */
+    private Job track(Job job) {
+        running.add(job);
+        job.result.whenComplete((r, e) -> running.remove(job));
+        if (closed) {
+            // close() may have gone through the running jobs before this one got in.
+            fail(job);
+        }
+        return job;
+    }
+
+    /**
+     * Fails a job because the server is closing.
+     *
+     * @param job The job.
+     */
+    private static void fail(Job job) {
+        job.result.completeExceptionally(new IOException("Server closed"));
+    }
+
+    /**
+     * Records the latency of a request.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    private void record(long nanos) {
+        synchronized (latencies) {
+            long n = requests.getAndIncrement();
+            latencies[(int) (n % latencies.length)] = TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+    }
+
+    /**
+     * A secret waiting to be decrypted.
+     */
+    private static class Job {
+        private final Breaker breaker;
+        private final String secret;
+        private final long queued = System.nanoTime();
+        private final CompletableFuture<DecryptionResult> result = new CompletableFuture<>();
+
+        private Job(Breaker breaker, String secret) {
+            this.breaker = breaker;
+            this.secret = secret;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.enfire.server;
+
+import io.enfire.cipher.DecryptionResult;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class defines the wire protocol between {@link DecryptServer} and {@link DecryptClient}.
+ *
+ * <p>Every message is a sequence of big-endian fields. Strings are an {@code int} byte length
+ * followed by UTF-8 bytes.</p>
+ *
+ * <pre>{@code
+ * request:  DECRYPT(byte) keys(byte) secret(string)
+ *           STATS(byte)
+ * response: OK(byte) keys(byte) key(int)... decrypted(string)
+ *           OK(byte) queueDepth(int) requests(long) p50(long) p95(long) p99(long)
+ *           ERROR(byte) message(string)
+ * }</pre>
+ */
+class Protocol {
+    // ==============================
+    // Fields
+    // ==============================
+
+    static final byte DECRYPT = 1;
+    static final byte STATS = 2;
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    private Protocol() {
+    }
+
+    // ==============================
+    // Methods
+    // ==============================
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return readString(in, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads a string whose length is checked before anything is allocated for it.
+     *
+     * @param in  The stream to read from.
+     * @param max Largest length accepted, in bytes.
+     * @return The string.
+     * @throws ProtocolException if the length is negative or larger than {@code max}. The string
+     *                           is left unread, so the stream is out of step.
+     * @throws IOException       if the stream fails.
+     */
+    static String readString(DataInputStream in, int max) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > max)
+            throw new ProtocolException("String length out of range: " + length + " (max " + max + ")");
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeResult(DataOutputStream out, DecryptionResult r) throws IOException {
+        int[] key = r.getKey();
+        out.writeByte(OK);
+        out.writeByte(key.length);
+        for (int k : key) {
+            out.writeInt(k);
+        }
+        writeString(out, r.getDecrypted());
+        out.flush();
+    }
+
+    static DecryptionResult readResult(DataInputStream in) throws IOException {
+        checkStatus(in);
+        int[] key = new int[in.readByte()];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = in.readInt();
+        }
+        return new DecryptionResult(key, readString(in));
+    }
+
+    static void writeStats(DataOutputStream out, ServerStats stats) throws IOException {
+        out.writeByte(OK);
+        out.writeInt(stats.getQueueDepth());
+        out.writeLong(stats.getRequests());
+        out.writeLong(stats.getP50());
+        out.writeLong(stats.getP95());
+        out.writeLong(stats.getP99());
+        out.flush();
+    }
+
+    static ServerStats readStats(DataInputStream in) throws IOException {
+        checkStatus(in);
+        return new ServerStats(in.readInt(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+    }
+
+    static void writeError(DataOutputStream out, String message) throws IOException {
+        out.writeByte(ERROR);
+        writeString(out, message);
+        out.flush();
+    }
+
+    private static void checkStatus(DataInputStream in) throws IOException {
+        if (in.readByte() != OK) {
+            throw new IOException("Server error: " + readString(in));
+        }
+    }
+}
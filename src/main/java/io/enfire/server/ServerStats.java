@@ -0,0 +1,81 @@
+package io.enfire.server;
+
+/**
+ * This class contains a snapshot of the load of a {@link DecryptServer}.
+ */
+public class ServerStats {
+    // ==============================
+    // Fields
+    // ==============================
+
+    private final int queueDepth;
+    private final long requests;
+    private final long p50;
+    private final long p95;
+    private final long p99;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code ServerStats} instance.
+     *
+     * @param queueDepth Number of secrets waiting to be dispatched.
+     * @param requests   Number of requests served.
+     * @param p50        Median latency in microseconds.
+     * @param p95        95th percentile latency in microseconds.
+     * @param p99        99th percentile latency in microseconds.
+     */
+    public ServerStats(int queueDepth, long requests, long p50, long p95, long p99) {
+        this.queueDepth = queueDepth;
+        this.requests = requests;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * @return Number of secrets waiting to be dispatched.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return Number of requests served.
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return Median latency of the last requests in microseconds.
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * @return 95th percentile latency of the last requests in microseconds.
+     */
+    public long getP95() {
+        return p95;
+    }
+
+    /**
+     * @return 99th percentile latency of the last requests in microseconds.
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queue=%d requests=%d p50=%dus p95=%dus p99=%dus", queueDepth, requests, p50, p95, p99);
+    }
+}
@@ -0,0 +1,445 @@
+package io.enfire.util;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * This class implements a minimal acyclic word automaton, also known as DAWG
+ * (Directed Acyclic Word Graph), over {@code char} labels.
+ *
+ * <p>Words sharing prefixes share the path from the root and words sharing suffixes
+ * share the path to the final states. Hence, a large word list takes a fraction of
+ * the memory of the same words kept as {@link String} objects.</p>
+ *
+ * <p>@implSpec The automaton is stored in flat arrays. States are numbered from 0 (the root).
+ * The outgoing edges of state {@code s} occupy the range {@code [offsets[s], offsets[s + 1])}
+ * of {@link #labels} and {@link #targets}, sorted by label. {@link #finals} is a bit set
+ * of the states which end a word.</p>
+ */
+public class Dawg {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * The root state from which every walk starts.
+     */
+    public static final int ROOT = 0;
+    /**
+     * Returned by {@link Dawg#next(int, char)} when there is no such transition.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Start of the edge range of each state. It has one extra entry for the end of the last state.
+     */
+    private final int[] offsets;
+    /**
+     * Edge labels, sorted within each state.
+     */
+    private final char[] labels;
+    /**
+     * Edge target states, parallel to {@link #labels}.
+     */
+    private final int[] targets;
+    /**
+     * Bit set of final states.
+     */
+    private final int[] finals;
+    /**
+     * Number of words accepted by the automaton.
+     */
+    private final int size;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code Dawg} instance which accepts exactly the given words.
+     *
+     * <p>Algorithm: Incremental construction from sorted data (Daciuk et al., 2000).
+     * Words are added in lexicographic order. Once a word is added, the states of the
+     * previous word that aren't part of the common prefix can't change anymore, so they
+     * are replaced by an equivalent state from the register if there is one.</p>
+     *
+     * @param words The words to accept. They don't have to be sorted or unique.
+     */
+    public Dawg(Collection<String> words) {
+        String[] sorted = words.toArray(new String[0]);
+        Arrays.sort(sorted);
+
+        Map<Node, Node> register = new HashMap<>();
+        ArrayList<Node> path = new ArrayList<>();
+        Node root = new Node();
+        path.add(root);
+
+        int count = 0;
+        String previous = null;
+        for (String word : sorted) {
+            if (word.equals(previous))
+                continue;
+
+            int common = commonPrefix(word, previous);
+            minimize(path, common, register);
+
+            Node node = path.get(common);
+            for (int i = common; i < word.length(); i++) {
+                Node child = new Node();
+                node.add(word.charAt(i), child);
+                path.add(child);
+                node = child;
+            }
+            node.isFinal = true;
+
+            previous = word;
+            count++;
+        }
+        minimize(path, 0, register);
+
+        // Number the states breadth first and flatten them.
+        ArrayList<Node> states = new ArrayList<>();
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        root.id = 0;
+        states.add(root);
+        queue.add(root);
+        int edges = 0;
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            edges += node.size;
+            for (int i = 0; i < node.size; i++) {
+                Node child = node.children[i];
+                if (child.id == -1) {
+                    child.id = states.size();
+                    states.add(child);
+                    queue.add(child);
+                }
+            }
+        }
+
+        offsets = new int[states.size() + 1];
+        labels = new char[edges];
+        targets = new int[edges];
+        finals = new int[(states.size() + 31) >>> 5];
+        size = count;
+
+        int cursor = 0;
+        for (int s = 0; s < states.size(); s++) {
+            Node node = states.get(s);
+            offsets[s] = cursor;
+            if (node.isFinal) {
+                finals[s >>> 5] |= 1 << (s & 31);
+            }
+            for (int i = 0; i < node.size; i++) {
+                labels[cursor] = node.labels[i];
+                targets[cursor] = node.children[i].id;
+                cursor++;
+            }
+        }
+        offsets[states.size()] = cursor;
+    }
+
+    /**
+     * Creates a new {@code Dawg} instance from already flattened arrays.
+     *
+     * @param offsets Start of the edge range of each state.
+     * @param labels  Edge labels.
+     * @param targets Edge target states.
+     * @param finals  Bit set of final states.
+     * @param size    Number of words accepted by the automaton.
+     */
+    private Dawg(int[] offsets, char[] labels, int[] targets, int[] finals, int size) {
+        this.offsets = offsets;
+        this.labels = labels;
+        this.targets = targets;
+        this.finals = finals;
+        this.size = size;
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Reads an automaton written by {@link Dawg#write(DataOutput)}, moving the buffer position past it.
+     *
+     * @param in The buffer to read from, in big-endian byte order.
+     * @return The automaton.
+     */
+    public static Dawg read(ByteBuffer in) {
+        int size = in.getInt();
+        int states = in.getInt();
+        int edges = in.getInt();
+
+        int[] offsets = new int[states + 1];
+        char[] labels = new char[edges];
+        int[] targets = new int[edges];
+        int[] finals = new int[(states + 31) >>> 5];
+
+        in.asIntBuffer().get(offsets);
+        in.position(in.position() + offsets.length * Integer.BYTES);
+        in.asCharBuffer().get(labels);
+        in.position(in.position() + labels.length * Character.BYTES);
+        in.asIntBuffer().get(targets);
+        in.position(in.position() + targets.length * Integer.BYTES);
+        in.asIntBuffer().get(finals);
+        in.position(in.position() + finals.length * Integer.BYTES);
+
+        return new Dawg(offsets, labels, targets, finals, size);
+    }
+
+    /**
+     * Writes the flat arrays of the automaton.
+     *
+     * @param out The output to write to.
+     * @throws IOException if writing fails.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(states());
+        out.writeInt(edges());
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        for (char label : labels) {
+            out.writeChar(label);
+        }
+        for (int target : targets) {
+            out.writeInt(target);
+        }
+        for (int bits : finals) {
+            out.writeInt(bits);
+        }
+    }
+
+    /**
+     * Checks if the automaton accepts the word.
+     *
+     * @param word The word to check.
+     * @return {@code boolean} result of the lookup.
+     */
+    public boolean contains(CharSequence word) {
+        int state = walk(ROOT, word);
+        return state != NONE && isFinal(state);
+    }
+
+    /**
+     * Checks if any accepted word starts with the prefix.
+     *
+     * @param prefix The prefix to check.
+     * @return {@code boolean} result of the lookup.
+     */
+    public boolean hasPrefix(CharSequence prefix) {
+        return size > 0 && walk(ROOT, prefix) != NONE;
+    }
+
+    /**
+     * Follows the transitions labelled with the characters of the text.
+     *
+     * @param state The state to start from.
+     * @param text  The labels to follow.
+     * @return The state reached, or {@link Dawg#NONE} if a transition is missing.
+     */
+    public int walk(int state, CharSequence text) {
+        for (int i = 0; i < text.length() && state != NONE; i++) {
+            state = next(state, text.charAt(i));
+        }
+        return state;
+    }
+
+    /**
+     * Follows the transition labelled {@code c}.
+     *
+     * @param state The state to start from.
+     * @param c     The label to follow.
+     * @return The state reached, or {@link Dawg#NONE} if there is no such transition.
+     */
+    public int next(int state, char c) {
+        int lo = offsets[state];
+        int hi = offsets[state + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char label = labels[mid];
+            if (label < c) {
+                lo = mid + 1;
+            } else if (label > c) {
+                hi = mid - 1;
+            } else {
+                return targets[mid];
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Checks if the state ends a word.
+     *
+     * @param state The state to check.
+     * @return {@code boolean} result of the check.
+     */
+    public boolean isFinal(int state) {
+        return (finals[state >>> 5] & (1 << (state & 31))) != 0;
+    }
+
+    /**
+     * Performs the action for each accepted word, in lexicographic order.
+     *
+     * @param action The action to perform.
+     */
+    public void forEach(Consumer<? super String> action) {
+        forEach(ROOT, new StringBuilder(), action);
+    }
+
+    /**
+     * Gets the number of words accepted by the automaton.
+     *
+     * @return The number of words.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of states of the automaton.
+     *
+     * @return The number of states.
+     */
+    public int states() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Gets the number of transitions of the automaton.
+     *
+     * @return The number of transitions.
+     */
+    public int edges() {
+        return labels.length;
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Replaces the states of the path deeper than {@code depth} by their equivalents in the register,
+     * or registers them if they are new.
+     *
+     * @param path     States of the last added word, starting with the root.
+     * @param depth    Length of the path prefix to keep.
+     * @param register Unique states found so far.
+     */
+    private static void minimize(ArrayList<Node> path, int depth, Map<Node, Node> register) {
+        for (int i = path.size() - 1; i > depth; i--) {
+            Node child = path.remove(i);
+            Node parent = path.get(i - 1);
+            child.freeze();
+            Node existing = register.putIfAbsent(child, child);
+            if (existing != null) {
+                parent.children[parent.size - 1] = existing;
+            }
+        }
+    }
+
+    /**
+     * Performs the action for each word reachable from the state.
+     *
+     * @param state  The state to start from.
+     * @param prefix Labels followed from the root to the state.
+     * @param action The action to perform.
+     */
+    private void forEach(int state, StringBuilder prefix, Consumer<? super String> action) {
+        if (isFinal(state)) {
+            action.accept(prefix.toString());
+        }
+        for (int i = offsets[state]; i < offsets[state + 1]; i++) {
+            prefix.append(labels[i]);
+            forEach(targets[i], prefix, action);
+            prefix.setLength(prefix.length() - 1);
+        }
+    }
+
+    /**
+     * Gets the length of the common prefix of two words.
+     *
+     * @param a The first word.
+     * @param b The second word, possibly {@code null}.
+     * @return The length of the common prefix.
+     */
+    private static int commonPrefix(String a, String b) {
+        if (b == null)
+            return 0;
+
+        int len = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < len && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * A mutable state used only while building the automaton.
+     *
+     * <p>@implNote Two nodes are equal when they have the same finality and the same
+     * transitions to the very same children. It's only meaningful after all their children
+     * are registered, which is guaranteed by the construction order.</p>
+     */
+    private static class Node {
+        private char[] labels = new char[2];
+        private Node[] children = new Node[2];
+        private int size;
+        private boolean isFinal;
+        private int hash;
+        private int id = -1;
+
+        private void add(char label, Node child) {
+            if (size == labels.length) {
+                labels = Arrays.copyOf(labels, size * 2);
+                children = Arrays.copyOf(children, size * 2);
+            }
+            labels[size] = label;
+            children[size] = child;
+            size++;
+        }
+
+        private void freeze() {
+            int h = isFinal ? 1 : 0;
+            for (int i = 0; i < size; i++) {
+                h = 31 * h + labels[i];
+                h = 31 * h + System.identityHashCode(children[i]);
+            }
+            hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Node))
+                return false;
+
+            Node other = (Node) o;
+            if (isFinal != other.isFinal || size != other.size || hash != other.hash)
+                return false;
+
+            for (int i = 0; i < size; i++) {
+                if (labels[i] != other.labels[i] || children[i] != other.children[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.enfire.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class provides executors for tasks which spend most of their time waiting or
+ * which are too many to give each one a platform thread.
+ */
+public class Threads {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Executor shared by default, created on first use.
+     */
+    private static volatile ExecutorService shared;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    private Threads() {
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Creates an executor which starts a new virtual thread for each task.
+     *
+     * <p>@implNote The project is compiled for a Java version without virtual threads, so
+     * {@code Executors.newVirtualThreadPerTaskExecutor()} is looked up at run time. On a runtime
+     * without it, this falls back to a cached pool of daemon platform threads.</p>
+     *
+     * @return A new executor.
+     */
+    public static ExecutorService newTaskExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (Throwable e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Gets the executor shared by default. It's never shut down.
+     *
+     * @return The shared executor created by {@link Threads#newTaskExecutor()}.
+     */
+    public static ExecutorService taskExecutor() {
+        if (shared == null) {
+            synchronized (Threads.class) {
+                if (shared == null) {
+                    shared = newTaskExecutor();
+                }
+            }
+        }
+        return shared;
+    }
+}
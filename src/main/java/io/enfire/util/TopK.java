@@ -0,0 +1,196 @@
+package io.enfire.util;
+
+/**
+ * This class keeps the {@code k} best scoring ids offered to it, without boxing.
+ *
+ * <p>@implSpec A binary min-heap over two parallel primitive arrays: the root is the worst entry
+ * kept, so an offer which doesn't beat it is rejected in constant time. Equal scores are ranked
+ * by id, the lower id first, so the result doesn't depend on the order of the offers.</p>
+ */
+public class TopK {
+    // ==============================
+    // Fields
+    // ==============================
+
+    /**
+     * Ids of the entries, in heap order.
+     */
+    private final int[] ids;
+    /**
+     * Scores of the entries, parallel to {@link #ids}.
+     */
+    private final long[] scores;
+    /**
+     * Number of entries kept.
+     */
+    private int size;
+
+    // ==============================
+    // Constructors
+    // ==============================
+
+    /**
+     * Creates a new {@code TopK} instance.
+     *
+     * @param k The number of entries to keep.
+     */
+    public TopK(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("k must not be negative: " + k);
+
+        ids = new int[k];
+        scores = new long[k];
+    }
+
+    // ==============================
+    // Public Methods
+    // ==============================
+
+    /**
+     * Offers an entry.
+     *
+     * @param id    The id of the entry.
+     * @param score The score of the entry, the higher the better.
+     * @return {@code true} if the entry is kept, for now.
+     */
+    public boolean offer(int id, long score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+            return true;
+        }
+        if (size == 0 || !isBetter(id, score, 0))
+            return false;
+
+        ids[0] = id;
+        scores[0] = score;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Offers all the entries of another instance.
+     *
+     * @param other The entries to offer.
+     */
+    public void addAll(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.scores[i]);
+        }
+    }
+
+    /**
+     * Gets the number of entries kept.
+     *
+     * @return The number of entries, at most {@code k}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the score an entry needs to be kept: the lowest score kept once there are {@code k} entries.
+     * An entry with that very score is kept only if its id is lower.
+     *
+     * @return The lowest score kept, or {@link Long#MIN_VALUE} if there is room left.
+     */
+    public long floor() {
+        return (size < ids.length || size == 0) ? Long.MIN_VALUE : scores[0];
+    }
+
+    /**
+     * Gets the ids of the entries kept, best first.
+     *
+     * @return A new array of ids.
+     */
+    public int[] ids() {
+        int[] sorted = new int[size];
+        sort(sorted, new long[size]);
+        return sorted;
+    }
+
+    /**
+     * Gets the scores of the entries kept, best first.
+     *
+     * @return A new array of scores, parallel to {@link TopK#ids()}.
+     */
+    public long[] scores() {
+        long[] sorted = new long[size];
+        sort(new int[size], sorted);
+        return sorted;
+    }
+
+    // ==============================
+    // Private Methods
+    // ==============================
+
+    /**
+     * Sorts a copy of the entries, best first.
+     *
+     * @param sortedIds    The array to fill with the ids.
+     * @param sortedScores The array to fill with the scores.
+     */
+    private void sort(int[] sortedIds, long[] sortedScores) {
+        TopK copy = new TopK(size);
+        copy.addAll(this);
+        // Popping the root of a min-heap yields the worst entry first.
+        for (int i = size - 1; i >= 0; i--) {
+            sortedIds[i] = copy.ids[0];
+            sortedScores[i] = copy.scores[0];
+            copy.size--;
+            copy.ids[0] = copy.ids[copy.size];
+            copy.scores[0] = copy.scores[copy.size];
+            copy.siftDown(0);
+        }
+    }
+
+    /**
+     * Checks if an entry ranks above the entry at the heap index.
+     *
+     * @param id    The id of the entry.
+     * @param score The score of the entry.
+     * @param i     The heap index to compare to.
+     * @return {@code boolean} result of the comparison.
+     */
+    private boolean isBetter(int id, long score, int i) {
+        return score > scores[i] || (score == scores[i] && id < ids[i]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isBetter(ids[parent], scores[parent], i))
+                return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && isBetter(ids[worst], scores[worst], left)) {
+                worst = left;
+            }
+            if (right < size && isBetter(ids[worst], scores[worst], right)) {
+                worst = right;
+            }
+            if (worst == i)
+                return;
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        long score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,84 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AffineBreakerTest {
+    static AffineBreaker b;
+
+    @BeforeAll
+    static void setUp() {
+        String file = new File("").getAbsolutePath() + "/src/main/resources/dictionary.txt";
+        try {
+            b = new AffineBreaker(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    void canDecrypt() {
+        b.decrypted = "a";
+        b.key = new int[]{5, 8};
+        assertTrue(b.canDecrypt());
+
+        b.decrypted = "  ";
+        assertFalse(b.canDecrypt());
+
+        b.decrypted = "a";
+        b.key = new int[]{5, -1};
+        assertFalse(b.canDecrypt());
+    }
+
+    @Test
+    void decrypt() {
+        String msg;
+
+        // An excerpt from Romeo and Juliet (59 words).
+        msg = "Prince. Rebellious subjects, enemies to peace,\n" +
+                "    Profaners of this neighbour-stained steel-\n" +
+                "    Will they not hear? What, ho! you men, you beasts,\n" +
+                "    That quench the fire of your pernicious rage\n" +
+                "    With purple fountains issuing from your veins!\n" +
+                "    On pain of torture, from those bloody hands\n" +
+                "    Throw your mistempered weapons to the ground\n" +
+                "    And hear the sentence of your moved prince.";
+        b.decrypt(new AffineCipher(5, 8).encrypt(msg));
+        assertTrue(b.canDecrypt());
+        assertArrayEquals(new int[]{5, 8}, b.key);
+        assertEquals(msg, b.decrypted);
+
+        msg = "Meet me at the old bridge at noon.";
+        b.decrypt(new AffineCipher(11, 20).encrypt(msg));
+        assertTrue(b.canDecrypt());
+        assertArrayEquals(new int[]{11, 20}, b.key);
+        assertEquals(msg, b.decrypted);
+    }
+
+    @Test
+    void decrypt_edgeCase() {
+        b.decrypt("  ");
+        assertFalse(b.canDecrypt());
+
+        b.decrypt("x1y ".repeat(51));
+        assertEquals("", b.decrypted);
+        assertArrayEquals(new int[]{-1, -1}, b.key);
+    }
+
+    @Test
+    void decryptWithin() {
+        String secret = new AffineCipher(7, 3).encrypt("I me my mine myself.");
+        DecryptionResult r = b.decryptWithin(secret, new Budget(AffineCipher.KEYS));
+        assertTrue(r.canDecrypt());
+        assertArrayEquals(new int[]{7, 3}, r.getKey());
+
+        r = b.decryptWithin("qxzjvk qxzjvk", new Budget(3));
+        assertTrue(r.isPartial());
+        assertFalse(r.canDecrypt());
+    }
+}
@@ -0,0 +1,50 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AffineCipherTest {
+    @Test
+    void constructor_throw() {
+        assertThrows(KeyOutOfBoundsException.class, () -> new AffineCipher(2, 1));
+        assertThrows(KeyOutOfBoundsException.class, () -> new AffineCipher(13, 1));
+        assertThrows(KeyOutOfBoundsException.class, () -> new AffineCipher(0, 1));
+        assertThrows(KeyOutOfBoundsException.class, () -> new AffineCipher(27, 1));
+        assertThrows(KeyOutOfBoundsException.class, () -> new AffineCipher(5, -1));
+        assertThrows(KeyOutOfBoundsException.class, () -> AffineCipher.of(5, 26));
+    }
+
+    @Test
+    void encrypt() {
+        assertEquals("", new AffineCipher(5, 8).encrypt("   "));
+        assertEquals("IHHWVC SWFRCP", new AffineCipher(5, 8).encrypt("AFFINE CIPHER"));
+        assertEquals("ihhwvc swfrcp: пить", new AffineCipher(5, 8).encrypt("affine cipher: пить"));
+        // A multiplier of 1 is a Caesar Cipher.
+        assertEquals(new CaesarCipher(3).encrypt("Hello, World"), AffineCipher.of(1, 3).encrypt("Hello, World"));
+    }
+
+    @Test
+    void decrypt() {
+        String msg = "The quick brown fox jumps over the lazy dog.";
+        for (int a = 1; a < 26; a += 2) {
+            if (a == 13)
+                continue;
+            for (int b = 0; b < 26; b++) {
+                AffineCipher cipher = AffineCipher.of(a, b);
+                assertEquals(msg, cipher.decrypt(cipher.encrypt(msg)));
+                assertSame(cipher, cipher.inverse().inverse());
+            }
+        }
+    }
+
+    @Test
+    void of() {
+        assertSame(AffineCipher.of(7, 3), AffineCipher.of(7, 3));
+        AffineCipher cipher = AffineCipher.of(25, 25);
+        assertSame(cipher, AffineCipher.of(cipher.index()));
+        assertEquals(AffineCipher.KEYS - 1, cipher.index());
+    }
+}
@@ -1,11 +1,17 @@
 package io.enfire.cipher;
 
+import io.enfire.util.Threads;
+import io.enfire.util.TopK;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -68,6 +74,18 @@ class BreakerTest {
         assertArrayEquals(new int[26], counter);
     }
 
+    @Test
+    void count_strided() {
+        char[] text = "AbAbz".toCharArray();
+        int[] even = new int[26];
+        even[0] = 2;
+        even[25] = 1;
+        int[] odd = new int[26];
+        odd[1] = 2;
+        assertArrayEquals(even, ab.count(text, 0, 2));
+        assertArrayEquals(odd, ab.count(text, 1, 2));
+    }
+
     @Test
     void getMaxCount() {
         int[] counter = new int[]{6, 0, 5, 2, 7};
@@ -107,6 +125,36 @@ class BreakerTest {
         assertFalse(ab.isEnglish("", 0));
     }
 
+    @Test
+    void tokenize() {
+        char[] text = "(a) bank, 1minus2".toCharArray();
+        // minus, bank, a
+        assertArrayEquals(new int[]{11, 16, 4, 8, 1, 2}, ab.tokenize(text));
+    }
+
+    @Test
+    void tokenize_whitespace() {
+        // A leading whitespace or an empty text yields an empty word, like split does.
+        assertArrayEquals(new int[]{1, 3, 0, 0}, ab.tokenize(" ab".toCharArray()));
+        assertArrayEquals(new int[]{0, 0}, ab.tokenize(new char[0]));
+        assertArrayEquals(new int[0], ab.tokenize(" \t\n".toCharArray()));
+    }
+
+    @Test
+    void tokenize_reused() {
+        // The work buffers of the thread are reused: nothing may leak from a longer text.
+        ab.tokenize("(a) bank, 1minus2 and more words".repeat(20).toCharArray());
+        assertArrayEquals(new int[]{0, 0}, ab.tokenize(new char[0]));
+        assertArrayEquals(new int[]{11, 16, 4, 8, 1, 2}, ab.tokenize("(a) bank, 1minus2".toCharArray()));
+    }
+
+    @Test
+    void calcThreshold_span() {
+        String text = "i ispurz g pax bank bat i lokk stange";
+        char[] chars = (text + " padding words").toCharArray();
+        assertEquals(ab.calcThreshold(text), ab.calcThreshold(chars, text.length()));
+    }
+
     @Test
     void calcThreshold() {
         String s;
@@ -132,6 +180,101 @@ class BreakerTest {
         assertEquals(28, ab.calcThreshold(s.repeat(28)));
     }
 
+    @Test
+    void isUnspaced() {
+        char[] text = "thequickbrownfoxjumpsoverthelazydog".toCharArray();
+        int[] words = ab.tokenize(text);
+        assertTrue(ab.isUnspaced(words, words.length));
+
+        text = "thequ ickbr ownfo xjump sover thela zydog".toCharArray();
+        words = ab.tokenize(text);
+        assertTrue(ab.isUnspaced(words, words.length));
+
+        text = "the quick brown fox jumps over the lazy dog".toCharArray();
+        words = ab.tokenize(text);
+        assertFalse(ab.isUnspaced(words, words.length));
+    }
+
+    @Test
+    void hasRareBigrams() {
+        String s = "the quick brown fox jumps over the lazy dog";
+        assertFalse(ab.hasRareBigrams(s.toCharArray(), s.length()));
+
+        // One rare pair is always allowed: "Iraq" is English.
+        s = "Iraq";
+        assertFalse(ab.hasRareBigrams(s.toCharArray(), s.length()));
+
+        s = new CaesarCipher(5).encrypt("the quick brown fox jumps over the lazy dog");
+        assertTrue(ab.hasRareBigrams(s.toCharArray(), s.length()));
+
+        // Pairs don't span words.
+        s = "q z x j q z";
+        assertFalse(ab.hasRareBigrams(s.toCharArray(), s.length()));
+
+        ab.bigramTolerance = 1;
+        s = "qzxj qzxj";
+        assertFalse(ab.hasRareBigrams(s.toCharArray(), s.length()));
+        ab.bigramTolerance = 0.02;
+
+        // The pairs are English ones: another language doesn't check them.
+        LanguageProfile english = ab.profile;
+        double[] freqs = new double[26];
+        Arrays.fill(freqs, 1);
+        ab.profile = new LanguageProfile("Other", freqs, english.getDictionary());
+        assertFalse(ab.hasRareBigrams(s.toCharArray(), s.length()));
+        ab.profile = english;
+    }
+
+    @Test
+    void race() {
+        String s = "the quick brown fox jumps over the lazy dog while the farmer sleeps under an old tree";
+        char[] text = new CaesarCipher(7).encrypt(s).toCharArray();
+        Scratch scratch = Scratch.get().fit(text.length);
+        int words = ab.tokenize(text, text.length, scratch);
+        Breaker.Decryptor decryptor = (key, src, dst, from, to) -> CaesarCipher.of(key).encrypt(src, dst, from, to, 1);
+
+        int[] keys = new int[26];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        int[] ordered = ab.race(text, words, keys, decryptor, scratch, Breaker.NEVER);
+        assertEquals(19, ordered[0]);
+        assertEquals(0, ordered[1]);
+        assertEquals(18, ordered[19]);
+        assertEquals(20, ordered[20]);
+
+        // A stopped race keeps the order.
+        assertSame(keys, ab.race(text, words, keys, decryptor, scratch, () -> true));
+
+        // Too few words to race.
+        char[] shortText = "wkh txlfn eurzq".toCharArray();
+        words = ab.tokenize(shortText, shortText.length, scratch);
+        assertSame(keys, ab.race(shortText, words, keys, decryptor, scratch, Breaker.NEVER));
+    }
+
+    @Test
+    void evaluate_prunes() {
+        // Even on a wide pool, each of the 4 ranges of 6 or 7 keys has more than k, and the best come first.
+        int candidates = 26;
+        ForkJoinPool pool = new ForkJoinPool(32);
+        AtomicInteger pruned = new AtomicInteger();
+        ab.executor = pool;
+        try {
+            TopK top = ab.evaluate(candidates, 3, () -> (i, floor) -> {
+                long score = candidates - i;
+                if (score < floor) {
+                    pruned.incrementAndGet();
+                }
+                return score;
+            });
+            assertArrayEquals(new int[]{0, 1, 2}, top.ids());
+        } finally {
+            ab.executor = Threads.taskExecutor();
+            pool.shutdown();
+        }
+        assertTrue(pruned.get() >= candidates - 4 * 3, "pruned " + pruned.get());
+    }
+
     private static class AbstractBreaker extends Breaker {
         public AbstractBreaker(String file) throws IOException {
             super(file);
@@ -143,5 +286,9 @@ class BreakerTest {
 
         public void decrypt(String s) {
         }
+
+        protected DecryptionResult solve(String s, BooleanSupplier stopped) {
+            return DecryptionResult.failure(1);
+        }
     }
 }
\ No newline at end of file
@@ -2,9 +2,17 @@ package io.enfire.cipher;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -102,4 +110,228 @@ class CaesarBreakerOneKeyTest {
         assertEquals("Q um ug", b.decrypted);
         assertEquals(25, b.key);
     }
-}
\ No newline at end of file
+
+    @Test
+    void decryptAsync() throws Exception {
+        int key = 17;
+        String msg = "I me my mine myself.";
+        DecryptionResult r = b.decryptAsync(new CaesarCipher(key).encrypt(msg)).get();
+        assertTrue(r.canDecrypt());
+        assertEquals(msg, r.getDecrypted());
+        assertArrayEquals(new int[]{key}, r.getKey());
+        // The message is a view of the secret.
+        assertTrue(r.getPlaintext() instanceof Plaintext);
+    }
+
+    @Test
+    void decryptAsync_timeout() {
+        String secret = new CaesarCipher(3).encrypt("I me my mine myself. ".repeat(2000));
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> b.decryptAsync(secret, 1, TimeUnit.NANOSECONDS).get());
+        assertTrue(e.getCause() instanceof TimeoutException);
+    }
+
+    @Test
+    void solve_stopped() {
+        // Stopped before the first candidate.
+        String secret = new CaesarCipher(3).encrypt("I me my mine myself.");
+        DecryptionResult r = b.solve(secret, () -> true);
+        assertFalse(r.canDecrypt());
+        assertArrayEquals(new int[]{-1}, r.getKey());
+    }
+
+    @Test
+    void rank() {
+        String msg = "Will they not hear? What, ho! you men, you beasts";
+        List<Candidate> ranked = b.rank(new CaesarCipher(7).encrypt(msg), 3);
+
+        assertEquals(3, ranked.size());
+        assertEquals(7, ranked.get(0).getKey()[0]);
+        assertEquals(msg, ranked.get(0).getDecrypted());
+        assertTrue(ranked.get(0).canDecrypt());
+        assertTrue(ranked.get(0).getMargin() > 0);
+        assertEquals(ranked.get(0).getScore() - ranked.get(1).getScore(), ranked.get(0).getMargin());
+        assertTrue(ranked.get(1).getScore() >= ranked.get(2).getScore());
+    }
+
+    @Test
+    void rank_edgeCase() {
+        assertTrue(b.rank("  ", 3).isEmpty());
+        assertTrue(b.rank("abc", 0).isEmpty());
+
+        List<Candidate> ranked = b.rank("x1y ".repeat(5), 30);
+        assertEquals(26, ranked.size());
+        assertFalse(ranked.get(0).canDecrypt());
+    }
+
+    @Test
+    void decrypt_unspaced() {
+        int key = 7;
+        String msg;
+
+        msg = "Thequickbrownfoxjumpsoverthelazydog.";
+        b.decrypt(new CaesarCipher(key).encrypt(msg));
+        assertEquals(msg, b.decrypted);
+        assertEquals(key, b.key);
+
+        msg = "ATTAC KATDA WNNEA RTHEO LDBRI DGE";
+        b.decrypt(new CaesarCipher(key).encrypt(msg));
+        assertEquals(msg, b.decrypted);
+        assertEquals(key, b.key);
+
+        msg = "qxzjvkqxzjvkqxzjvkqxzjvk";
+        b.decrypt(new CaesarCipher(key).encrypt(msg));
+        assertEquals("", b.decrypted);
+        assertEquals(-1, b.key);
+    }
+
+    @Test
+    void decrypt_cribs() {
+        int key = 7;
+        String msg = "I me my mine myself. Bob";
+        String secret = new CaesarCipher(key).encrypt(msg);
+
+        b.decrypt(secret, "myself", "Bob");
+        assertEquals(msg, b.decrypted);
+        assertEquals(key, b.key);
+
+        b.decrypt(secret, "myself", "Alice");
+        assertEquals("", b.decrypted);
+        assertEquals(-1, b.key);
+
+        assertThrows(IllegalArgumentException.class, () -> b.decrypt(secret, "1984"));
+    }
+
+    @Test
+    void decryptWithin() {
+        int key = 17;
+        String msg = "I me my mine myself.";
+        String secret = new CaesarCipher(key).encrypt(msg);
+
+        DecryptionResult r = b.decryptWithin(secret, new Budget(26));
+        assertFalse(r.isPartial());
+        assertEquals(msg, r.getDecrypted());
+        assertEquals(key, r.getKey()[0]);
+
+        // Brute force tries the decryption key 9 tenth.
+        r = b.decryptWithin(secret, new Budget(5));
+        assertTrue(r.isPartial());
+        assertFalse(r.canDecrypt());
+        assertNotEquals(key, r.getKey()[0]);
+        assertEquals(secret.length(), r.getDecrypted().length());
+
+        r = b.decryptWithin(secret, new Budget(0, TimeUnit.SECONDS));
+        assertFalse(r.isPartial());
+        assertFalse(r.canDecrypt());
+
+        // Without running out, a failure is not partial.
+        r = b.decryptWithin("I me my mi1ne.", new Budget(1, TimeUnit.MINUTES));
+        assertFalse(r.isPartial());
+        assertFalse(r.canDecrypt());
+    }
+
+    @Test
+    void decryptAll() {
+        String[] msgs = {"Meet me at noon", "The eagle has landed", "We attack at dawn",
+                "Hold your position", "Go home", "Retreat to the river"};
+        int[] keys = {7, 7, 19, 7, 19, 19};
+        List<String> secrets = new ArrayList<>();
+        for (int i = 0; i < msgs.length; i++) {
+            secrets.add(new CaesarCipher(keys[i]).encrypt(msgs[i]));
+        }
+        secrets.add("   ");
+        secrets.add("1234 5678");
+
+        List<DecryptionResult> results = b.decryptAll(secrets);
+        assertEquals(secrets.size(), results.size());
+        for (int i = 0; i < msgs.length; i++) {
+            assertTrue(results.get(i).canDecrypt());
+            assertEquals(msgs[i], results.get(i).getDecrypted());
+            assertEquals(keys[i], results.get(i).getKey()[0]);
+        }
+        assertFalse(results.get(6).canDecrypt());
+        assertFalse(results.get(7).canDecrypt());
+
+        assertTrue(b.decryptAll(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    void decryptSegments() {
+        String[] msgs = {
+                "It was the best of times, it was the worst of times, it was the age of wisdom, it was the age of "
+                        + "foolishness, it was the epoch of belief, it was the epoch of incredulity, it was the season "
+                        + "of light, it was the season of darkness, it was the spring of hope. ",
+                "We had everything before us, we had nothing before us, we were all going direct to heaven, we were "
+                        + "all going direct the other way. In short, the period was so far like the present period "
+                        + "that some of its noisiest authorities insisted on its being received."};
+        int[] keys = {5, 17};
+        String secret = new CaesarCipher(keys[0]).encrypt(msgs[0]) + new CaesarCipher(keys[1]).encrypt(msgs[1]);
+
+        List<KeySegment> segments = b.decryptSegments(secret);
+        assertEquals(2, segments.size());
+        int start = 0;
+        for (int i = 0; i < msgs.length; i++) {
+            KeySegment segment = segments.get(i);
+            assertTrue(segment.canDecrypt());
+            assertEquals(keys[i], segment.getKey()[0]);
+            assertEquals(msgs[i], segment.getDecrypted());
+            assertEquals(start, segment.getStart());
+            assertEquals(start + msgs[i].length(), segment.getEnd());
+            start = segment.getEnd();
+        }
+
+        // One key, one segment.
+        segments = b.decryptSegments(new CaesarCipher(keys[1]).encrypt(msgs[1]));
+        assertEquals(1, segments.size());
+        assertEquals(msgs[1], segments.get(0).getDecrypted());
+
+        assertTrue(b.decryptSegments("  ").isEmpty());
+    }
+
+    @Test
+    void decrypt_smallDictionary(@TempDir Path dir) throws IOException {
+        // Too few words to tell the rare letter pairs: they don't reject the message.
+        Path words = dir.resolve("words.txt");
+        Files.write(words, List.of("attack", "at", "dawn", "the", "secret", "meeting", "is", "tonight",
+                "hello", "world", "cipher", "key", "message", "plain", "text", "shift"));
+        CaesarBreakerOneKey small = new CaesarBreakerOneKey(new Dictionary(words.toString()));
+
+        String msg = "attack at dawn the secret meeting is tonight hello world";
+        small.decrypt(new CaesarCipher(7).encrypt(msg));
+        assertEquals(msg, small.decrypted);
+        assertEquals(7, small.key);
+        assertFalse(small.hasRareBigrams(msg.toCharArray(), msg.length()));
+    }
+
+    @Test
+    void identify(@TempDir Path dir) throws IOException {
+        // Spanish letter frequencies, in percent.
+        double[] freqs = {
+                11.53, 2.22, 4.02, 5.01, 12.18, 0.69, 1.77, 0.70, 6.25, 0.49, 0.01, 4.97, 3.16,
+                6.71, 8.68, 2.51, 0.88, 6.87, 7.98, 4.63, 2.93, 1.14, 0.02, 0.22, 1.01, 0.47};
+        Path words = dir.resolve("spanish.txt");
+        Files.write(words, List.of("el", "perro", "come", "la", "comida", "de", "casa", "y", "los", "gatos",
+                "duermen", "en", "patio", "escuela", "cada", "semana", "por", "tarde"));
+        LanguageProfile spanish = new LanguageProfile("Spanish", freqs, new Dictionary(words.toString()));
+        LanguageProfile english = LanguageProfile.english(Dictionary.bundled());
+        List<LanguageProfile> languages = List.of(english, spanish);
+
+        String msg = "El perro come la comida de la casa y los gatos duermen en el patio de la escuela cada tarde";
+        LanguageResult r = b.identify(new CaesarCipher(11).encrypt(msg), languages);
+        assertTrue(r.canDecrypt());
+        assertSame(spanish, r.getLanguage());
+        assertEquals(11, r.getKey()[0]);
+        assertEquals(msg, r.getDecrypted());
+
+        msg = "Meet me at the old bridge at noon";
+        r = b.identify(new CaesarCipher(4).encrypt(msg), languages);
+        assertSame(english, r.getLanguage());
+        assertEquals(4, r.getKey()[0]);
+        assertEquals(msg, r.getDecrypted());
+
+        r = b.identify("qxzjvk qxzjvk", languages);
+        assertFalse(r.canDecrypt());
+        assertNull(r.getLanguage());
+        assertFalse(b.identify("  ", languages).canDecrypt());
+    }
+}
@@ -5,6 +5,9 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -84,6 +87,44 @@ class CaesarBreakerTwoKeyTest {
         assertArrayEquals(new int[]{-1, -1}, b.key);
     }
 
+    @Test
+    void decrypt_race() {
+        // The keys are raced: the right pair is the first candidate checked.
+        int[] key = new int[]{0, 9};
+        String msg = "The farmer walked along the river with his daughter and found an old boat hidden " +
+                "under the willow trees near the bridge.";
+        DecryptionResult r = b.decryptWithin(new CaesarCipher(key[0], key[1]).encrypt(msg), new Budget(1));
+        assertTrue(r.canDecrypt());
+        assertFalse(r.isPartial());
+        assertEquals(msg, r.getDecrypted());
+        assertArrayEquals(key, r.getKey());
+
+        msg = "Prince. Rebellious subjects, enemies to peace, profaners of this neighbour-stained steel. " +
+                "Will they not hear? What, ho! you men, you beasts, that quench the fire of your pernicious " +
+                "rage with purple fountains issuing from your veins! On pain of torture, from those bloody " +
+                "hands throw your mistempered weapons to the ground and hear the sentence of your moved prince.";
+        r = b.decryptWithin(new CaesarCipher(key[0], key[1]).encrypt(msg), new Budget(1));
+        assertTrue(r.canDecrypt());
+        assertEquals(msg, r.getDecrypted());
+        assertArrayEquals(key, r.getKey());
+    }
+
+    @Test
+    void decrypt_fallback() {
+        // The most frequent letters of the halves are 'a' and 'o': frequency analysis misses the keys.
+        int[] key = new int[]{5, 22};
+        String msg = "Tom took his old brown dog to town for a walk along a dusty road past a pond " +
+                "full of frogs and a tall oak which stood by a small farm.";
+        b.decrypt(new CaesarCipher(key[0], key[1]).encrypt(msg));
+        assertEquals(msg, b.decrypted);
+        assertArrayEquals(key, b.key);
+
+        msg = "I me my mi1ne.";
+        b.decrypt(new CaesarCipher(key[0], key[1]).encrypt(msg));
+        assertEquals("", b.decrypted);
+        assertArrayEquals(new int[]{-1, -1}, b.key);
+    }
+
     @Test
     void decrypt_edgeCase() {
         int[] key = new int[]{7, 17};
@@ -110,4 +151,88 @@ class CaesarBreakerTwoKeyTest {
         assertEquals("H le mx lime.", b.decrypted);
         assertArrayEquals(new int[]{8, 17}, b.key);
     }
-}
\ No newline at end of file
+
+    @Test
+    void decryptAsync() throws Exception {
+        int[] key = new int[]{17, 1};
+        String msg = "I me my mine myself.";
+        DecryptionResult r = b.decryptAsync(new CaesarCipher(key[0], key[1]).encrypt(msg)).get();
+        assertTrue(r.canDecrypt());
+        assertEquals(msg, r.getDecrypted());
+        assertArrayEquals(key, r.getKey());
+    }
+
+    @Test
+    void decryptAsync_cancel() throws Exception {
+        // Not English: brute force would go through all 676 candidates.
+        String secret = "I me my mi1ne. ".repeat(2000);
+        CompletableFuture<DecryptionResult> f = b.decryptAsync(secret);
+        assertTrue(f.cancel(true));
+        assertTrue(f.isCancelled());
+    }
+
+    @Test
+    void solve_stopped() {
+        String secret = new CaesarCipher(3, 5).encrypt("I me my mine myself.");
+        DecryptionResult r = b.solve(secret, () -> true);
+        assertFalse(r.canDecrypt());
+        assertArrayEquals(new int[]{-1, -1}, r.getKey());
+    }
+
+    @Test
+    void rank() {
+        String msg = "Will they not hear? What, ho! you men, you beasts";
+        List<Candidate> ranked = b.rank(new CaesarCipher(3, 5).encrypt(msg), 2);
+
+        assertEquals(2, ranked.size());
+        assertArrayEquals(new int[]{3, 5}, ranked.get(0).getKey());
+        assertEquals(msg, ranked.get(0).getDecrypted());
+        assertTrue(ranked.get(0).canDecrypt());
+        assertEquals(ranked.get(0).getScore() - ranked.get(1).getScore(), ranked.get(0).getMargin());
+        assertTrue(ranked.get(0).getMargin() > 0);
+    }
+
+    @Test
+    void decrypt_unspaced() {
+        int[] key = new int[]{7, 20};
+        String msg = "Thequickbrownfoxjumpsoverthelazydog.";
+        b.decrypt(new CaesarCipher(key[0], key[1]).encrypt(msg));
+        assertEquals(msg, b.decrypted);
+        assertArrayEquals(key, b.key);
+
+        msg = "qxzjvkqxzjvkqxzjvkqxzjvk";
+        b.decrypt(new CaesarCipher(key[0], key[1]).encrypt(msg));
+        assertEquals("", b.decrypted);
+        assertArrayEquals(new int[]{-1, -1}, b.key);
+    }
+
+    @Test
+    void decrypt_cribs() {
+        int[] key = new int[]{7, 20};
+        String msg = "I me my mine myself. Bob";
+        String secret = new CaesarCipher(key[0], key[1]).encrypt(msg);
+
+        b.decrypt(secret, "mine", "Bob");
+        assertEquals(msg, b.decrypted);
+        assertArrayEquals(key, b.key);
+
+        b.decrypt(secret, "Alice");
+        assertEquals("", b.decrypted);
+        assertArrayEquals(new int[]{-1, -1}, b.key);
+    }
+
+    @Test
+    void decryptWithin() {
+        int[] key = new int[]{7, 20};
+        String secret = new CaesarCipher(key[0], key[1]).encrypt("I me my mine myself.");
+        DecryptionResult r = b.decryptWithin(secret, new Budget(3));
+        assertTrue(r.isPartial());
+        assertEquals(2, r.getKey().length);
+
+        // A large secret which is no English stops in time, within a candidate.
+        long start = System.nanoTime();
+        r = b.decryptWithin("qxzjvk".repeat(100000), new Budget(50, TimeUnit.MILLISECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertFalse(r.canDecrypt());
+    }
+}
@@ -2,7 +2,13 @@ package io.enfire.cipher;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class CaesarCipherTest {
@@ -33,6 +39,18 @@ class CaesarCipherTest {
         assertEquals("irk foh", new CaesarCipher(8, 16).encrypt(msg));
     }
 
+    @Test
+    void encrypt_strided() {
+        char[] msg = "abc xyz".toCharArray();
+        char[] dst = new char[msg.length];
+        new CaesarCipher(12).encrypt(msg, dst, 0, 2);
+        new CaesarCipher(6).encrypt(msg, dst, 1, 2);
+        assertEquals("mho jel", new String(dst));
+
+        new CaesarCipher(1, 2).encrypt(msg, msg, 1, 2);
+        assertEquals("acc xzz", new String(msg));
+    }
+
     @Test
     void encrypt_mixedCharacters() {
         String msg = "he says: пить молоко";
@@ -45,4 +63,62 @@ class CaesarCipherTest {
         assertEquals("Lm!", new CaesarCipher(4).encrypt("Hi!"));
         assertEquals("Ab Ba", new CaesarCipher(12, 13).encrypt("Oo Oo"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void encrypt_bytes() {
+        String msg = "The quick brown fox jumps over the lazy dog. 123";
+        byte[] bytes = msg.getBytes(StandardCharsets.UTF_8);
+        byte[] dst = new byte[bytes.length + 2];
+
+        CaesarCipher cipher = new CaesarCipher(7);
+        cipher.encrypt(bytes, 0, dst, 2, bytes.length);
+        assertEquals(cipher.encrypt(msg), new String(dst, 2, bytes.length, StandardCharsets.UTF_8));
+
+        cipher = new CaesarCipher(5, 21);
+        cipher.encrypt(bytes, 0, bytes, 0, bytes.length);
+        assertEquals(cipher.encrypt(msg), new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void encrypt_bytesMixedCharacters() {
+        // 2, 3 and 4-byte sequences, the last one being two characters.
+        String msg = "he says: пить молоко, 東京 and \uD83D\uDE00 some more plain ASCII text";
+        CaesarCipher cipher = new CaesarCipher(5, 21);
+        byte[] bytes = msg.getBytes(StandardCharsets.UTF_8);
+        cipher.encrypt(bytes, 0, bytes, 0, bytes.length);
+        assertEquals(cipher.encrypt(msg), new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void encrypt_byteBuffer() {
+        String msg = "Ab Ba, ça va? ".repeat(1000);
+        CaesarCipher cipher = new CaesarCipher(12, 13);
+        ByteBuffer src = ByteBuffer.allocateDirect(msg.length() * 2);
+        src.put(msg.getBytes(StandardCharsets.UTF_8)).flip();
+        ByteBuffer dst = ByteBuffer.allocateDirect(src.remaining());
+
+        cipher.encrypt(src, dst);
+        assertFalse(src.hasRemaining());
+        assertFalse(dst.hasRemaining());
+        dst.flip();
+        assertEquals(cipher.encrypt(msg), StandardCharsets.UTF_8.decode(dst).toString());
+    }
+
+    @Test
+    void of() {
+        assertSame(CaesarCipher.of(3), CaesarCipher.of(3));
+        assertSame(CaesarCipher.of(3, 26), CaesarCipher.of(3, 26));
+        assertNotSame(CaesarCipher.of(3, 4), CaesarCipher.of(4, 3));
+
+        String msg = "Oo Oo, he says: пить молоко";
+        assertEquals(new CaesarCipher(12).encrypt(msg), CaesarCipher.of(12).encrypt(msg));
+        assertEquals(new CaesarCipher(12, 13).encrypt(msg), CaesarCipher.of(12, 13).encrypt(msg));
+        assertEquals(msg, CaesarCipher.of(26).encrypt(msg));
+    }
+
+    @Test
+    void of_throws() {
+        assertThrows(KeyOutOfBoundsException.class, () -> CaesarCipher.of(27));
+        assertThrows(KeyOutOfBoundsException.class, () -> CaesarCipher.of(1, -1));
+    }
+}
@@ -0,0 +1,169 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaesarStreamBreakerTest {
+    static CaesarStreamBreaker b;
+
+    // An excerpt from Romeo and Juliet (59 words).
+    static String msg = "Prince. Rebellious subjects, enemies to peace,\n" +
+            "    Profaners of this neighbour-stained steel-\n" +
+            "    Will they not hear? What, ho! you men, you beasts,\n" +
+            "    That quench the fire of your pernicious rage\n" +
+            "    With purple fountains issuing from your veins!\n" +
+            "    On pain of torture, from those bloody hands\n" +
+            "    Throw your mistempered weapons to the ground\n" +
+            "    And hear the sentence of your moved prince.";
+
+    @BeforeAll
+    static void setUp() {
+        String file = new File("").getAbsolutePath() + "/src/main/resources/dictionary.txt";
+        try {
+            b = new CaesarStreamBreaker(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    void canDecrypt() {
+        b.key = 1;
+        assertTrue(b.canDecrypt());
+
+        b.key = -1;
+        assertFalse(b.canDecrypt());
+    }
+
+    @Test
+    void decrypt() {
+        int key = 7;
+        b.decrypt(new CaesarCipher(key).encrypt(msg));
+        assertEquals(msg, b.decrypted);
+        assertEquals(key, b.key);
+
+        b.decrypt("I me my mi1ne.");
+        assertEquals("", b.decrypted);
+        assertEquals(-1, b.key);
+    }
+
+    @Test
+    void decrypt_shortStream() {
+        // Too short to be confident: falls back to the whole text.
+        int key = 17;
+        String s = "I me my mine myself.";
+        b.decrypt(new CaesarCipher(key).encrypt(s));
+        assertEquals(s, b.decrypted);
+        assertEquals(key, b.key);
+    }
+
+    @Test
+    void decrypt_channel() throws IOException {
+        int key = 3;
+        byte[] secret = new CaesarCipher(key).encrypt(msg).getBytes(StandardCharsets.UTF_8);
+        StringWriter out = new StringWriter();
+        b.decrypt(Channels.newChannel(new ByteArrayInputStream(secret)), StandardCharsets.UTF_8, out);
+        assertEquals(msg, out.toString());
+        assertEquals(key, b.key);
+    }
+
+    @Test
+    void decrypt_firstWriteBeforeEnd() throws IOException {
+        int key = 11;
+        String secret = new CaesarCipher(key).encrypt(msg.repeat(1000));
+        CountingReader in = new CountingReader(new StringReader(secret));
+        int[] readAtFirstWrite = {-1};
+        StringWriter sink = new StringWriter();
+
+        b.decrypt(in, new Writer() {
+            @Override
+            public void write(char[] buf, int off, int len) {
+                if (readAtFirstWrite[0] == -1) {
+                    readAtFirstWrite[0] = in.count;
+                }
+                sink.write(buf, off, len);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        assertEquals(key, b.key);
+        assertEquals(msg.repeat(1000), sink.toString());
+        assertTrue(readAtFirstWrite[0] < secret.length() / 10);
+    }
+
+    @Test
+    void decrypt_maxBuffered() throws IOException {
+        // No spaces: no word is complete until the end, so no key is ever confident.
+        int key = 5;
+        String plain = msg.replaceAll("[^A-Za-z]", "").repeat(200);
+        CountingReader in = new CountingReader(new StringReader(new CaesarCipher(key).encrypt(plain)));
+        int[] readAtFirstWrite = {-1};
+        StringWriter sink = new StringWriter();
+        CaesarStreamBreaker breaker = new CaesarStreamBreaker(b.dictionary);
+        breaker.maxBuffered = 2000;
+
+        breaker.decrypt(in, new Writer() {
+            @Override
+            public void write(char[] buf, int off, int len) {
+                if (readAtFirstWrite[0] == -1) {
+                    readAtFirstWrite[0] = in.count;
+                }
+                sink.write(buf, off, len);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        assertEquals(key, breaker.key);
+        assertEquals(plain, sink.toString());
+        assertEquals(2000, readAtFirstWrite[0]);
+    }
+
+    private static class CountingReader extends Reader {
+        private final Reader in;
+        private int count;
+
+        private CountingReader(Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] buf, int off, int len) throws IOException {
+            int n = in.read(buf, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
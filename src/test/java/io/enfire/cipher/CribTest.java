@@ -0,0 +1,57 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CribTest {
+    @Test
+    void keys_oneKey() {
+        char[] text = new CaesarCipher(3).encrypt("Meet me at the old bridge. Regards, Bob").toCharArray();
+        BitSet keys = new Crib("Regards", 1).keys(text, text.length);
+        assertEquals(1, keys.cardinality());
+        assertTrue(keys.get(23));
+
+        keys = new Crib("the old", 1).keys(text, text.length);
+        assertEquals(1, keys.cardinality());
+        assertTrue(keys.get(23));
+
+        // Case and other characters are kept by the cipher.
+        assertTrue(new Crib("regards", 1).keys(text, text.length).isEmpty());
+        assertTrue(new Crib("the  old", 1).keys(text, text.length).isEmpty());
+        assertTrue(new Crib("Regards, Bob!", 1).keys(text, text.length).isEmpty());
+    }
+
+    @Test
+    void keys_shortCrib() {
+        char[] text = "ab ba".toCharArray();
+        BitSet keys = new Crib(" c", 1).keys(text, text.length);
+        assertEquals(1, keys.cardinality());
+        assertTrue(keys.get(1));
+
+        keys = new Crib("c", 1).keys(text, text.length);
+        assertEquals(2, keys.cardinality());
+        assertTrue(keys.get(1));
+        assertTrue(keys.get(2));
+    }
+
+    @Test
+    void keys_twoKeys() {
+        char[] text = new CaesarCipher(5, 20).encrypt("Meet me at the old bridge. Regards, Bob").toCharArray();
+        BitSet keys = new Crib("Regards", 2).keys(text, text.length);
+        assertEquals(1, keys.cardinality());
+        assertTrue(keys.get(21 * 26 + 6));
+
+        // A single letter fixes one of the keys only.
+        keys = new Crib(", B", 2).keys(text, text.length);
+        assertEquals(26, keys.cardinality());
+    }
+
+    @Test
+    void constructor_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new Crib(" 12, ", 1));
+        assertThrows(IllegalArgumentException.class, () -> new Crib("", 2));
+    }
+}
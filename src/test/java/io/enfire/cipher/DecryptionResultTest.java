@@ -0,0 +1,65 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecryptionResultTest {
+    @Test
+    void canDecrypt() {
+        assertTrue(new DecryptionResult(new int[]{1, 2}, "a").canDecrypt());
+
+        assertFalse(new DecryptionResult(new int[]{1, -1}, "a").canDecrypt());
+        assertFalse(new DecryptionResult(new int[]{1, 2}, "  ").canDecrypt());
+        assertFalse(new DecryptionResult(new int[0], "a").canDecrypt());
+    }
+
+    @Test
+    void failure() {
+        DecryptionResult r = DecryptionResult.failure(2);
+        assertFalse(r.canDecrypt());
+        assertArrayEquals(new int[]{-1, -1}, r.getKey());
+        assertEquals("", r.getDecrypted());
+    }
+
+    @Test
+    void getKey_copy() {
+        int[] key = new int[]{1};
+        DecryptionResult r = new DecryptionResult(key, "a");
+        key[0] = 5;
+        r.getKey()[0] = 5;
+        assertArrayEquals(new int[]{1}, r.getKey());
+    }
+
+    @Test
+    void isPartial() {
+        DecryptionResult r = new DecryptionResult(new int[]{1, 2}, "a", true);
+        assertTrue(r.isPartial());
+        assertFalse(r.canDecrypt());
+        assertFalse(new DecryptionResult(new int[]{1, 2}, "a").isPartial());
+        assertFalse(DecryptionResult.failure(1).isPartial());
+    }
+
+    @Test
+    void getPlaintext() throws IOException {
+        String msg = "I me my mine myself.";
+        Plaintext p = Plaintext.of(new CaesarCipher(4).encrypt(msg), CaesarCipher.of(22));
+        DecryptionResult r = new DecryptionResult(new int[]{4}, p);
+        assertSame(p, r.getPlaintext());
+        assertEquals(msg, r.getDecrypted());
+        assertTrue(r.canDecrypt());
+
+        StringWriter out = new StringWriter();
+        r.writeTo(out);
+        assertEquals(msg, out.toString());
+
+        out = new StringWriter();
+        new DecryptionResult(new int[]{4}, msg).writeTo(out);
+        assertEquals(msg, out.toString());
+
+        assertFalse(new DecryptionResult(new int[]{4}, Plaintext.of(" \n ", CaesarCipher.of(22))).canDecrypt());
+    }
+}
@@ -3,9 +3,16 @@ package io.enfire.cipher;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,7 +31,7 @@ class DictionaryTest {
         s += "long".repeat(12);
 
         try {
-            FileWriter w = new FileWriter(file);
+            FileWriter w = new FileWriter(file, StandardCharsets.UTF_8);
             w.write(s);
             w.close();
             d = new Dictionary(file);
@@ -70,4 +77,242 @@ class DictionaryTest {
     void lookup_longerThanMax() {
         assertTrue(d.lookup("long".repeat(12)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void lookup_span() {
+        char[] text = "a damp DEMON".toCharArray();
+        assertTrue(d.lookup(text, 2, 6));
+        assertTrue(d.lookup(text, 7, 12));
+
+        assertFalse(d.lookup(text, 2, 5));
+        assertFalse(d.lookup(text, 1, 2));
+        assertFalse(d.lookup(text, 2, 2));
+    }
+
+    @Test
+    void hasPrefix() {
+        assertTrue(d.hasPrefix("dam"));
+        assertTrue(d.hasPrefix("EARTH"));
+        assertTrue(d.hasPrefix("ça "));
+
+        assertFalse(d.hasPrefix(""));
+        assertFalse(d.hasPrefix("dame"));
+        assertFalse(d.hasPrefix("apple"));
+    }
+
+    @Test
+    void loading() throws IOException {
+        String file = new File("").getAbsolutePath() + "/src/main/resources/dictionary.txt";
+        for (Dictionary.Loading loading : Dictionary.Loading.values()) {
+            Dictionary dict = new Dictionary(file, loading);
+            assertTrue(dict.lookup("Aardvark"), loading.name());
+            assertTrue(dict.lookup("zebra"), loading.name());
+            assertTrue(dict.hasPrefix("neighbo"), loading.name());
+            assertFalse(dict.lookup("mineeeee"), loading.name());
+        }
+    }
+
+    @Test
+    void loading_sameWords() throws IOException {
+        String file = new File("").getAbsolutePath() + "/src/testLoading.txt";
+        String s = "ça va\r\n   damp\n\n\t demon \r EARTHY\n1st\n" + "long".repeat(12);
+        FileWriter w = new FileWriter(file, StandardCharsets.UTF_8);
+        w.write(s);
+        w.close();
+
+        try {
+            List<String> expected = new ArrayList<>();
+            new Dictionary(file).forEach(expected::add);
+            for (Dictionary.Loading loading : Dictionary.Loading.values()) {
+                List<String> words = new ArrayList<>();
+                new Dictionary(file, loading).forEach(words::add);
+                assertEquals(expected, words, loading.name());
+            }
+            assertEquals(6, expected.size());
+        } finally {
+            assertTrue(new File(file).delete());
+        }
+    }
+
+    @Test
+    void loading_throws() {
+        assertThrows(IOException.class, () -> new Dictionary("doesNotExist.txt", Dictionary.Loading.LAZY));
+    }
+
+    @Test
+    void bundled() throws IOException {
+        Dictionary dict = Dictionary.bundled();
+        assertTrue(dict.lookup("Aardvark"));
+        assertTrue(dict.lookup("zebra"));
+        assertTrue(dict.hasPrefix("neighbo"));
+        assertFalse(dict.lookup("mineeeee"));
+    }
+
+    @Test
+    void writeIndex() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        d.writeIndex(out);
+        Dictionary dict = Dictionary.read(ByteBuffer.wrap(out.toByteArray()));
+
+        List<String> expected = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        d.forEach(expected::add);
+        dict.forEach(words::add);
+        assertEquals(expected, words);
+        assertTrue(dict.lookup("ça va"));
+    }
+
+    @Test
+    void read_throws() throws IOException {
+        assertThrows(IOException.class, () -> Dictionary.read(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        d.writeIndex(out);
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 4);
+        assertThrows(IOException.class, () -> Dictionary.read(ByteBuffer.wrap(truncated)));
+    }
+
+    @Test
+    void matchPrefixes() {
+        char[] text = "xEarthyz".toCharArray();
+        int[] ends = new int[text.length + 1];
+        assertEquals(2, d.matchPrefixes(text, 1, text.length, ends));
+        assertEquals(6, ends[0]);
+        assertEquals(7, ends[1]);
+
+        assertEquals(1, d.matchPrefixes(text, 1, 6, ends));
+        assertEquals(0, d.matchPrefixes(text, 0, text.length, ends));
+        assertEquals(0, d.matchPrefixes(text, 2, 2, ends));
+    }
+
+    @Test
+    void add_remove() throws IOException {
+        Dictionary dict = Dictionary.bundled();
+        char[] text = "a Zorblax b".toCharArray();
+        int[] ends = new int[text.length];
+        assertFalse(dict.lookup("zorblax"));
+
+        assertTrue(dict.add("Zorblax"));
+        assertFalse(dict.add("zorblax "));
+        assertTrue(dict.lookup("ZORBLAX"));
+        assertTrue(dict.lookup(text, 2, 9));
+        assertTrue(dict.hasPrefix("zorb"));
+
+        assertTrue(dict.remove("zebra"));
+        assertFalse(dict.remove("zebra"));
+        assertFalse(dict.lookup("zebra"));
+        assertTrue(dict.lookup("zebras"));
+        int count = dict.matchPrefixes("zebras".toCharArray(), 0, 6, ends);
+        assertEquals(6, ends[count - 1]);
+        assertTrue(Arrays.stream(ends, 0, count).noneMatch(end -> end == 5));
+
+        assertTrue(dict.add("zebra"));
+        assertTrue(dict.lookup("zebra"));
+        assertTrue(dict.remove("zorblax"));
+        assertFalse(dict.lookup(text, 2, 9));
+        assertFalse(dict.add(" "));
+    }
+
+    @Test
+    void add_merges() throws IOException {
+        Dictionary dict = Dictionary.bundled();
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            String word = "qq" + Integer.toString(i, 26).replace('0', 'z');
+            assertTrue(dict.add(word), word);
+            added.add(word);
+        }
+        assertTrue(dict.remove("quack"));
+
+        for (String word : added) {
+            assertTrue(dict.lookup(word), word);
+        }
+        assertFalse(dict.lookup("quack"));
+        assertTrue(dict.lookup("quick"));
+
+        List<String> words = new ArrayList<>();
+        dict.forEach(words::add);
+        assertTrue(words.containsAll(added));
+        assertFalse(words.contains("quack"));
+    }
+
+    @Test
+    void reload() throws IOException {
+        String file = new File("").getAbsolutePath() + "/src/testReload.txt";
+        FileWriter w = new FileWriter(file, StandardCharsets.UTF_8);
+        w.write("apple\nbanana");
+        w.close();
+
+        try {
+            Dictionary dict = new Dictionary(file, Dictionary.Loading.LAZY);
+            dict.add("cherry");
+            assertTrue(dict.lookup("apple"));
+            assertTrue(dict.lookup("cherry"));
+
+            w = new FileWriter(file);
+            w.write("banana\ndurian");
+            w.close();
+            dict.reload(file);
+
+            assertFalse(dict.lookup("apple"));
+            assertFalse(dict.lookup("cherry"));
+            assertTrue(dict.lookup("banana"));
+            assertTrue(dict.lookup("durian"));
+            assertThrows(IOException.class, () -> dict.reload("doesNotExist.txt"));
+            assertTrue(dict.lookup("durian"));
+        } finally {
+            assertTrue(new File(file).delete());
+        }
+    }
+
+    @Test
+    void add_concurrentLookups() throws Exception {
+        Dictionary dict = Dictionary.bundled();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicBoolean failed = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            char[] text = "the quick brown fox".toCharArray();
+            while (!done.get()) {
+                if (!dict.lookup(text, 4, 9) || !dict.lookup("fox")) {
+                    failed.set(true);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 300; i++) {
+            dict.add("quick" + Integer.toString(i, 26).replace('0', 'z'));
+        }
+        done.set(true);
+        reader.join();
+
+        assertFalse(failed.get());
+        assertTrue(dict.lookup("quickb"));
+    }
+
+    @Test
+    void rareBigrams() throws IOException {
+        int[] rare = Dictionary.bundled().rareBigrams();
+        assertEquals(26, rare.length);
+        // q is nearly always followed by u.
+        assertEquals(0, rare['q' - 'a'] & (1 << ('u' - 'a')));
+        assertNotEquals(0, rare['q' - 'a'] & (1 << ('z' - 'a')));
+        assertNotEquals(0, rare['x' - 'a'] & (1 << ('j' - 'a')));
+        assertEquals(0, rare['t' - 'a'] & (1 << ('h' - 'a')));
+    }
+
+    @Test
+    void rareBigrams_loading() throws IOException {
+        String file = new File("").getAbsolutePath() + "/src/main/resources/dictionary.txt";
+        int[] expected = Dictionary.bundled().rareBigrams();
+        for (Dictionary.Loading loading : Dictionary.Loading.values()) {
+            assertArrayEquals(expected, new Dictionary(file, loading).rareBigrams(), loading.name());
+        }
+
+        Dictionary dict = new Dictionary(file, Dictionary.Loading.LAZY);
+        assertEquals(0, dict.builtShards());
+        CaesarBreakerOneKey breaker = new CaesarBreakerOneKey(dict);
+        assertTrue(breaker.isEnglish("the cat sat on the mat", 1));
+        // Only the shards of t, c, s, o and m at most.
+        assertTrue(dict.builtShards() <= 5, "built " + dict.builtShards());
+    }
+}
@@ -0,0 +1,62 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LanguageProfileTest {
+    static LanguageProfile english;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        english = LanguageProfile.english(Dictionary.bundled());
+    }
+
+    @Test
+    void constructor_throw() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LanguageProfile("x", new double[25], english.getDictionary()));
+    }
+
+    @Test
+    void threshold() {
+        assertEquals(0, english.threshold(0));
+        assertEquals(4, english.threshold(5));
+        assertEquals(5, english.threshold(10));
+        assertEquals(40, english.threshold(200));
+
+        assertTrue(english.accepts(8, 10, 5));
+        assertFalse(english.accepts(5, 10, 5));
+        assertFalse(english.accepts(0, 0, 0));
+    }
+
+    @Test
+    void scoreKeys() {
+        char[] secret = new CaesarCipher(7).encrypt("The quick brown fox jumps over the lazy dog").toCharArray();
+        int[] counter = new int[26];
+        for (char c : secret) {
+            if (Character.isLetter(c)) {
+                counter[Character.toLowerCase(c) - 'a']++;
+            }
+        }
+        double[] scores = english.scoreKeys(counter);
+        int best = 0;
+        for (int k = 1; k < scores.length; k++) {
+            if (scores[k] > scores[best]) {
+                best = k;
+            }
+        }
+        // Decrypting undoes the shift of 7.
+        assertEquals(19, best);
+    }
+
+    @Test
+    void hits() {
+        char[] text = "the cat qxz".toCharArray();
+        assertEquals(2, english.hits(text, new int[]{0, 3, 4, 7, 8, 11}));
+        assertEquals(0, english.hits(text, new int[0]));
+    }
+}
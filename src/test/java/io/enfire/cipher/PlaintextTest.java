@@ -0,0 +1,57 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaintextTest {
+    @Test
+    void charAt() {
+        String msg = "Hello, World!";
+        String secret = new CaesarCipher(3).encrypt(msg);
+        Plaintext p = Plaintext.of(secret, CaesarCipher.of(23));
+        assertEquals(msg.length(), p.length());
+        for (int i = 0; i < msg.length(); i++) {
+            assertEquals(msg.charAt(i), p.charAt(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> p.charAt(msg.length()));
+        assertThrows(IndexOutOfBoundsException.class, () -> p.charAt(-1));
+    }
+
+    @Test
+    void subSequence_twoKeys() {
+        String msg = "The quick brown fox jumps over the lazy dog.";
+        String secret = new CaesarCipher(7, 20).encrypt(msg);
+        Plaintext p = Plaintext.of(secret, CaesarCipher.of(19, 6));
+        assertEquals(msg, p.toString());
+
+        // The keys follow the positions of the secret, not of the view.
+        assertEquals(msg.substring(5, 20), p.subSequence(5, 20).toString());
+        assertEquals(msg.substring(10, 12), p.subSequence(5, 20).subSequence(5, 7).toString());
+        assertEquals("", p.subSequence(3, 3).toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> p.subSequence(5, 100));
+    }
+
+    @Test
+    void writeTo() throws IOException {
+        String msg = "Prince. Rebellious subjects, enemies to peace. ".repeat(500);
+        String secret = new CaesarCipher(11).encrypt(msg);
+        StringWriter out = new StringWriter();
+        Plaintext.of(secret, CaesarCipher.of(15)).writeTo(out);
+        assertEquals(msg, out.toString());
+
+        out = new StringWriter();
+        Plaintext.of("", CaesarCipher.of(15)).writeTo(out);
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    void of_affine() {
+        String msg = "Affine ciphers, too.";
+        String secret = AffineCipher.of(5, 8).encrypt(msg);
+        assertEquals(msg, Plaintext.of(secret, AffineCipher.of(5, 8).inverse()).toString());
+    }
+}
@@ -0,0 +1,69 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlannerTest {
+    static LanguageProfile english;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        english = LanguageProfile.english(Dictionary.bundled());
+    }
+
+    @Test
+    void plan_oneKey() {
+        Planner planner = new Planner(1, english);
+
+        // Too few letters to tell the most frequent one.
+        String msg = "I me my mine myself.";
+        assertEquals(List.of(Planner.Plan.BRUTE_FORCE), plan(planner, msg, 1));
+
+        msg = "Rebellious subjects, enemies to peace, profaners of this neighbour-stained steel.";
+        assertEquals(List.of(Planner.Plan.FREQUENCY_ANALYSIS), plan(planner, msg, 1));
+
+        // Neither is a tie.
+        msg = "abcdefghijklmnopqrstuvwxyz ".repeat(4);
+        assertEquals(List.of(Planner.Plan.BRUTE_FORCE), plan(planner, msg, 1));
+    }
+
+    @Test
+    void plan_twoKeys() {
+        Planner planner = new Planner(2, english);
+
+        String msg = "Rebellious subjects, enemies to peace, profaners of this neighbour-stained steel.";
+        assertEquals(List.of(Planner.Plan.BRUTE_FORCE), plan(planner, msg, 2));
+
+        // Frequency analysis may miss the keys, so brute force follows it.
+        msg = "Prince. Rebellious subjects, enemies to peace, profaners of this neighbour-stained steel. " +
+                "Will they not hear? What, ho! you men, you beasts, that quench the fire of your pernicious rage.";
+        assertEquals(List.of(Planner.Plan.FREQUENCY_ANALYSIS, Planner.Plan.BRUTE_FORCE), plan(planner, msg, 2));
+
+        // A flat histogram is hardly any evidence.
+        msg = "abcdefghijklmnopqrstuvwxyz ".repeat(8) + "qq";
+        assertEquals(List.of(Planner.Plan.BRUTE_FORCE), plan(planner, msg, 2));
+    }
+
+    private static List<Planner.Plan> plan(Planner planner, String msg, int keys) {
+        int[][] counters = new int[keys][26];
+        int safeWords = 0;
+        for (int i = 0; i < msg.length(); i++) {
+            char c = Character.toLowerCase(msg.charAt(i));
+            if (c >= 'a' && c <= 'z') {
+                counters[i % keys][c - 'a']++;
+            }
+        }
+        String[] words = msg.split("\\s+");
+        for (String word : words) {
+            if (word.length() >= 4) {
+                safeWords++;
+            }
+        }
+        return planner.plan(counters, msg.length(), words.length, safeWords);
+    }
+}
@@ -0,0 +1,209 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultJournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void append() throws IOException {
+        try (ResultJournal journal = new ResultJournal(dir)) {
+            journal.append("qnh", new DecryptionResult(new int[]{9}, "hey"), "CaesarBreakerOneKey", 1500);
+            journal.append("x1y", DecryptionResult.failure(2), "CaesarBreakerTwoKey", 42);
+            journal.append("qnh qnh", new DecryptionResult(new int[]{3}, "abc", true), "CaesarBreakerOneKey", 7);
+        }
+
+        List<JournalEntry> entries = new JournalReader(dir).readAll();
+        assertEquals(3, entries.size());
+
+        JournalEntry e = entries.get(0);
+        assertEquals(ResultJournal.hash("qnh"), e.getHash());
+        assertArrayEquals(new int[]{9}, e.getKey());
+        assertTrue(e.isSuccess());
+        assertFalse(e.isPartial());
+        assertEquals("CaesarBreakerOneKey", e.getStrategy());
+        assertEquals(1500, e.getNanos());
+        assertTrue(e.getTimestamp() > 0);
+
+        e = entries.get(1);
+        assertArrayEquals(new int[]{-1, -1}, e.getKey());
+        assertFalse(e.isSuccess());
+        assertEquals("CaesarBreakerTwoKey", e.getStrategy());
+
+        e = entries.get(2);
+        assertFalse(e.isSuccess());
+        assertTrue(e.isPartial());
+    }
+
+    @Test
+    void append_concurrentRolls() throws Exception {
+        int threads = 4;
+        int records = 2000;
+        try (ResultJournal journal = new ResultJournal(dir, 4096)) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                writers.add(new Thread(() -> {
+                    for (int i = 0; i < records; i++) {
+                        journal.append(id, new int[]{id, i}, ResultJournal.SUCCESS, "w", i, i);
+                    }
+                }));
+            }
+            writers.forEach(Thread::start);
+            for (Thread w : writers) {
+                w.join();
+            }
+        }
+        assertTrue(JournalReader.segments(dir).size() > 1);
+
+        // Every record is there once, and the records of a writer keep their order.
+        int[] next = new int[threads];
+        new JournalReader(dir).forEach(e -> {
+            int id = (int) e.getHash();
+            assertEquals(next[id]++, e.getKey()[1]);
+        });
+        for (int t = 0; t < threads; t++) {
+            assertEquals(records, next[t]);
+        }
+    }
+
+    @Test
+    void read_unpublished() throws IOException {
+        try (ResultJournal journal = new ResultJournal(dir, 4096)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(i, new int[]{i}, ResultJournal.SUCCESS, "s", i, i);
+            }
+        }
+
+        // The second record is left as a writer which failed after its claim leaves it.
+        Path segment = JournalReader.segments(dir).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int at = ResultJournal.SEGMENT_HEADER + buffer.getInt(ResultJournal.SEGMENT_HEADER);
+            buffer.putInt(at, -buffer.getInt(at));
+            buffer.force();
+        }
+
+        List<JournalEntry> entries = new JournalReader(dir).readAll();
+        assertEquals(2, entries.size());
+        assertEquals(0, entries.get(0).getHash());
+        assertEquals(2, entries.get(1).getHash());
+    }
+
+    @Test
+    void reopen() throws IOException {
+        try (ResultJournal journal = new ResultJournal(dir, 4096)) {
+            journal.append("a", DecryptionResult.failure(1), "s", 1);
+        }
+        try (ResultJournal journal = new ResultJournal(dir, 4096)) {
+            journal.append("b", DecryptionResult.failure(1), "s", 2);
+        }
+
+        assertEquals(2, JournalReader.segments(dir).size());
+        List<JournalEntry> entries = new JournalReader(dir).readAll();
+        assertEquals(2, entries.size());
+        assertEquals(1, entries.get(0).getNanos());
+        assertEquals(2, entries.get(1).getNanos());
+    }
+
+    @Test
+    void append_closed() throws IOException {
+        ResultJournal journal = new ResultJournal(dir, 4096);
+        journal.close();
+        assertThrows(IllegalStateException.class,
+                () -> journal.append("a", DecryptionResult.failure(1), "s", 1));
+        assertThrows(IllegalArgumentException.class, () -> new ResultJournal(dir, 8));
+    }
+
+    @Test
+    void read_notJournal() throws IOException {
+        assertTrue(new JournalReader(dir.resolve("missing")).readAll().isEmpty());
+
+        Files.write(dir.resolve("0000000000000000000.journal"), new byte[64]);
+        assertThrows(IOException.class, () -> new JournalReader(dir).readAll());
+    }
+
+    @Test
+    void breaker() throws IOException {
+        CaesarBreakerOneKey b = new CaesarBreakerOneKey(Dictionary.bundled());
+        try (ResultJournal journal = new ResultJournal(dir)) {
+            b.journal = journal;
+            String secret = new CaesarCipher(9).encrypt("Meet me at noon");
+            b.decrypt(secret);
+            b.decryptWithin("qxzjvk", new Budget(1));
+            b.decrypt(secret, "noon");
+        }
+
+        List<JournalEntry> entries = new JournalReader(dir).readAll();
+        assertEquals(3, entries.size());
+        assertArrayEquals(new int[]{9}, entries.get(0).getKey());
+        assertTrue(entries.get(0).isSuccess());
+        // The plan which found the key.
+        assertNotNull(Planner.Plan.valueOf(entries.get(0).getStrategy()));
+        assertTrue(entries.get(0).getNanos() > 0);
+        assertFalse(entries.get(1).isSuccess());
+        assertEquals(Breaker.CRIB, entries.get(2).getStrategy());
+        assertEquals(0, b.getJournalFailures());
+    }
+
+    @Test
+    void streamBreaker() throws IOException {
+        CaesarStreamBreaker b = new CaesarStreamBreaker(Dictionary.bundled());
+        String msg = "Rebellious subjects, enemies to peace, profaners of this neighbour stained steel. ".repeat(3);
+        String secret = new CaesarCipher(4).encrypt(msg);
+        String shortSecret = new CaesarCipher(17).encrypt("I me my mine myself.");
+        try (ResultJournal journal = new ResultJournal(dir)) {
+            b.journal = journal;
+            b.decrypt(new StringReader(secret), new StringWriter());
+            b.decrypt(Channels.newChannel(new ByteArrayInputStream(shortSecret.getBytes(StandardCharsets.UTF_8))),
+                    StandardCharsets.UTF_8, new StringWriter());
+            b.decrypt(new StringReader("I me my mi1ne."), new StringWriter());
+        }
+
+        // The hash of the characters read is the hash of the same secret given as a string.
+        List<JournalEntry> entries = new JournalReader(dir).readAll();
+        assertEquals(3, entries.size());
+        assertEquals(ResultJournal.hash(secret), entries.get(0).getHash());
+        assertArrayEquals(new int[]{4}, entries.get(0).getKey());
+        assertTrue(entries.get(0).isSuccess());
+        assertEquals(CaesarStreamBreaker.COMMITTED, entries.get(0).getStrategy());
+        assertEquals(ResultJournal.hash(shortSecret), entries.get(1).getHash());
+        assertArrayEquals(new int[]{17}, entries.get(1).getKey());
+        assertEquals(CaesarStreamBreaker.SETTLED, entries.get(1).getStrategy());
+        assertFalse(entries.get(2).isSuccess());
+    }
+
+    @Test
+    void breaker_journalFails() throws IOException {
+        CaesarBreakerOneKey b = new CaesarBreakerOneKey(Dictionary.bundled());
+        b.journal = new ResultJournal(dir);
+        b.journal.close();
+
+        // The decryptions still succeed, and the failures are counted.
+        String msg = "Meet me at noon";
+        b.decrypt(new CaesarCipher(9).encrypt(msg));
+        assertEquals(msg, b.decrypted);
+        assertEquals(9, b.decryptAsync(new CaesarCipher(9).encrypt(msg)).join().getKey()[0]);
+        assertEquals(2, b.getJournalFailures());
+    }
+}
@@ -0,0 +1,28 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScratchTest {
+    @Test
+    void fit() {
+        Scratch scratch = Scratch.get();
+        assertSame(scratch, scratch.fit(1000));
+        assertTrue(scratch.text.length >= 1000);
+        assertSame(scratch, Scratch.get());
+    }
+
+    @Test
+    void fit_longerThanRetained() {
+        Scratch scratch = Scratch.get();
+        Scratch own = scratch.fit(Scratch.RETAINED + 1);
+        assertNotSame(scratch, own);
+        assertTrue(own.text.length > Scratch.RETAINED);
+        assertTrue(own.cost.length > Scratch.RETAINED + 1);
+
+        // The buffers of the thread didn't grow past the limit.
+        assertSame(scratch, Scratch.get());
+        assertTrue(scratch.fit(Scratch.RETAINED).text.length <= Scratch.RETAINED);
+    }
+}
@@ -0,0 +1,41 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmenterTest {
+    private static Segmenter s;
+
+    @BeforeAll
+    static void setUp() {
+        String file = new File("").getAbsolutePath() + "/src/main/resources/dictionary.txt";
+        try {
+            s = new Segmenter(new Dictionary(file));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    void segment() {
+        assertEquals("the quick brown fox", s.segment("Thequick, brownfox"));
+        assertEquals("attack at dawn", s.segment("ATTAC KATDA WN"));
+        assertEquals("", s.segment("  12 "));
+    }
+
+    @Test
+    void isEnglish() {
+        String text = "thequickbrownfoxjumpsoverthelazydog";
+        assertTrue(s.isEnglish(text.toCharArray(), text.length()));
+
+        text = new CaesarCipher(7).encrypt(text);
+        assertFalse(s.isEnglish(text.toCharArray(), text.length()));
+
+        assertFalse(s.isEnglish(new char[0], 0));
+    }
+}
@@ -0,0 +1,79 @@
+package io.enfire.cipher;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubstitutionBreakerTest {
+    static SubstitutionBreaker b;
+
+    @BeforeAll
+    static void setUp() {
+        String file = new File("").getAbsolutePath() + "/src/main/resources/dictionary.txt";
+        try {
+            b = new SubstitutionBreaker(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    void canDecrypt() {
+        b.decrypted = "a";
+        b.key = "qwertyuiopasdfghjklzxcvbnm";
+        assertTrue(b.canDecrypt());
+
+        b.decrypted = "  ";
+        assertFalse(b.canDecrypt());
+
+        b.decrypted = "a";
+        b.key = "";
+        assertFalse(b.canDecrypt());
+    }
+
+    @Test
+    void decrypt() {
+        String key = "qwertyuiopasdfghjklzxcvbnm";
+        String msg;
+
+        // An excerpt from Romeo and Juliet (59 words).
+        msg = "Prince. Rebellious subjects, enemies to peace,\n" +
+                "    Profaners of this neighbour-stained steel-\n" +
+                "    Will they not hear? What, ho! you men, you beasts,\n" +
+                "    That quench the fire of your pernicious rage\n" +
+                "    With purple fountains issuing from your veins!\n" +
+                "    On pain of torture, from those bloody hands\n" +
+                "    Throw your mistempered weapons to the ground\n" +
+                "    And hear the sentence of your moved prince.";
+        b.decrypt(encrypt(msg, key));
+        assertTrue(b.canDecrypt());
+        assertEquals(msg, b.decrypted);
+    }
+
+    @Test
+    void decrypt_edgeCase() {
+        b.decrypt("  ");
+        assertFalse(b.canDecrypt());
+
+        b.decrypt("x1y ".repeat(51));
+        assertEquals("", b.decrypted);
+        assertEquals("", b.key);
+    }
+
+    private static String encrypt(String msg, String key) {
+        StringBuilder s = new StringBuilder(msg);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            int idx = Character.toLowerCase(c) - 'a';
+            if (idx >= 0 && idx < 26) {
+                char k = key.charAt(idx);
+                s.setCharAt(i, Character.isUpperCase(c) ? Character.toUpperCase(k) : k);
+            }
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package io.enfire.server;
+
+import io.enfire.cipher.CaesarCipher;
+import io.enfire.cipher.DecryptionResult;
+import io.enfire.cipher.Dictionary;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecryptServerTest {
+    private static Dictionary dictionary;
+    private static DecryptServer server;
+    private static int port;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        String file = new File("").getAbsolutePath() + "/src/main/resources/dictionary.txt";
+        dictionary = new Dictionary(file);
+        server = new DecryptServer(dictionary);
+        port = server.start(0);
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void decrypt() throws IOException {
+        String msg = "I me my mine myself.";
+        try (DecryptClient client = new DecryptClient(port)) {
+            DecryptionResult r = client.decrypt(new CaesarCipher(17).encrypt(msg), 1);
+            assertEquals(msg, r.getDecrypted());
+            assertArrayEquals(new int[]{17}, r.getKey());
+
+            r = client.decrypt(new CaesarCipher(17, 1).encrypt(msg), 2);
+            assertEquals(msg, r.getDecrypted());
+            assertArrayEquals(new int[]{17, 1}, r.getKey());
+
+            r = client.decrypt("I me my mi1ne.", 1);
+            assertFalse(r.canDecrypt());
+        }
+    }
+
+    @Test
+    void decrypt_unsupportedKeys() throws IOException {
+        try (DecryptClient client = new DecryptClient(port)) {
+            assertThrows(IOException.class, () -> client.decrypt("abc", 3));
+            // The connection is still usable.
+            assertArrayEquals(new int[]{25}, client.decrypt(new CaesarCipher(25).encrypt("I me my mine myself."), 1).getKey());
+        }
+    }
+
+    @Test
+    void decrypt_badLength() throws IOException {
+        for (int length : new int[]{-1, Integer.MAX_VALUE}) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                out.writeByte(Protocol.DECRYPT);
+                out.writeByte(1);
+                out.writeInt(length);
+                out.flush();
+
+                assertEquals(Protocol.ERROR, in.readByte());
+                assertTrue(Protocol.readString(in).contains(String.valueOf(length)));
+                // The server closes the connection.
+                assertEquals(-1, in.read());
+            }
+        }
+        // The server is still up.
+        try (DecryptClient client = new DecryptClient(port)) {
+            assertEquals(3, client.decrypt(new CaesarCipher(3).encrypt("I me my mine myself."), 1).getKey()[0]);
+        }
+    }
+
+    @Test
+    void decrypt_concurrentClients() {
+        String msg = "I me my mine myself.";
+        List<CompletableFuture<DecryptionResult>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            int key = i + 1;
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try (DecryptClient client = new DecryptClient(port)) {
+                    return client.decrypt(new CaesarCipher(key).encrypt(msg), 1);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            DecryptionResult r = results.get(i).join();
+            assertEquals(msg, r.getDecrypted());
+            assertEquals(i + 1, r.getKey()[0]);
+        }
+    }
+
+    @Test
+    void decrypt_batch() throws IOException {
+        String[] msgs = {"I me my mine myself.", "Hello my friend.", "I me my mi1ne.", "Hello my friend."};
+        int[] keys = {7, 7, 7, 12};
+        try (DecryptServer batching = new DecryptServer(dictionary)) {
+            // The batch only closes once every secret is in, so they're decrypted together.
+            batching.batchSize = msgs.length;
+            batching.batchWindow = TimeUnit.MINUTES.toMicros(1);
+            int batchingPort = batching.start(0);
+            List<CompletableFuture<DecryptionResult>> results = new ArrayList<>();
+            for (int i = 0; i < msgs.length; i++) {
+                String secret = new CaesarCipher(keys[i]).encrypt(msgs[i]);
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    try (DecryptClient client = new DecryptClient(batchingPort)) {
+                        return client.decrypt(secret, 1);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            for (int i = 0; i < msgs.length; i++) {
+                DecryptionResult r = results.get(i).join();
+                if (i == 2) {
+                    assertFalse(r.canDecrypt());
+                } else {
+                    assertEquals(msgs[i], r.getDecrypted());
+                    assertEquals(keys[i], r.getKey()[0]);
+                }
+            }
+            assertEquals(msgs.length, batching.requests());
+        }
+    }
+
+    @Test
+    void close_pendingRequests() throws Exception {
+        DecryptServer closing = new DecryptServer(dictionary);
+        // The batch never fills up, so the requests wait in the dispatcher when the server closes.
+        closing.batchWindow = TimeUnit.MINUTES.toMicros(1);
+        int closingPort = closing.start(0);
+        List<CompletableFuture<DecryptionResult>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try (DecryptClient client = new DecryptClient(closingPort)) {
+                    return client.decrypt(new CaesarCipher(5).encrypt("I me my mine myself."), 1);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        Thread.sleep(200);
+        closing.close();
+
+        // Without a result, the connections would wait forever.
+        for (CompletableFuture<DecryptionResult> r : results) {
+            assertThrows(ExecutionException.class, () -> r.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void stats() throws IOException {
+        try (DecryptClient client = new DecryptClient(port)) {
+            client.decrypt(new CaesarCipher(3).encrypt("I me my mine myself."), 1);
+            ServerStats stats = client.stats();
+            assertTrue(stats.getRequests() >= 1);
+            assertTrue(stats.getQueueDepth() >= 0);
+            assertTrue(stats.getP50() <= stats.getP95());
+            assertTrue(stats.getP95() <= stats.getP99());
+        }
+    }
+}
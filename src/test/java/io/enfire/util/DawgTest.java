@@ -0,0 +1,93 @@
+package io.enfire.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DawgTest {
+    @Test
+    void contains() {
+        Dawg d = new Dawg(Arrays.asList("tap", "taps", "top", "tops", "ça va"));
+        assertTrue(d.contains("tap"));
+        assertTrue(d.contains("tops"));
+        assertTrue(d.contains("ça va"));
+
+        assertFalse(d.contains(""));
+        assertFalse(d.contains("ta"));
+        assertFalse(d.contains("tapss"));
+    }
+
+    @Test
+    void contains_emptyWord() {
+        Dawg d = new Dawg(Arrays.asList("", "a"));
+        assertTrue(d.contains(""));
+        assertTrue(d.contains("a"));
+    }
+
+    @Test
+    void hasPrefix() {
+        Dawg d = new Dawg(Arrays.asList("tap", "taps", "top", "tops"));
+        assertTrue(d.hasPrefix(""));
+        assertTrue(d.hasPrefix("t"));
+        assertTrue(d.hasPrefix("tops"));
+
+        assertFalse(d.hasPrefix("tu"));
+        assertFalse(new Dawg(Collections.emptyList()).hasPrefix(""));
+    }
+
+    @Test
+    void size_duplicates() {
+        Dawg d = new Dawg(Arrays.asList("top", "tap", "top", "tap"));
+        assertEquals(2, d.size());
+    }
+
+    @Test
+    void states_minimal() {
+        // Suffixes "ap", "aps", "op", "ops" are all shared:
+        // root -t-> 1 -a,o-> 2 -p-> 3(final) -s-> 4(final)
+        Dawg d = new Dawg(Arrays.asList("tap", "taps", "top", "tops"));
+        assertEquals(5, d.states());
+        assertEquals(5, d.edges());
+    }
+
+    @Test
+    void next() {
+        Dawg d = new Dawg(Arrays.asList("ab", "b"));
+        int state = d.next(Dawg.ROOT, 'a');
+        assertNotEquals(Dawg.NONE, state);
+        assertFalse(d.isFinal(state));
+        assertTrue(d.isFinal(d.next(state, 'b')));
+        assertEquals(Dawg.NONE, d.next(Dawg.ROOT, 'c'));
+    }
+
+    @Test
+    void forEach() {
+        List<String> words = new ArrayList<>();
+        new Dawg(Arrays.asList("tops", "tap", "top", "taps")).forEach(words::add);
+        assertEquals(Arrays.asList("tap", "taps", "top", "tops"), words);
+    }
+
+    @Test
+    void write_read() throws IOException {
+        Dawg dawg = new Dawg(Arrays.asList("tap", "taps", "top", "tops", ""));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dawg.write(new DataOutputStream(out));
+        Dawg copy = Dawg.read(ByteBuffer.wrap(out.toByteArray()));
+
+        assertEquals(dawg.size(), copy.size());
+        assertEquals(dawg.states(), copy.states());
+        assertEquals(dawg.edges(), copy.edges());
+        List<String> words = new ArrayList<>();
+        copy.forEach(words::add);
+        assertEquals(Arrays.asList("", "tap", "taps", "top", "tops"), words);
+    }
+}
@@ -0,0 +1,45 @@
+package io.enfire.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest {
+    @Test
+    void offer() {
+        TopK top = new TopK(3);
+        long[] scores = {5, 1, 9, 7, 3, 9, 0};
+        for (int i = 0; i < scores.length; i++) {
+            top.offer(i, scores[i]);
+        }
+
+        assertEquals(3, top.size());
+        assertArrayEquals(new int[]{2, 5, 3}, top.ids());
+        assertArrayEquals(new long[]{9, 9, 7}, top.scores());
+        assertEquals(7, top.floor());
+        assertFalse(top.offer(7, 7));
+        assertTrue(top.offer(1, 7));
+        assertArrayEquals(new int[]{2, 5, 1}, top.ids());
+    }
+
+    @Test
+    void offer_empty() {
+        TopK top = new TopK(0);
+        assertFalse(top.offer(1, 1));
+        assertEquals(Long.MIN_VALUE, top.floor());
+        assertEquals(0, top.ids().length);
+        assertThrows(IllegalArgumentException.class, () -> new TopK(-1));
+    }
+
+    @Test
+    void addAll() {
+        TopK a = new TopK(2);
+        TopK b = new TopK(2);
+        a.offer(0, 1);
+        a.offer(1, 4);
+        b.offer(2, 3);
+        b.offer(3, 2);
+        a.addAll(b);
+        assertArrayEquals(new int[]{1, 2}, a.ids());
+    }
+}